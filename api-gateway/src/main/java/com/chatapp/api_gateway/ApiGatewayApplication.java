@@ -5,11 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 // Thêm 2 dòng import này:
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurityAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.ReactiveManagementWebSecurityAutoConfiguration;
 
 // SỬA DÒNG NÀY:
 @SpringBootApplication(exclude = {
 		SecurityAutoConfiguration.class,
-		ReactiveSecurityAutoConfiguration.class
+		ReactiveSecurityAutoConfiguration.class,
+		ReactiveManagementWebSecurityAutoConfiguration.class
 })
 public class ApiGatewayApplication {
 
@@ -0,0 +1,38 @@
+package com.chatapp.api_gateway.config;
+
+import com.chatapp.api_gateway.filter.H2cRoutingFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(UpstreamPoolProperties.class)
+public class GatewayHttpClientConfig {
+
+    // Thay HttpClientFactory mặc định của Spring Cloud Gateway (ConditionalOnMissingBean)
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(HttpClientProperties properties,
+                                                      ServerProperties serverProperties,
+                                                      List<HttpClientCustomizer> customizers,
+                                                      HttpClientSslConfigurer sslConfigurer,
+                                                      UpstreamPoolProperties upstreamProperties) {
+        return new UpstreamHttpClientFactory(properties, serverProperties, sslConfigurer, customizers, upstreamProperties);
+    }
+
+    @Bean
+    public H2cRoutingFilter h2cRoutingFilter(HttpClient httpClient,
+                                             ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                             HttpClientProperties properties) {
+        return new H2cRoutingFilter(httpClient, headersFilters, properties);
+    }
+}
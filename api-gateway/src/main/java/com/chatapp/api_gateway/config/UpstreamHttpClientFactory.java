@@ -0,0 +1,76 @@
+package com.chatapp.api_gateway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * HttpClient của gateway với pool riêng cho từng upstream (ConnectionProvider.forRemoteHost).
+ * Mỗi backend có giới hạn connection / hàng chờ riêng nên một service
+ * chậm không làm cạn pool của service khác.
+ */
+@Slf4j
+public class UpstreamHttpClientFactory extends HttpClientFactory {
+
+    private final UpstreamPoolProperties upstreamProperties;
+
+    public UpstreamHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                     HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                     UpstreamPoolProperties upstreamProperties) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.upstreamProperties = upstreamProperties;
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        ConnectionProvider defaultProvider = super.buildConnectionProvider(properties);
+        ConnectionProvider.Builder builder = defaultProvider.mutate();
+
+        // Pool type DISABLED -> không có pool để cấu hình
+        if (builder == null || upstreamProperties.getPools().isEmpty()) {
+            return defaultProvider;
+        }
+
+        boolean metrics = properties.getPool().isMetrics();
+        Set<InetSocketAddress> configured = new HashSet<>();
+        upstreamProperties.getPools().forEach((name, pool) -> {
+            InetSocketAddress address = toAddress(pool.getUri());
+            if (!configured.add(address)) {
+                log.warn("⚠️ [GATEWAY] Pool '{}' reuses address {}, it overrides the earlier pool settings", name, address);
+            }
+            builder.forRemoteHost(address, spec -> {
+                if (pool.getMaxConnections() != null) spec.maxConnections(pool.getMaxConnections());
+                if (pool.getPendingAcquireMaxCount() != null) spec.pendingAcquireMaxCount(pool.getPendingAcquireMaxCount());
+                if (pool.getPendingAcquireTimeout() != null) spec.pendingAcquireTimeout(pool.getPendingAcquireTimeout());
+                if (pool.getMaxIdleTime() != null) spec.maxIdleTime(pool.getMaxIdleTime());
+                if (pool.getMaxLifeTime() != null) spec.maxLifeTime(pool.getMaxLifeTime());
+                if (pool.getEvictionInterval() != null) spec.evictInBackground(pool.getEvictionInterval());
+                spec.metrics(metrics);
+            });
+            log.info("🔌 [GATEWAY] Pool '{}' -> {}: {}", name, address, pool);
+        });
+
+        // Provider mặc định chưa mở connection nào, bỏ đi và dùng bản đã cấu hình theo host
+        defaultProvider.dispose();
+        return builder.build();
+    }
+
+    // Reactor Netty so khớp pool theo địa chỉ CHƯA resolve (host:port lấy từ uri của route)
+    private static InetSocketAddress toAddress(URI uri) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return InetSocketAddress.createUnresolved(uri.getHost(), port);
+    }
+}
@@ -0,0 +1,34 @@
+package com.chatapp.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình connection pool riêng cho từng upstream (gateway.upstream.*).
+ * Host không khai báo ở đây sẽ dùng pool mặc định spring.cloud.gateway.httpclient.pool.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.upstream")
+public class UpstreamPoolProperties {
+
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    @Data
+    public static class Pool {
+        // Địa chỉ upstream, phải trùng host:port với uri của route
+        private URI uri;
+        private Integer maxConnections;
+        // Số request được phép chờ lấy connection khi pool đã đầy
+        private Integer pendingAcquireMaxCount;
+        private Duration pendingAcquireTimeout;
+        private Duration maxIdleTime;
+        private Duration maxLifeTime;
+        // Chu kỳ dọn connection idle/hết hạn ở background
+        private Duration evictionInterval;
+    }
+}
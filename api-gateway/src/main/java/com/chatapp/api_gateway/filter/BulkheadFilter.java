@@ -0,0 +1,75 @@
+package com.chatapp.api_gateway.filter;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Giới hạn số request đồng thời đi xuống một service (Bulkhead).
+ * Khi chat-service bị treo, request tới nó chỉ chiếm tối đa maxConcurrentCalls "chỗ",
+ * phần còn lại bị từ chối ngay với 503 thay vì xếp hàng và kéo theo auth-service.
+ *
+ * Dùng trong application.yaml: {@code - BulkheadFilter=chatService}
+ * Cấu hình giới hạn ở {@code resilience4j.bulkhead.instances.<name>}.
+ */
+@Slf4j
+@Component
+public class BulkheadFilter extends AbstractGatewayFilterFactory<BulkheadFilter.Config> {
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    public BulkheadFilter(BulkheadRegistry bulkheadRegistry) {
+        super(Config.class);
+        this.bulkheadRegistry = bulkheadRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("name");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(config.getName());
+
+        return (exchange, chain) -> chain.filter(exchange)
+                // Permit được lấy khi subscribe và trả lại khi complete/error/cancel
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .onErrorResume(BulkheadFullException.class, e -> {
+                    log.warn("⛔ [BULKHEAD] '{}' is full, rejecting {}", bulkhead.getName(),
+                            exchange.getRequest().getURI().getPath());
+                    return onError(exchange, "Service busy: " + bulkhead.getName());
+                });
+    }
+
+    private Mono<Void> onError(ServerWebExchange exchange, String err) {
+        HttpStatus httpStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        exchange.getResponse().setStatusCode(httpStatus);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        String responseBody = "{\"status\": " + httpStatus.value() + ", \"message\": \"" + err + "\"}";
+        DataBuffer buffer = exchange.getResponse().bufferFactory().wrap(responseBody.getBytes(StandardCharsets.UTF_8));
+        return exchange.getResponse().writeWith(Mono.just(buffer));
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        // Tên instance trong resilience4j.bulkhead.instances
+        private String name;
+    }
+}
@@ -0,0 +1,48 @@
+package com.chatapp.api_gateway.filter;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Gọi backend bằng HTTP/2 cleartext (h2c, prior knowledge) cho các route có metadata {@code h2c: true}.
+ * Chạy ngay trước NettyRoutingFilter mặc định; sau khi route xong sẽ đánh dấu "already routed"
+ * nên filter mặc định bỏ qua. Route khác (MinIO, WebSocket...) vẫn đi HTTP/1.1 như cũ.
+ *
+ * Backend Spring MVC cần bật {@code server.http2.enabled=true} (Tomcat nhận h2c trực tiếp).
+ */
+public class H2cRoutingFilter extends NettyRoutingFilter {
+
+    public static final String H2C_ATTR = "h2c";
+
+    public H2cRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                            HttpClientProperties properties) {
+        // Dùng chung ConnectionProvider với client mặc định, Reactor Netty tách pool HTTP/2 theo cấu hình
+        super(httpClient.protocol(HttpProtocol.H2C), headersFiltersProvider, properties);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !Boolean.parseBoolean(String.valueOf(route.getMetadata().get(H2C_ATTR)))) {
+            return chain.filter(exchange);
+        }
+        return super.filter(exchange, chain);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
@@ -16,6 +16,8 @@ public class RouteValidator {
     public static final List<String> openApiEndpoints = List.of(
             "/api/auth/register",   // Đăng ký tài khoản
             "/api/auth/login",      // Đăng nhập lấy token
+            "/api/auth/refresh",    // Đổi refresh token lấy access token mới
+            "/api/auth/logout",     // Thu hồi refresh token
             "/eureka"               // Endpoint cho Eureka Client (nếu dùng)
     );
 
@@ -0,0 +1,183 @@
+package com.chatapp.api_gateway;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chạy gateway thật với route auth-service trỏ vào một stub backend cục bộ
+ * (inject độ trễ và lỗi 503) để kiểm tra retry / timeout / bulkhead / circuit breaker.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "management.server.port=0",
+                "resilience4j.timelimiter.instances.authService.timeout-duration=2s",
+                "resilience4j.bulkhead.instances.authService.max-concurrent-calls=1",
+                "resilience4j.circuitbreaker.instances.authService.sliding-window-size=4",
+                "resilience4j.circuitbreaker.instances.authService.minimum-number-of-calls=4",
+                "resilience4j.circuitbreaker.instances.authService.wait-duration-in-open-state=1m"
+        })
+class GatewayResilienceTests {
+
+    private static final AtomicInteger flakyCalls = new AtomicInteger();
+    private static final AtomicInteger failingCalls = new AtomicInteger();
+
+    private static DisposableServer stub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startStub() {
+        stub = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        // 2 lần đầu trả 503, sau đó 200
+                        .get("/api/auth/flaky", (req, res) -> flakyCalls.incrementAndGet() <= 2
+                                ? res.status(503).send()
+                                : res.sendString(Mono.just("ok")))
+                        .get("/api/auth/down", (req, res) -> {
+                            failingCalls.incrementAndGet();
+                            return res.status(503).send();
+                        })
+                        .post("/api/auth/down", (req, res) -> {
+                            failingCalls.incrementAndGet();
+                            return res.status(503).send();
+                        })
+                        .get("/api/auth/slow", (req, res) -> res.sendString(
+                                Mono.just("late").delayElement(Duration.ofSeconds(4))))
+                        .get("/api/auth/hold", (req, res) -> res.sendString(
+                                Mono.just("held").delayElement(Duration.ofMillis(1500)))))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.disposeNow();
+    }
+
+    @DynamicPropertySource
+    static void stubProperties(DynamicPropertyRegistry registry) {
+        registry.add("AUTH_SERVICE_URL", () -> "http://localhost:" + stub.port());
+    }
+
+    @BeforeEach
+    void reset() {
+        flakyCalls.set(0);
+        failingCalls.set(0);
+        circuitBreakerRegistry.circuitBreaker("authService").reset();
+    }
+
+    @Test
+    void idempotentGetIsRetried() {
+        webTestClient.get().uri("/api/auth/flaky")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("ok");
+
+        assertThat(flakyCalls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void postIsNotRetriedAndFallsBack() {
+        webTestClient.post().uri("/api/auth/down")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody()
+                .jsonPath("$.service").isEqualTo("auth-service");
+
+        assertThat(failingCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void slowBackendTimesOutToFallback() {
+        webTestClient.get().uri("/api/auth/slow")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody()
+                .jsonPath("$.reason").isEqualTo("TimeoutException");
+    }
+
+    @Test
+    void bulkheadRejectsConcurrentCallsBeyondLimit() {
+        // Chiếm chỗ duy nhất trong bulkhead rồi gửi request thứ hai trong lúc đó
+        Mono<String> first = WebClient.create("http://localhost:" + port)
+                .get().uri("/api/auth/hold")
+                .retrieve()
+                .bodyToMono(String.class)
+                .cache();
+        first.subscribe();
+        sleep(500);
+
+        webTestClient.get().uri("/api/auth/hold")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Service busy: authService");
+
+        assertThat(first.block(Duration.ofSeconds(5))).isEqualTo("held");
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndIsExposedAsMetric() {
+        for (int i = 0; i < 4; i++) {
+            webTestClient.get().uri("/api/auth/down").exchange().expectStatus().isEqualTo(503);
+        }
+        int callsBeforeOpen = failingCalls.get();
+
+        assertThat(circuitBreakerRegistry.circuitBreaker("authService").getState())
+                .isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Circuit OPEN -> fallback ngay, không chạm tới backend
+        webTestClient.get().uri("/api/auth/down")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody()
+                .jsonPath("$.reason").isEqualTo("CallNotPermittedException");
+        assertThat(failingCalls.get()).isEqualTo(callsBeforeOpen);
+
+        Double openGauge = meterRegistry.find("resilience4j.circuitbreaker.state")
+                .tag("name", "authService")
+                .tag("state", "open")
+                .gauge()
+                .value();
+        assertThat(openGauge).isEqualTo(1.0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
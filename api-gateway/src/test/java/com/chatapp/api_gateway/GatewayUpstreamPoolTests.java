@@ -0,0 +1,137 @@
+package com.chatapp.api_gateway;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Gateway với h2c bật (GATEWAY_UPSTREAM_H2C) và pool riêng cho auth-service, chạy trước
+ * một stub backend hỗ trợ cả HTTP/1.1 lẫn h2c và một stub WebSocket thuần HTTP/1.1.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "management.server.port=0",
+                "GATEWAY_UPSTREAM_H2C=true",
+                "gateway.upstream.pools.auth-service.max-connections=7"
+        })
+class GatewayUpstreamPoolTests {
+
+    private static DisposableServer stub;
+    private static DisposableServer wsStub;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startStub() {
+        stub = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .route(routes -> routes
+                        .get("/api/auth/version", (req, res) -> {
+                            // Stream HTTP/2 được chuyển thành HttpRequest 1.1, phải nhìn vào kiểu channel
+                            AtomicReference<String> protocol = new AtomicReference<>("HTTP/1.1");
+                            req.withConnection(connection -> {
+                                if (connection.channel() instanceof Http2StreamChannel) {
+                                    protocol.set("HTTP/2.0");
+                                }
+                            });
+                            return res.sendString(Mono.fromSupplier(protocol::get));
+                        })
+                        .post("/api/auth/echo", (req, res) -> res.send(req.receive().retain())))
+                .bindNow();
+        wsStub = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .ws("/ws/echo", (in, out) -> out.send(in.receive().retain())))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.disposeNow();
+        wsStub.disposeNow();
+    }
+
+    @DynamicPropertySource
+    static void stubProperties(DynamicPropertyRegistry registry) {
+        registry.add("AUTH_SERVICE_URL", () -> "http://localhost:" + stub.port());
+        registry.add("CHAT_SERVICE_URL", () -> "http://localhost:" + wsStub.port());
+    }
+
+    @Test
+    void upstreamCallsUseH2c() {
+        webTestClient.get().uri("/api/auth/version")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("HTTP/2.0");
+    }
+
+    @Test
+    void requestBodiesAreForwardedOverH2c() {
+        webTestClient.post().uri("/api/auth/echo")
+                .bodyValue("hello")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("hello");
+    }
+
+    @Test
+    void websocketRouteStillWorksWithH2cEnabled() {
+        AtomicReference<String> reply = new AtomicReference<>();
+
+        new ReactorNettyWebSocketClient()
+                .execute(URI.create("ws://localhost:" + port + "/ws/echo"), session -> session
+                        .send(Mono.just(session.textMessage("ping")))
+                        .thenMany(session.receive().take(1).map(WebSocketMessage::getPayloadAsText))
+                        .doOnNext(reply::set)
+                        .then())
+                .block(Duration.ofSeconds(5));
+
+        assertThat(reply.get()).isEqualTo("ping");
+    }
+
+    @Test
+    void perUpstreamPoolLimitsAreAppliedAndExposedAsMetrics() {
+        webTestClient.get().uri("/api/auth/version").exchange().expectStatus().isOk();
+
+        Meter.Id maxConnections = meterRegistry.getMeters().stream()
+                .map(Meter::getId)
+                .filter(id -> id.getName().startsWith("reactor.netty.connection.provider"))
+                .filter(id -> id.getName().endsWith("max.connections"))
+                .filter(id -> String.valueOf(id.getTag("remote.address")).endsWith(":" + stub.port()))
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(meterRegistry.get(maxConnections.getName()).tags(maxConnections.getTags()).gauge().value())
+                .isEqualTo(7.0);
+    }
+}
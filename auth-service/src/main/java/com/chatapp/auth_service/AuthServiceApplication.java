@@ -2,11 +2,15 @@ package com.chatapp.auth_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import java.util.TimeZone; // Import thư viện TimeZone
 
 @SpringBootApplication
 @EnableAsync
+@EnableCaching
+@EnableScheduling // Dọn refresh token hết hạn
 public class AuthServiceApplication {
 
 	public static void main(String[] args) {
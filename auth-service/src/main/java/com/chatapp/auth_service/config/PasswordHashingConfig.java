@@ -0,0 +1,51 @@
+package com.chatapp.auth_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool riêng cho BCrypt (encode / matches): mỗi lần băm tốn ~100ms CPU, chạy trên Tomcat thread thì
+ * 1 đợt đăng nhập dồn dập (mọi client reconnect sau deploy) sẽ chiếm hết thread và làm nghẽn cả
+ * GET /api/users/{id}. Pool cố định + hàng đợi có giới hạn: đầy -> từ chối ngay (503), không xếp hàng vô hạn.
+ */
+@Configuration
+public class PasswordHashingConfig {
+
+    @Bean(name = "passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${auth.password.workers:0}") int workers,
+            @Value("${auth.password.queue-capacity:200}") int queueCapacity) {
+        // 0 = số core: BCrypt thuần CPU, nhiều thread hơn số core chỉ làm mọi lần băm cùng chậm
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("bcrypt-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Phần sau BCrypt của login (ghi refresh token = 1 INSERT JDBC): không chạy trên pool bcrypt,
+     * nếu không mỗi lần chờ DB sẽ giữ 1 trong số ít thread băm. Kích thước bám theo pool kết nối Hikari.
+     */
+    @Bean(name = "loginCompletionExecutor")
+    public ThreadPoolTaskExecutor loginCompletionExecutor(
+            @Value("${auth.password.completion-workers:8}") int workers,
+            @Value("${auth.password.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,5 +1,6 @@
 package com.chatapp.auth_service.config;
 
+import com.chatapp.auth_service.security.InternalTokenFilter;
 import com.chatapp.auth_service.security.JwtFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,10 +17,13 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtFilter jwtFilter;
+    private final InternalTokenFilter internalTokenFilter;
     private final AuthenticationProvider authenticationProvider;
 
-    public SecurityConfig(JwtFilter jwtFilter, AuthenticationProvider authenticationProvider) {
+    public SecurityConfig(JwtFilter jwtFilter, InternalTokenFilter internalTokenFilter,
+                          AuthenticationProvider authenticationProvider) {
         this.jwtFilter = jwtFilter;
+        this.internalTokenFilter = internalTokenFilter;
         this.authenticationProvider = authenticationProvider;
     }
 
@@ -29,9 +33,16 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoints: registration, login, verification
-                        .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/verify", "/api/auth/resend-verification").permitAll()
+                        .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/verify", "/api/auth/resend-verification",
+                                "/api/auth/refresh", "/api/auth/logout").permitAll()
                         // Public endpoint for other services to query user by ID
                         .requestMatchers("/api/auth/users/**", "/api/auth/check/**").permitAll()
+                        // Internal service-to-service endpoints (Gateway KHÔNG route /internal/** ra ngoài);
+                        // không cần JWT nhưng phải có X-Internal-Token (InternalTokenFilter)
+                        .requestMatchers("/internal/**").permitAll()
+                        // Actuator nằm trên management port (không publish); chỉ health là public,
+                        // metrics và endpoint khác vẫn cần JWT
+                        .requestMatchers("/actuator/health").permitAll()
                         // Protected endpoint: current user profile (requires authentication)
                         .requestMatchers("/api/users/profile").authenticated()
                         // Protected endpoint: search users (requires authentication - only logged-in users can search)
@@ -49,6 +60,7 @@ public class SecurityConfig {
                 )
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider)
+                .addFilterBefore(internalTokenFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,44 @@
+package com.chatapp.auth_service.config;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tạo index cho tìm kiếm user (ddl-auto: update không tạo được GIN / expression index):
+ * - GIN pg_trgm trên lower(username|full_name|email) cho LIKE '%q%'
+ * - B-tree text_pattern_ops trên lower(username) cho tìm theo tiền tố với từ khoá ngắn
+ * Tất cả là partial index (chỉ user active). Postgres tự cập nhật index khi đăng ký / đổi profile.
+ * Lỗi (thiếu quyền CREATE EXTENSION...) chỉ log lại: tìm kiếm vẫn chạy, chỉ chậm hơn.
+ */
+@Component
+public class UserSearchIndexInitializer {
+
+    private static final List<String> STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (lower(username) gin_trgm_ops) WHERE is_active = true",
+            "CREATE INDEX IF NOT EXISTS idx_users_full_name_trgm ON users USING gin (lower(full_name) gin_trgm_ops) WHERE is_active = true",
+            "CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops) WHERE is_active = true",
+            "CREATE INDEX IF NOT EXISTS idx_users_username_prefix ON users (lower(username) text_pattern_ops) WHERE is_active = true"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserSearchIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        for (String sql : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (Exception e) {
+                System.err.println("⚠️ Could not run '" + sql + "': " + e.getMessage());
+            }
+        }
+    }
+}
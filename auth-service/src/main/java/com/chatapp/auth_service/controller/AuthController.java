@@ -2,10 +2,15 @@ package com.chatapp.auth_service.controller;
 
 import com.chatapp.auth_service.dto.LoginRequest;
 import com.chatapp.auth_service.dto.LoginResponse;
+import com.chatapp.auth_service.dto.RefreshTokenRequest;
 import com.chatapp.auth_service.dto.RegisterRequest;
 import com.chatapp.auth_service.dto.UserProfileResponse;
 import com.chatapp.auth_service.entity.User;
 import com.chatapp.auth_service.service.AuthService;
+import com.chatapp.auth_service.service.LoginThrottleService;
+import com.chatapp.auth_service.service.RefreshTokenService;
+import com.chatapp.auth_service.service.UserLookupService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -14,18 +19,28 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final AuthService svc;
+    private final LoginThrottleService loginThrottleService;
+    private final RefreshTokenService refreshTokenService;
+    private final UserLookupService userLookupService;
 
     @Value("${app.frontend-url:http://localhost:3000}")
     private String frontendUrl;
 
-    public AuthController(AuthService svc) {
+    public AuthController(AuthService svc,
+                          LoginThrottleService loginThrottleService,
+                          RefreshTokenService refreshTokenService,
+                          UserLookupService userLookupService) {
         this.svc = svc;
+        this.loginThrottleService = loginThrottleService;
+        this.refreshTokenService = refreshTokenService;
+        this.userLookupService = userLookupService;
     }
 
     @PostMapping("/register")
@@ -34,10 +49,25 @@ public class AuthController {
         return ResponseEntity.ok().body("{\"userId\":\"" + userId + "\"}");
     }
 
+    // Trả CompletableFuture: Tomcat thread được giải phóng trong lúc BCrypt chạy trên pool riêng
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest req) {
-        LoginResponse res = svc.login(req);
-        return ResponseEntity.ok(res);
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest req,
+                                                                  HttpServletRequest request) {
+        String clientIp = loginThrottleService.resolveClientIp(request);
+        return svc.login(req, clientIp).thenApply(ResponseEntity::ok);
+    }
+
+    // Đổi refresh token lấy access token mới (không cần mật khẩu, không BCrypt)
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest req) {
+        return ResponseEntity.ok(refreshTokenService.refresh(req.getRefreshToken()));
+    }
+
+    // Thu hồi refresh token của phiên hiện tại (access token tự hết hạn sau jwt.expiration-ms)
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest req) {
+        refreshTokenService.revoke(req.getRefreshToken());
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/me")
@@ -65,15 +95,15 @@ public class AuthController {
     // API kiểm tra user tồn tại & trả về ID (Dùng khi tìm kiếm để tạo chat mới)
     @GetMapping("/check/{username}")
     public ResponseEntity<?> checkUserExists(@PathVariable String username) {
-        // Gọi hàm tìm user (trả về entity User đầy đủ)
-        User user = svc.findUserByUsername(username);
+        // Cache (UserLookupService): username có thật cache lâu, username chưa có chỉ cache vài giây
+        String userId = userLookupService.findIdByUsername(username).orElse(null);
 
-        if (user != null) {
+        if (userId != null) {
             // Trả về JSON: { "exists": true, "userId": "...", "username": "..." }
             return ResponseEntity.ok(Map.of(
                     "exists", true,
-                    "userId", user.getId(),       // ID thật (UUID) để dùng cho Topic chat
-                    "username", user.getUsername() // Tên chuẩn trong DB
+                    "userId", userId,     // ID thật (UUID) để dùng cho Topic chat
+                    "username", username  // Khớp chính xác với username trong DB
             ));
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -0,0 +1,59 @@
+package com.chatapp.auth_service.controller;
+
+import com.chatapp.auth_service.dto.UserResponse;
+import com.chatapp.auth_service.repository.UserRepository;
+import com.chatapp.auth_service.service.UserLookupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Endpoint nội bộ cho các service khác (không đi qua Gateway).
+ */
+@RestController
+@RequestMapping("/internal/users")
+public class InternalUserController {
+
+    private final UserRepository userRepository;
+    private final UserLookupService userLookupService;
+
+    // Giới hạn số id mỗi lần gọi batch để 1 request không kéo cả bảng users
+    @Value("${app.internal.max-batch-size:200}")
+    private int maxBatchSize;
+
+    public InternalUserController(UserRepository userRepository, UserLookupService userLookupService) {
+        this.userRepository = userRepository;
+        this.userLookupService = userLookupService;
+    }
+
+    /**
+     * POST /internal/users/batch
+     * Nhận danh sách userId, trả về thông tin cơ bản (id, username, fullName, avatarUrl) của các user tồn tại.
+     * Thay cho việc gọi GET /api/users/{userId} lần lượt từng người.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserResponse>> getUsers(@RequestBody List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (userIds.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userLookupService.getUsers(userIds));
+    }
+
+    /**
+     * POST /internal/users/avatar-references
+     * Nhận danh sách URL file, trả về những URL đang được dùng làm avatar.
+     * media-service gọi trước khi dọn file để không xoá nhầm ảnh đại diện.
+     */
+    @PostMapping("/avatar-references")
+    public ResponseEntity<List<String>> findAvatarReferences(@RequestBody List<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(userRepository.findAvatarUrlsIn(urls));
+    }
+}
@@ -3,8 +3,11 @@ package com.chatapp.auth_service.controller;
 import com.chatapp.auth_service.dto.UpdateProfileRequest;
 import com.chatapp.auth_service.dto.UserProfileResponse;
 import com.chatapp.auth_service.dto.UserResponse;
+import com.chatapp.auth_service.dto.UserSearchResult;
 import com.chatapp.auth_service.entity.User;
 import com.chatapp.auth_service.service.AuthService;
+import com.chatapp.auth_service.service.UserLookupService;
+import com.chatapp.auth_service.service.UserSearchService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,9 +19,15 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final AuthService authService;
+    private final UserLookupService userLookupService;
+    private final UserSearchService userSearchService;
 
-    public UserController(AuthService authService) {
+    public UserController(AuthService authService,
+                          UserLookupService userLookupService,
+                          UserSearchService userSearchService) {
         this.authService = authService;
+        this.userLookupService = userLookupService;
+        this.userSearchService = userSearchService;
     }
 
     // --- Helper function để lấy ID từ Security Context an toàn ---
@@ -97,21 +106,14 @@ public class UserController {
     public ResponseEntity<UserResponse> getUserById(@PathVariable String userId) {
         try {
             System.out.println("🔍 [UserController] GET /api/users/" + userId + " - Service-to-service call");
-            User user = authService.findUserById(userId);
-            if (user == null) {
+            // Đọc qua cache (UserLookupService) thay vì findById mỗi lần
+            UserResponse response = userLookupService.getUser(userId).orElse(null);
+            if (response == null) {
                 System.out.println("❌ [UserController] User not found: " + userId);
                 return ResponseEntity.notFound().build();
             }
-            
-            // Create UserResponse using constructor (safer than builder with @AllArgsConstructor)
-            UserResponse response = new UserResponse(
-                    user.getId(),
-                    user.getUsername(),
-                    user.getFullName(),
-                    user.getAvatarUrl()
-            );
-            
-            System.out.println("✅ [UserController] Returning user: " + user.getUsername());
+
+            System.out.println("✅ [UserController] Returning user: " + response.getUsername());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             System.err.println("❌ [UserController] Error in getUserById for userId: " + userId);
@@ -133,32 +135,21 @@ public class UserController {
     }
 
     /**
-     * GET /api/users/search?keyword=...
-     * Search users by username or email (for add member feature)
-     * Returns list of UserResponse objects (id, username, fullName, avatarUrl)
+     * GET /api/users/search?keyword=...&limit=20&cursor=...
+     * Search users by username, full name or email (for add member / find friends)
+     * Returns list of UserResponse objects (id, username, fullName, avatarUrl), best matches first.
+     * Trang tiếp theo: gửi lại giá trị header X-Next-Cursor qua ?cursor= (không có header = hết kết quả)
      */
     @GetMapping("/search")
-    public ResponseEntity<java.util.List<UserResponse>> searchUsers(@RequestParam("keyword") String keyword) {
-        try {
-            if (keyword == null || keyword.trim().isEmpty()) {
-                return ResponseEntity.ok(new java.util.ArrayList<>());
-            }
-
-            java.util.List<User> users = authService.searchUsers(keyword);
-            java.util.List<UserResponse> responses = users.stream()
-                    .map(user -> new UserResponse(
-                            user.getId(),
-                            user.getUsername(),
-                            user.getFullName(),
-                            user.getAvatarUrl()
-                    ))
-                    .collect(java.util.stream.Collectors.toList());
-
-            return ResponseEntity.ok(responses);
-        } catch (Exception e) {
-            System.err.println("❌ [UserController] Error searching users: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(500).build();
+    public ResponseEntity<java.util.List<UserResponse>> searchUsers(
+            @RequestParam("keyword") String keyword,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        UserSearchResult result = userSearchService.search(keyword, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.getNextCursor() != null) {
+            response.header("X-Next-Cursor", result.getNextCursor());
         }
+        return response.body(result.getItems());
     }
 }
\ No newline at end of file
@@ -11,7 +11,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class LoginResponse {
-    private String token;
+    private String token;        // access token (JWT, sống ngắn - jwt.expiration-ms)
+    private long expiresIn;      // số giây access token còn hiệu lực
+    private String refreshToken; // đổi lấy access token mới qua POST /api/auth/refresh
     private String userId;
     private String fullName;
     private String username;
@@ -0,0 +1,18 @@
+package com.chatapp.auth_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchResult {
+
+    private List<UserResponse> items;
+    private String nextCursor; // null = hết kết quả
+}
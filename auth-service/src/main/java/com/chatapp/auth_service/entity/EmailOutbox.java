@@ -0,0 +1,57 @@
+package com.chatapp.auth_service.entity;
+
+import com.chatapp.auth_service.enums.EmailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email chờ gửi, ghi CÙNG transaction với thao tác sinh ra nó (đăng ký, gửi lại link xác thực...).
+ * EmailOutboxWorker lấy theo lô và gửi qua SMTP; restart giữa chừng không làm mất email.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        // Worker: WHERE status = 'PENDING' AND next_attempt_at <= now() ORDER BY next_attempt_at
+        @Index(name = "idx_email_outbox_status_next", columnList = "status, nextAttemptAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmailOutboxStatus status;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Worker đang giữ bản ghi tới thời điểm này (nhiều instance không gửi trùng)
+    private LocalDateTime lockedUntil;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,50 @@
+package com.chatapp.auth_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token (chỉ lưu SHA-256, không lưu token gốc). Mỗi lần /refresh token cũ bị đánh dấu usedAt
+ * và token mới cùng familyId được cấp. Token đã dùng mà bị gửi lại = bị lộ -> thu hồi cả family.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "userId"),
+        @Index(name = "idx_refresh_tokens_expires", columnList = "expiresAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private String userId;
+
+    // Chuỗi token sinh ra từ cùng 1 lần đăng nhập
+    @Column(nullable = false)
+    private String familyId;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+
+    // Đã đổi lấy token mới (null = còn dùng được)
+    private LocalDateTime usedAt;
+
+    // Bị thu hồi (logout / phát hiện dùng lại)
+    private LocalDateTime revokedAt;
+}
@@ -10,7 +10,10 @@ import java.util.Collection;
 import java.util.Collections;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Tra ngược avatar theo URL (media-service kiểm tra file còn được dùng không)
+        @Index(name = "idx_users_avatar_url", columnList = "avatarUrl")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
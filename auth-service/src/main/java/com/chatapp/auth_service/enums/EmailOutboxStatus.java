@@ -0,0 +1,7 @@
+package com.chatapp.auth_service.enums;
+
+public enum EmailOutboxStatus {
+    PENDING, // Chờ gửi (hoặc chờ thử lại tới nextAttemptAt)
+    SENT,    // SMTP đã nhận
+    FAILED   // Hết số lần thử, bỏ cuộc
+}
@@ -0,0 +1,11 @@
+package com.chatapp.auth_service.exception;
+
+/**
+ * Refresh token không hợp lệ / hết hạn / đã bị thu hồi -> 401, client phải đăng nhập lại.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
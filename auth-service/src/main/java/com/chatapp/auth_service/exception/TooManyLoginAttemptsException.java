@@ -0,0 +1,17 @@
+package com.chatapp.auth_service.exception;
+
+import lombok.Getter;
+
+/**
+ * Vượt giới hạn đăng nhập (theo tài khoản hoặc theo IP) -> 429 + Retry-After.
+ */
+@Getter
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyLoginAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.chatapp.auth_service.repository;
+
+/**
+ * Projection cho đăng nhập: chỉ các cột cần để kiểm tra mật khẩu và tạo JWT
+ * (không load cả entity User với bio, avatar, verificationToken...).
+ */
+public interface LoginCredentials {
+    String getId();
+    String getUsername();
+    String getFullName();
+    String getEmail();
+    String getPassword();
+    Boolean getIsActive();
+}
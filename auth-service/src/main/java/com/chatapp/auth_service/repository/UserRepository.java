@@ -1,25 +1,63 @@
 package com.chatapp.auth_service.repository;
 
 import com.chatapp.auth_service.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByUsername(String username);
+    // Đăng nhập: chỉ SELECT các cột trong LoginCredentials
+    Optional<LoginCredentials> findCredentialsByUsername(String username);
     boolean existsByUsername(String username);
+
+    // /api/auth/check/{username}: chỉ lấy id, không load cả entity
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<String> findIdByUsername(@Param("username") String username);
+
+    // Nạp bloom filter username theo từng trang (keyset trên username, có sẵn unique index)
+    @Query("SELECT u.username FROM User u WHERE u.username > :after ORDER BY u.username")
+    List<String> findUsernamesAfter(@Param("after") String after, Pageable pageable);
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
     Optional<User> findByVerificationToken(String token);
     
-    // Search users by username or email (case-insensitive LIKE query)
-    @Query("SELECT u FROM User u WHERE " +
-           "(LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-           "LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
-           "u.isActive = true " +
-           "ORDER BY u.username")
-    List<User> searchUsers(@Param("query") String query);
+    /**
+     * Tìm user đang active theo username / fullName / email (chứa chuỗi, không phân biệt hoa thường).
+     * Xếp hạng: trùng username > username bắt đầu bằng q > fullName bắt đầu bằng q > email bắt đầu bằng q > chứa q.
+     * Keyset: chỉ lấy các dòng SAU (matchRank, sortKey, id) của trang trước -> không OFFSET.
+     * LIKE '%q%' dùng được GIN pg_trgm index (xem UserSearchIndexInitializer).
+     */
+    @Query(value = "SELECT r.* FROM (" +
+            "  SELECT u.id AS \"id\", u.username AS \"username\", u.full_name AS \"fullName\", " +
+            "         u.avatar_url AS \"avatarUrl\", lower(u.username) AS \"sortKey\", " +
+            "         CASE WHEN lower(u.username) = :q THEN 0 " +
+            "              WHEN lower(u.username) LIKE :prefix THEN 1 " +
+            "              WHEN lower(u.full_name) LIKE :prefix THEN 2 " +
+            "              WHEN lower(u.email) LIKE :prefix THEN 3 " +
+            "              ELSE 4 END AS \"matchRank\" " +
+            "  FROM users u " +
+            "  WHERE u.is_active = true " +
+            "    AND (lower(u.username) LIKE :pattern OR lower(u.full_name) LIKE :pattern OR lower(u.email) LIKE :pattern)" +
+            ") r " +
+            "WHERE (r.\"matchRank\", r.\"sortKey\", r.\"id\") > (:afterRank, :afterKey, :afterId) " +
+            "ORDER BY r.\"matchRank\", r.\"sortKey\", r.\"id\" " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<UserSearchRow> searchActiveUsers(@Param("q") String q,
+                                          @Param("prefix") String prefix,
+                                          @Param("pattern") String pattern,
+                                          @Param("afterRank") int afterRank,
+                                          @Param("afterKey") String afterKey,
+                                          @Param("afterId") String afterId,
+                                          @Param("limit") int limit);
+
+    // media-service lifecycle: URL nào trong lô đang là avatar của user (không được xoá)
+    @Query("SELECT DISTINCT u.avatarUrl FROM User u WHERE u.avatarUrl IN :urls")
+    List<String> findAvatarUrlsIn(@Param("urls") Collection<String> urls);
 }
@@ -0,0 +1,14 @@
+package com.chatapp.auth_service.repository;
+
+/**
+ * 1 dòng kết quả tìm kiếm user (native query {@link UserRepository#searchActiveUsers}).
+ * sortKey = lower(username), cùng matchRank + id tạo thành con trỏ keyset.
+ */
+public interface UserSearchRow {
+    String getId();
+    String getUsername();
+    String getFullName();
+    String getAvatarUrl();
+    Integer getMatchRank();
+    String getSortKey();
+}
@@ -40,14 +40,22 @@ public class JwtService {
         log.info("🔐 [AUTH SERVICE] Secret First 3 chars: {}", secretRaw.substring(0, Math.min(secretRaw.length(), 3)));
     }
 
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+
     public String generateToken(User user) {
+        return generateToken(user.getId(), user.getUsername(), user.getFullName());
+    }
+
+    public String generateToken(String userId, String username, String fullName) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + expirationMs);
 
         return Jwts.builder()
-                .setSubject(user.getId())
-                .claim("username", user.getUsername())
-                .claim("fullName", user.getFullName())
+                .setSubject(userId)
+                .claim("username", username)
+                .claim("fullName", fullName)
                 .setIssuedAt(now)
                 .setExpiration(exp)
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -0,0 +1,127 @@
+package com.chatapp.auth_service.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Địa chỉ được phép đặt X-Forwarded-For (Gateway). Port 8081 được publish nên ai gọi thẳng auth-service
+ * cũng tự đặt được header này -> chỉ tin header khi request đến từ proxy đã cấu hình.
+ * Mỗi mục là IP, CIDR (10.0.0.0/8) hoặc hostname (vd. "api-gateway" trong docker-compose,
+ * IP container đổi sau mỗi lần khởi động nên hostname được phân giải lại mỗi 30 giây).
+ */
+@Component
+public class TrustedProxyMatcher {
+
+    private static final long RESOLVE_INTERVAL_MS = 30_000;
+
+    private final List<Cidr> cidrs = new ArrayList<>();
+    private final List<String> hostnames = new ArrayList<>();
+
+    private volatile Set<InetAddress> resolvedHosts = Set.of();
+    private volatile long resolvedAt;
+
+    public TrustedProxyMatcher(@Value("${auth.login-throttle.trusted-proxies:}") String[] entries) {
+        for (String entry : entries) {
+            String value = entry.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (value.contains("/") || isIpLiteral(value)) {
+                cidrs.add(Cidr.parse(value));
+            } else {
+                hostnames.add(value);
+            }
+        }
+    }
+
+    public boolean isTrusted(String remoteAddr) {
+        if (remoteAddr == null || (cidrs.isEmpty() && hostnames.isEmpty()) || !isIpLiteral(remoteAddr)) {
+            return false;
+        }
+        InetAddress address;
+        try {
+            address = InetAddress.getByName(remoteAddr); // IP literal: không tra DNS
+        } catch (UnknownHostException e) {
+            return false;
+        }
+        for (Cidr cidr : cidrs) {
+            if (cidr.contains(address)) {
+                return true;
+            }
+        }
+        return !hostnames.isEmpty() && resolveHosts().contains(address);
+    }
+
+    private Set<InetAddress> resolveHosts() {
+        long now = System.currentTimeMillis();
+        if (now - resolvedAt < RESOLVE_INTERVAL_MS) {
+            return resolvedHosts;
+        }
+        Set<InetAddress> addresses = new HashSet<>();
+        for (String hostname : hostnames) {
+            try {
+                addresses.addAll(Arrays.asList(InetAddress.getAllByName(hostname)));
+            } catch (UnknownHostException e) {
+                // Chạy ngoài Docker (không có host "api-gateway") -> không tin proxy nào
+            }
+        }
+        resolvedHosts = addresses;
+        resolvedAt = now;
+        return addresses;
+    }
+
+    private static boolean isIpLiteral(String value) {
+        return value.contains(":") || value.matches("[0-9.]+");
+    }
+
+    private static final class Cidr {
+        private final byte[] network;
+        private final int prefixLength;
+
+        private Cidr(byte[] network, int prefixLength) {
+            this.network = network;
+            this.prefixLength = prefixLength;
+        }
+
+        static Cidr parse(String value) {
+            String[] parts = value.split("/", 2);
+            try {
+                byte[] network = InetAddress.getByName(parts[0]).getAddress();
+                int prefixLength = parts.length == 2 ? Integer.parseInt(parts[1]) : network.length * 8;
+                if (prefixLength < 0 || prefixLength > network.length * 8) {
+                    throw new IllegalArgumentException("Invalid prefix length in trusted proxy " + value);
+                }
+                return new Cidr(network, prefixLength);
+            } catch (UnknownHostException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid trusted proxy " + value, e);
+            }
+        }
+
+        boolean contains(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            if (bytes.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (bytes[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -5,88 +5,140 @@ import com.chatapp.auth_service.dto.LoginResponse;
 import com.chatapp.auth_service.dto.RegisterRequest;
 import com.chatapp.auth_service.dto.UserProfileResponse;
 import com.chatapp.auth_service.entity.User;
+import com.chatapp.auth_service.repository.LoginCredentials;
 import com.chatapp.auth_service.repository.UserRepository;
 import com.chatapp.auth_service.security.JwtService;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginThrottleService loginThrottleService;
     private final JwtService jwtService;
     private final EmailService emailService;
+    private final UserLookupService userLookupService;
+    private final RefreshTokenService refreshTokenService;
+    private final UsernameFilterService usernameFilterService;
+    private final ThreadPoolTaskExecutor loginCompletionExecutor;
 
     public AuthService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder,
+                       PasswordHashingService passwordHashingService,
+                       LoginThrottleService loginThrottleService,
                        JwtService jwtService,
-                       EmailService emailService) {
+                       EmailService emailService,
+                       UserLookupService userLookupService,
+                       RefreshTokenService refreshTokenService,
+                       UsernameFilterService usernameFilterService,
+                       @Qualifier("loginCompletionExecutor") ThreadPoolTaskExecutor loginCompletionExecutor) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.loginThrottleService = loginThrottleService;
         this.jwtService = jwtService;
         this.emailService = emailService;
+        this.userLookupService = userLookupService;
+        this.refreshTokenService = refreshTokenService;
+        this.usernameFilterService = usernameFilterService;
+        this.loginCompletionExecutor = loginCompletionExecutor;
     }
 
     @Transactional
     public String register(RegisterRequest req) {
-        // Kiểm tra tồn tại trước khi đăng ký
-        if (userRepository.existsByUsername(req.getUsername())) {
+        // Trùng username/email do unique constraint quyết định (1 câu INSERT, không race).
+        // Bloom filter chỉ để từ chối sớm username đã có TRƯỚC khi tốn BCrypt; "chắc chắn chưa có" -> không hỏi DB
+        if (usernameFilterService.mightExist(req.getUsername()) && userRepository.existsByUsername(req.getUsername())) {
             throw new IllegalArgumentException("Username already exists");
         }
 
-        if (userRepository.existsByEmail(req.getEmail())) {
-            throw new IllegalArgumentException("Email already exists");
-        }
-
         // Generate verification token
         String verificationToken = UUID.randomUUID().toString();
 
         User user = User.builder()
                 .username(req.getUsername())
-                .password(passwordEncoder.encode(req.getPassword()))
+                .password(passwordHashingService.encode(req.getPassword()))
                 .fullName(req.getDisplayName() == null ? req.getUsername() : req.getDisplayName())
                 .email(req.getEmail())
                 .isActive(false) // User is not active until email is verified
                 .verificationToken(verificationToken)
                 .build();
-        userRepository.save(user);
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw toDuplicateError(e);
+        }
+        usernameFilterService.add(user.getUsername());
+        userLookupService.evictMissingUsername(user.getUsername());
 
-        // Send verification email asynchronously
-        emailService.sendVerificationEmail(user.getEmail(), verificationToken, user.getUsername());
+        // Ghi vào outbox trong cùng transaction, EmailOutboxWorker gửi sau
+        emailService.queueVerificationEmail(user.getEmail(), verificationToken, user.getUsername());
 
         return user.getId();
     }
 
-    public LoginResponse login(LoginRequest req) {
-        User user = userRepository.findByUsername(req.getUsername())
-                .orElseThrow(() -> new IllegalArgumentException("Invalid username or password"));
+    /**
+     * Đăng nhập: kiểm tra giới hạn trước, BCrypt chạy trên pool riêng (PasswordHashingService),
+     * Tomcat thread được trả về ngay trong lúc chờ. Phần còn lại (ghi refresh token) chạy trên
+     * loginCompletionExecutor để thread bcrypt không phải chờ DB.
+     */
+    public CompletableFuture<LoginResponse> login(LoginRequest req, String clientIp) {
+        loginThrottleService.checkAllowed(req.getUsername(), clientIp);
 
-        if (!passwordEncoder.matches(req.getPassword(), user.getPassword())) {
+        LoginCredentials user = userRepository.findCredentialsByUsername(req.getUsername()).orElse(null);
+        if (user == null) {
+            loginThrottleService.recordFailure(req.getUsername());
             throw new IllegalArgumentException("Invalid username or password");
         }
 
-        // Check if email is verified
-        if (!user.getIsActive()) {
-            throw new IllegalArgumentException("Please verify your email before logging in");
-        }
+        return passwordHashingService.matchesAsync(req.getPassword(), user.getPassword())
+                .thenApplyAsync(matches -> {
+                    if (!matches) {
+                        loginThrottleService.recordFailure(req.getUsername());
+                        throw new IllegalArgumentException("Invalid username or password");
+                    }
+                    loginThrottleService.recordSuccess(req.getUsername());
+
+                    // Check if email is verified
+                    if (!Boolean.TRUE.equals(user.getIsActive())) {
+                        throw new IllegalArgumentException("Please verify your email before logging in");
+                    }
+
+                    String token = jwtService.generateToken(user.getId(), user.getUsername(), user.getFullName());
+                    return LoginResponse.builder()
+                            .token(token)
+                            .expiresIn(jwtService.getExpirationMs() / 1000)
+                            .refreshToken(refreshTokenService.issue(user.getId()))
+                            .userId(user.getId())
+                            .fullName(user.getFullName())
+                            .username(user.getUsername())
+                            .email(user.getEmail())
+                            .build();
+                }, loginCompletionExecutor);
+    }
 
-        String token = jwtService.generateToken(user);
-        return LoginResponse.builder()
-                .token(token)
-                .userId(user.getId())
-                .fullName(user.getFullName())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .build();
+    // Vi phạm unique constraint -> cùng thông báo lỗi như trước (Postgres: "Key (username)=(...) already exists")
+    private RuntimeException toDuplicateError(DataIntegrityViolationException e) {
+        String detail = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        if (detail.contains("(username)")) {
+            return new IllegalArgumentException("Username already exists");
+        }
+        if (detail.contains("(email)")) {
+            return new IllegalArgumentException("Email already exists");
+        }
+        return e;
     }
 
     // Hàm kiểm tra tồn tại (Trả về true/false)
     public boolean existsByUsername(String username) {
-        return userRepository.findByUsername(username).isPresent();
+        return userLookupService.findIdByUsername(username).isPresent();
     }
 
     // Hàm tìm user theo username (trả về User)
@@ -99,14 +151,6 @@ public class AuthService {
         return userRepository.findById(userId).orElse(null);
     }
 
-    // Search users by username or email (for add member feature)
-    public java.util.List<User> searchUsers(String query) {
-        if (query == null || query.trim().isEmpty()) {
-            return new java.util.ArrayList<>();
-        }
-        return userRepository.searchUsers(query.trim());
-    }
-
     // Email verification
     @Transactional
     public boolean verifyEmail(String token) {
@@ -131,11 +175,12 @@ public class AuthService {
 
         // CRITICAL: Save the user to persist changes to database
         User savedUser = userRepository.save(user);
+        userLookupService.evict(savedUser.getId());
 
         System.out.println("✅ User verified and saved successfully: " + savedUser.getUsername() + " (New active status: " + savedUser.getIsActive() + ")");
 
-        // Send welcome email asynchronously
-        emailService.sendWelcomeEmail(savedUser.getEmail(), savedUser.getUsername());
+        // Welcome email qua outbox
+        emailService.queueWelcomeEmail(savedUser.getEmail(), savedUser.getUsername());
 
         return true;
     }
@@ -155,8 +200,8 @@ public class AuthService {
         user.setVerificationToken(newToken);
         userRepository.save(user);
 
-        // Resend email
-        emailService.sendVerificationEmail(user.getEmail(), newToken, user.getUsername());
+        // Resend email (qua outbox)
+        emailService.queueVerificationEmail(user.getEmail(), newToken, user.getUsername());
     }
 
     // Profile Management
@@ -178,7 +223,9 @@ public class AuthService {
             user.setAvatarUrl(avatarUrl);
         }
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userLookupService.evict(userId);
+        return savedUser;
     }
 
     public User getProfile(String userId) {
@@ -0,0 +1,172 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.entity.EmailOutbox;
+import com.chatapp.auth_service.enums.EmailOutboxStatus;
+import com.chatapp.auth_service.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gửi email trong outbox:
+ * <ul>
+ *   <li>Giữ 1 lô (FOR UPDATE SKIP LOCKED + lockedUntil) -> nhiều instance không gửi trùng</li>
+ *   <li>Cả lô gửi bằng 1 lần {@code send(SimpleMailMessage...)} = 1 kết nối SMTP dùng lại cho mọi email</li>
+ *   <li>Lỗi -> thử lại với backoff luỹ thừa (initial-backoff x 2^n, tối đa max-backoff);
+ *       quá max-attempts -> FAILED</li>
+ * </ul>
+ */
+@Component
+public class EmailOutboxWorker {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${app.mail.outbox.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    // Thời gian 1 instance được giữ lô; chết giữa chừng thì instance khác lấy lại sau lease
+    @Value("${app.mail.outbox.lease:5m}")
+    private Duration lease;
+
+    @Value("${app.mail.outbox.retention:7d}")
+    private Duration retention;
+
+    public EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository,
+                             JavaMailSender mailSender,
+                             TransactionTemplate transactionTemplate) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:5s}")
+    public void drain() {
+        while (true) {
+            List<EmailOutbox> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            deliver(batch);
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.mail.outbox.cleanup-cron:0 15 4 * * *}")
+    public void deleteSent() {
+        int deleted = emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            System.out.println("🧹 Deleted " + deleted + " sent emails from outbox");
+        }
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> rows = emailOutboxRepository.findDueForUpdate(now, batchSize);
+            rows.forEach(row -> row.setLockedUntil(now.plus(lease)));
+            return emailOutboxRepository.saveAll(rows);
+        });
+    }
+
+    /**
+     * Gửi 1 lô qua 1 kết nối SMTP rồi cập nhật trạng thái từng email.
+     */
+    void deliver(List<EmailOutbox> batch) {
+        Map<SimpleMailMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+            byMessage.put(message, email);
+        }
+
+        Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Lỗi kết nối: mọi email đều nằm trong failedMessages; lỗi từng email: chỉ email đó
+            e.getFailedMessages().forEach((message, error) -> {
+                EmailOutbox email = byMessage.get(message);
+                if (email != null) {
+                    failures.put(email, error);
+                }
+            });
+            if (failures.isEmpty()) {
+                batch.forEach(email -> failures.put(email, e));
+            }
+        } catch (MailException e) {
+            // Sai tài khoản SMTP, ... -> cả lô
+            batch.forEach(email -> failures.put(email, e));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int sent = 0;
+        for (EmailOutbox email : batch) {
+            email.setLockedUntil(null);
+            Exception error = failures.get(email);
+            if (error == null) {
+                email.setStatus(EmailOutboxStatus.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sent++;
+                continue;
+            }
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setLastError(truncate(error.getMessage()));
+            if (attempts >= maxAttempts) {
+                email.setStatus(EmailOutboxStatus.FAILED);
+                System.err.println("❌ Giving up on email to " + email.getRecipient() + " after " + attempts + " attempts");
+            } else {
+                email.setNextAttemptAt(now.plus(backoff(attempts)));
+            }
+        }
+        emailOutboxRepository.saveAll(batch);
+
+        System.out.println("📧 Email outbox: sent " + sent + "/" + batch.size());
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -1,92 +1,81 @@
 package com.chatapp.auth_service.service;
 
+import com.chatapp.auth_service.entity.EmailOutbox;
+import com.chatapp.auth_service.enums.EmailOutboxStatus;
+import com.chatapp.auth_service.repository.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
+/**
+ * Soạn email và ghi vào outbox (bảng email_outbox) trong transaction của caller:
+ * đăng ký rollback thì email cũng không được gửi, commit rồi thì restart cũng không mất.
+ * Việc gửi SMTP do EmailOutboxWorker làm theo lô.
+ */
 @Service
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final EmailOutboxRepository emailOutboxRepository;
 
     @Value("${app.verification-url}")
     private String verificationBaseUrl;
 
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailOutboxRepository emailOutboxRepository) {
+        this.emailOutboxRepository = emailOutboxRepository;
     }
 
-    @Async
-    public void sendVerificationEmail(String toEmail, String token, String username) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Chatify - Email Verification");
-            
-            String verificationLink = verificationBaseUrl + "?token=" + token;
-            
-            System.out.println("📧 Generating verification email for: " + username);
-            System.out.println("   Verification link: " + verificationLink);
-            
-            String emailBody = String.format(
-                "Hello %s,\n\n" +
-                "Welcome to Chatify! Please verify your email address by clicking the link below:\n\n" +
-                "%s\n\n" +
-                "This link will expire in 24 hours.\n\n" +
-                "If you didn't create an account with Chatify, please ignore this email.\n\n" +
-                "Best regards,\n" +
-                "Chatify Team",
-                username,
-                verificationLink
-            );
-            
-            message.setText(emailBody);
-            mailSender.send(message);
-            
-            System.out.println("✅ Verification email sent successfully to: " + toEmail);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send verification email to: " + toEmail);
-            System.err.println("   Error: " + e.getMessage());
-            e.printStackTrace();
-        }
+    @Transactional
+    public void queueVerificationEmail(String toEmail, String token, String username) {
+        String verificationLink = verificationBaseUrl + "?token=" + token;
+
+        System.out.println("📧 Queueing verification email for: " + username);
+        System.out.println("   Verification link: " + verificationLink);
+
+        String emailBody = String.format(
+            "Hello %s,\n\n" +
+            "Welcome to Chatify! Please verify your email address by clicking the link below:\n\n" +
+            "%s\n\n" +
+            "This link will expire in 24 hours.\n\n" +
+            "If you didn't create an account with Chatify, please ignore this email.\n\n" +
+            "Best regards,\n" +
+            "Chatify Team",
+            username,
+            verificationLink
+        );
+
+        queue(toEmail, "Chatify - Email Verification", emailBody);
     }
 
-    @Async
-    public void sendWelcomeEmail(String toEmail, String username) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Welcome to Chatify!");
-            
-            String emailBody = String.format(
-                "Hello %s,\n\n" +
-                "Your email has been successfully verified!\n\n" +
-                "You can now enjoy all the features of Chatify:\n" +
-                "- Send messages to friends\n" +
-                "- Create group chats\n" +
-                "- Share media files\n" +
-                "- Make voice/video calls\n\n" +
-                "Start chatting now!\n\n" +
-                "Best regards,\n" +
-                "Chatify Team",
-                username
-            );
-            
-            message.setText(emailBody);
-            mailSender.send(message);
-            
-            System.out.println("✅ Welcome email sent to: " + toEmail);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send welcome email to: " + toEmail);
-            e.printStackTrace();
-        }
+    @Transactional
+    public void queueWelcomeEmail(String toEmail, String username) {
+        String emailBody = String.format(
+            "Hello %s,\n\n" +
+            "Your email has been successfully verified!\n\n" +
+            "You can now enjoy all the features of Chatify:\n" +
+            "- Send messages to friends\n" +
+            "- Create group chats\n" +
+            "- Share media files\n" +
+            "- Make voice/video calls\n\n" +
+            "Start chatting now!\n\n" +
+            "Best regards,\n" +
+            "Chatify Team",
+            username
+        );
+
+        queue(toEmail, "Welcome to Chatify!", emailBody);
     }
-}
 
+    private void queue(String toEmail, String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .recipient(toEmail)
+                .subject(subject)
+                .body(body)
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+}
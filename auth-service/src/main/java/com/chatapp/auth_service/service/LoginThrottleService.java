@@ -0,0 +1,94 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.exception.TooManyLoginAttemptsException;
+import com.chatapp.auth_service.security.TrustedProxyMatcher;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chặn dò mật khẩu TRƯỚC khi tốn CPU cho BCrypt:
+ * - Theo tài khoản: quá max-failures-per-account lần sai trong account-window -> khoá tới hết cửa sổ
+ * - Theo IP: quá max-attempts-per-ip lần thử (cả đúng lẫn sai) trong ip-window
+ * Đếm trong bộ nhớ (Caffeine, cửa sổ cố định tính từ lần thử đầu tiên); mỗi instance đếm riêng.
+ */
+@Service
+public class LoginThrottleService {
+
+    private final int maxFailuresPerAccount;
+    private final int maxAttemptsPerIp;
+    private final Duration accountWindow;
+    private final Duration ipWindow;
+    private final int trustedProxyHops;
+    private final TrustedProxyMatcher trustedProxies;
+
+    private final Cache<String, AtomicInteger> accountFailures;
+    private final Cache<String, AtomicInteger> ipAttempts;
+
+    public LoginThrottleService(@Value("${auth.login-throttle.max-failures-per-account:5}") int maxFailuresPerAccount,
+                                @Value("${auth.login-throttle.account-window:15m}") Duration accountWindow,
+                                @Value("${auth.login-throttle.max-attempts-per-ip:20}") int maxAttemptsPerIp,
+                                @Value("${auth.login-throttle.ip-window:1m}") Duration ipWindow,
+                                @Value("${auth.login-throttle.trusted-proxy-hops:1}") int trustedProxyHops,
+                                TrustedProxyMatcher trustedProxies) {
+        this.maxFailuresPerAccount = maxFailuresPerAccount;
+        this.maxAttemptsPerIp = maxAttemptsPerIp;
+        this.accountWindow = accountWindow;
+        this.ipWindow = ipWindow;
+        this.trustedProxyHops = trustedProxyHops;
+        this.trustedProxies = trustedProxies;
+        // Giá trị sửa tại chỗ (AtomicInteger) không tính là "write" -> hết hạn theo lần thử đầu tiên
+        this.accountFailures = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(accountWindow).build();
+        this.ipAttempts = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(ipWindow).build();
+    }
+
+    /** Gọi trước khi kiểm tra mật khẩu; tính luôn lần thử này vào quota của IP. */
+    public void checkAllowed(String username, String clientIp) {
+        AtomicInteger failures = accountFailures.getIfPresent(accountKey(username));
+        if (failures != null && failures.get() >= maxFailuresPerAccount) {
+            throw new TooManyLoginAttemptsException("Too many failed login attempts, please try again later",
+                    accountWindow.toSeconds());
+        }
+        if (clientIp != null) {
+            int attempts = ipAttempts.get(clientIp, key -> new AtomicInteger()).incrementAndGet();
+            if (attempts > maxAttemptsPerIp) {
+                throw new TooManyLoginAttemptsException("Too many login attempts, please try again later",
+                        ipWindow.toSeconds());
+            }
+        }
+    }
+
+    public void recordFailure(String username) {
+        accountFailures.get(accountKey(username), key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void recordSuccess(String username) {
+        accountFailures.invalidate(accountKey(username));
+    }
+
+    /**
+     * IP thật của client. Sau Gateway: X-Forwarded-For = "client, proxy1, ..." và mỗi proxy tin cậy
+     * nối thêm 1 địa chỉ -> lấy phần tử thứ trusted-proxy-hops tính từ CUỐI (phần đầu do client tự đặt được).
+     * Chỉ đọc header khi request đến từ proxy tin cậy (trusted-proxies); gọi thẳng vào port 8081 -> dùng remoteAddr.
+     */
+    public String resolveClientIp(HttpServletRequest request) {
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isBlank() && trustedProxyHops > 0
+                && trustedProxies.isTrusted(request.getRemoteAddr())) {
+            String[] hops = forwarded.split(",");
+            int index = Math.max(0, hops.length - trustedProxyHops);
+            return hops[index].trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static String accountKey(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+}
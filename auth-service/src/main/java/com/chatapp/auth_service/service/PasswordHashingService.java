@@ -0,0 +1,71 @@
+package com.chatapp.auth_service.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Băm / kiểm tra mật khẩu trên pool passwordHashingExecutor (xem PasswordHashingConfig).
+ * Pool đầy -> TaskRejectedException (GlobalExceptionHandler trả 503 + Retry-After).
+ * Việc đã chờ trong hàng đợi quá max-queue-wait bị bỏ luôn: client gần như chắc chắn đã timeout,
+ * băm tiếp chỉ đốt CPU của những request còn đang chờ.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${auth.password.max-queue-wait:5s}")
+    private Duration maxQueueWait;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor executor) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+    }
+
+    /** Kiểm tra mật khẩu không chặn thread gọi (dùng cho login trả CompletableFuture). */
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /** Băm mật khẩu (đăng ký): chạy trên pool, thread gọi chờ kết quả. */
+    public String encode(String rawPassword) {
+        CompletableFuture<String> future = submit(() -> passwordEncoder.encode(rawPassword));
+        try {
+            return future.get(maxQueueWait.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskRejectedException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TaskRejectedException("Password hashing timed out");
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        return executor.submitCompletable(() -> {
+            if (System.nanoTime() - enqueuedAt > maxQueueWait.toNanos()) {
+                throw new TaskRejectedException("Password hashing queue wait exceeded " + maxQueueWait);
+            }
+            return task.get();
+        });
+    }
+}
@@ -0,0 +1,141 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.dto.LoginResponse;
+import com.chatapp.auth_service.dto.UserResponse;
+import com.chatapp.auth_service.entity.RefreshToken;
+import com.chatapp.auth_service.exception.InvalidRefreshTokenException;
+import com.chatapp.auth_service.repository.RefreshTokenRepository;
+import com.chatapp.auth_service.security.JwtService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh token xoay vòng: access token sống ngắn, hết hạn thì client đổi refresh token lấy cặp mới
+ * (1 lần tra index theo hash, không BCrypt) thay vì đăng nhập lại bằng mật khẩu.
+ * <ul>
+ *   <li>Token gốc = 256 bit ngẫu nhiên, DB chỉ lưu SHA-256</li>
+ *   <li>Mỗi token chỉ dùng được 1 lần; token đã dùng bị gửi lại sau reuse-grace-period
+ *       -> coi như bị đánh cắp, thu hồi cả chuỗi (family) của lần đăng nhập đó</li>
+ *   <li>Trong reuse-grace-period (nhiều tab cùng refresh) chỉ trả 401, không thu hồi</li>
+ * </ul>
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserLookupService userLookupService;
+    private final JwtService jwtService;
+
+    @Value("${jwt.refresh-token-ttl:30d}")
+    private Duration refreshTokenTtl;
+
+    @Value("${jwt.refresh-reuse-grace-period:10s}")
+    private Duration reuseGracePeriod;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserLookupService userLookupService,
+                               JwtService jwtService) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userLookupService = userLookupService;
+        this.jwtService = jwtService;
+    }
+
+    /** Cấp refresh token đầu tiên của 1 lần đăng nhập (family mới). */
+    public String issue(String userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /** Đổi refresh token lấy access token + refresh token mới. */
+    public LoginResponse refresh(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.getRevokedAt() != null) {
+            throw new InvalidRefreshTokenException("Refresh token revoked");
+        }
+        if (current.getUsedAt() != null || refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            // usedAt == null nhưng markUsed thất bại = request khác vừa dùng -> cùng xử lý như dùng lại sớm
+            LocalDateTime usedAt = current.getUsedAt() != null ? current.getUsedAt() : now;
+            if (usedAt.plus(reuseGracePeriod).isBefore(now)) {
+                refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+                System.err.println("🚨 Refresh token reuse detected, revoked family " + current.getFamilyId()
+                        + " of user " + current.getUserId());
+            }
+            throw new InvalidRefreshTokenException("Refresh token already used");
+        }
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException("Refresh token expired");
+        }
+
+        // Thông tin cho JWT lấy qua cache (UserLookupService), không đụng bảng users
+        UserResponse user = userLookupService.getUser(current.getUserId()).orElse(null);
+        if (user == null) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new InvalidRefreshTokenException("User no longer exists");
+        }
+
+        return LoginResponse.builder()
+                .token(jwtService.generateToken(user.getId(), user.getUsername(), user.getFullName()))
+                .expiresIn(jwtService.getExpirationMs() / 1000)
+                .refreshToken(issue(user.getId(), current.getFamilyId()))
+                .userId(user.getId())
+                .fullName(user.getFullName())
+                .username(user.getUsername())
+                .build();
+    }
+
+    /** Đăng xuất: thu hồi cả chuỗi token của lần đăng nhập này. Token lạ thì bỏ qua. */
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    // Dọn token hết hạn (giữ thêm 1 ngày để vẫn phát hiện được dùng lại ngay sau khi hết hạn)
+    @Scheduled(cron = "${jwt.refresh-token-cleanup-cron:0 0 4 * * *}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now().minusDays(1));
+        if (deleted > 0) {
+            System.out.println("🧹 Deleted " + deleted + " expired refresh tokens");
+        }
+    }
+
+    private String issue(String userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .userId(userId)
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plus(refreshTokenTtl))
+                .build());
+        return rawToken;
+    }
+
+    // Token đủ ngẫu nhiên (256 bit) nên SHA-256 là đủ, không cần BCrypt
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.dto.UserResponse;
+import com.chatapp.auth_service.entity.User;
+import com.chatapp.auth_service.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Tra cứu thông tin cơ bản của user (id, username, fullName, avatarUrl) cho GET /api/users/{userId}
+ * - endpoint được chat-service / friend-service gọi nhiều nhất.
+ * Kết quả cache trong bộ nhớ (cache "users", Caffeine); AuthService gọi {@link #evict(String)}
+ * khi profile thay đổi. Hit/miss xem qua /actuator/metrics/cache.gets?tag=cache:users (management port)
+ */
+@Service
+public class UserLookupService {
+
+    public static final String CACHE_NAME = "users";
+    public static final String USERNAME_CACHE_NAME = "usernames";
+
+    private final UserRepository userRepository;
+    private final UsernameFilterService usernameFilterService;
+    private final Cache cache;
+    private final Cache usernameCache;
+    // Username không tồn tại, cache ngắn (missing-username-ttl): instance khác có thể vừa đăng ký username đó
+    private final com.github.benmanes.caffeine.cache.Cache<String, Boolean> missingUsernames;
+
+    public UserLookupService(UserRepository userRepository,
+                             UsernameFilterService usernameFilterService,
+                             CacheManager cacheManager,
+                             @Value("${app.username-filter.missing-username-ttl:5s}") Duration missingUsernameTtl) {
+        this.userRepository = userRepository;
+        this.usernameFilterService = usernameFilterService;
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Cache '" + CACHE_NAME + "' is not configured");
+        this.usernameCache = Objects.requireNonNull(cacheManager.getCache(USERNAME_CACHE_NAME),
+                "Cache '" + USERNAME_CACHE_NAME + "' is not configured");
+        this.missingUsernames = Caffeine.newBuilder().maximumSize(50_000).expireAfterWrite(missingUsernameTtl).build();
+    }
+
+    /**
+     * username -> id cho /api/auth/check/{username}. Username có thật thì cache (username không đổi
+     * và user không bị xoá nên không cần evict); không có thì chỉ nhớ trong missing-username-ttl.
+     * <p>
+     * KHÔNG tin "chắc chắn chưa có" của bloom filter ở đây: filter là của riêng instance này, username
+     * đăng ký ở instance khác chỉ vào filter sau lần nạp lại -> trả 404 sai. Filter chỉ quyết định
+     * ở bước kiểm tra trước khi đăng ký (unique constraint vẫn là chốt cuối).
+     */
+    public Optional<String> findIdByUsername(String username) {
+        String cached = usernameCache.get(username, String.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (missingUsernames.getIfPresent(username) != null) {
+            return Optional.empty();
+        }
+        Optional<String> loaded = userRepository.findIdByUsername(username);
+        if (loaded.isPresent()) {
+            usernameCache.put(username, loaded.get());
+            // Đăng ký ở instance khác -> đưa luôn vào filter của instance này
+            if (!usernameFilterService.mightExist(username)) {
+                usernameFilterService.add(username);
+            }
+        } else {
+            missingUsernames.put(username, Boolean.TRUE);
+        }
+        return loaded;
+    }
+
+    /** Username vừa đăng ký qua instance này: bỏ kết quả "không tồn tại" đã cache, sau khi commit. */
+    public void evictMissingUsername(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    missingUsernames.invalidate(username);
+                }
+            });
+        } else {
+            missingUsernames.invalidate(username);
+        }
+    }
+
+    public Optional<UserResponse> getUser(String userId) {
+        UserResponse cached = cache.get(userId, UserResponse.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Không cache kết quả rỗng: user có thể vừa đăng ký ngay sau đó
+        Optional<UserResponse> loaded = userRepository.findById(userId).map(UserLookupService::toResponse);
+        loaded.ifPresent(response -> cache.put(userId, response));
+        return loaded;
+    }
+
+    /**
+     * Tra nhiều user một lần (friend-service làm giàu danh sách gợi ý kết bạn): id có trong cache
+     * lấy luôn, phần còn lại nạp bằng MỘT câu findAllById rồi đưa vào cache.
+     * Thứ tự kết quả theo thứ tự id truyền vào; id không tồn tại bị bỏ qua.
+     */
+    public List<UserResponse> getUsers(Collection<String> userIds) {
+        Set<String> ids = new LinkedHashSet<>(userIds);
+        Map<String, UserResponse> found = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            UserResponse cached = cache.get(id, UserResponse.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (User user : userRepository.findAllById(misses)) {
+                UserResponse response = toResponse(user);
+                cache.put(user.getId(), response);
+                found.put(user.getId(), response);
+            }
+        }
+        List<UserResponse> result = new ArrayList<>(found.size());
+        for (String id : ids) {
+            UserResponse response = found.get(id);
+            if (response != null) {
+                result.add(response);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Xoá user khỏi cache. Trong transaction thì xoá SAU KHI commit: xoá sớm hơn thì request đọc
+     * chen vào giữa sẽ nạp lại bản cũ từ DB và giữ nó tới khi hết hạn.
+     */
+    public void evict(String userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(userId);
+                }
+            });
+        } else {
+            cache.evict(userId);
+        }
+    }
+
+    public static UserResponse toResponse(User user) {
+        return new UserResponse(
+                user.getId(),
+                user.getUsername(),
+                user.getFullName(),
+                user.getAvatarUrl()
+        );
+    }
+}
@@ -0,0 +1,104 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.dto.UserResponse;
+import com.chatapp.auth_service.dto.UserSearchResult;
+import com.chatapp.auth_service.repository.UserRepository;
+import com.chatapp.auth_service.repository.UserSearchRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tìm user cho ô "thêm thành viên" / "tìm bạn" (gọi theo từng phím gõ):
+ * luôn có giới hạn số dòng, phân trang keyset, xếp hạng theo mức độ khớp.
+ * Từ khoá ngắn hơn min-contains-length chỉ tìm theo tiền tố (tránh quét cả bảng với "a", "ab").
+ */
+@Service
+public class UserSearchService {
+
+    private final UserRepository userRepository;
+
+    @Value("${app.search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${app.search.max-limit:50}")
+    private int maxLimit;
+
+    // pg_trgm cần >= 3 ký tự để dùng index cho LIKE '%q%'
+    @Value("${app.search.min-contains-length:3}")
+    private int minContainsLength;
+
+    public UserSearchService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public UserSearchResult search(String keyword, String cursor, Integer limit) {
+        String q = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty()) {
+            return UserSearchResult.builder().items(new ArrayList<>()).build();
+        }
+        int pageSize = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+
+        String escaped = escapeLike(q);
+        String prefix = escaped + "%";
+        String pattern = q.length() >= minContainsLength ? "%" + escaped + "%" : prefix;
+
+        // Trang đầu: (-1, '', '') nhỏ hơn mọi dòng
+        int afterRank = -1;
+        String afterKey = "";
+        String afterId = "";
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterRank = Integer.parseInt(parts[0]);
+            afterId = parts[1];
+            afterKey = parts[2];
+        }
+
+        // Lấy dư 1 dòng để biết còn trang sau hay không
+        List<UserSearchRow> rows = userRepository.searchActiveUsers(
+                q, prefix, pattern, afterRank, afterKey, afterId, pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<UserSearchRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<UserResponse> items = page.stream()
+                .map(row -> new UserResponse(row.getId(), row.getUsername(), row.getFullName(), row.getAvatarUrl()))
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            UserSearchRow last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.getMatchRank(), last.getSortKey(), last.getId());
+        }
+        return UserSearchResult.builder().items(items).nextCursor(nextCursor).build();
+    }
+
+    // Ký tự đặc biệt của LIKE trong từ khoá phải được hiểu là ký tự thường
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String encodeCursor(int rank, String sortKey, String id) {
+        String raw = rank + "|" + id + "|" + sortKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // "rank|id|sortKey": sortKey đặt cuối vì username có thể chứa '|'
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Integer.parseInt(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
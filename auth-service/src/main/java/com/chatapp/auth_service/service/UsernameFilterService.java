@@ -0,0 +1,101 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.repository.UserRepository;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bloom filter chứa mọi username đã đăng ký: "chắc chắn chưa có" trả lời ngay trong bộ nhớ,
+ * "có thể có" mới phải hỏi DB. Chỉ dùng để đăng ký trùng username bị từ chối trước khi tốn BCrypt
+ * (unique constraint vẫn chặn trường hợp filter sai).
+ * <p>
+ * Username đăng ký qua instance này được thêm ngay; instance khác thì phải chờ lần nạp lại
+ * kế tiếp (rebuild-interval) hoặc tới khi /api/auth/check thấy nó trong DB -> "chưa có" KHÔNG
+ * đủ tin cậy để trả 404 cho /api/auth/check (xem UserLookupService).
+ * Chưa nạp xong lần đầu -> luôn trả "có thể có" (hỏi DB như cũ).
+ */
+@Service
+public class UsernameFilterService {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+
+    @Value("${app.username-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter<CharSequence> filter;
+
+    // Username thêm vào trong lúc đang nạp lại -> gộp vào filter mới (cả 2 field được bảo vệ bởi this)
+    private boolean rebuilding;
+    private final Set<String> addedDuringRebuild = new HashSet<>();
+
+    public UsernameFilterService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /** false = chắc chắn chưa có ai dùng username này. */
+    public boolean mightExist(String username) {
+        BloomFilter<CharSequence> current = filter;
+        return current == null || current.mightContain(username);
+    }
+
+    public synchronized void add(String username) {
+        BloomFilter<CharSequence> current = filter;
+        if (current != null) {
+            current.put(username);
+        }
+        if (rebuilding) {
+            addedDuringRebuild.add(username);
+        }
+    }
+
+    // Nạp lại toàn bộ định kỳ (lần đầu ngay khi khởi động)
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.username-filter.rebuild-interval:10m}")
+    public void rebuild() {
+        synchronized (this) {
+            rebuilding = true;
+            addedDuringRebuild.clear();
+        }
+        try {
+            // Dư gấp đôi để tỉ lệ dương tính giả vẫn đúng khi số user tăng giữa 2 lần nạp
+            long expected = Math.max(10_000, userRepository.count() * 2);
+            BloomFilter<CharSequence> next = BloomFilter.create(
+                    Funnels.stringFunnel(StandardCharsets.UTF_8), expected, falsePositiveRate);
+
+            String after = "";
+            long loaded = 0;
+            while (true) {
+                List<String> page = userRepository.findUsernamesAfter(after, PageRequest.of(0, PAGE_SIZE));
+                page.forEach(next::put);
+                loaded += page.size();
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+            }
+
+            synchronized (this) {
+                addedDuringRebuild.forEach(next::put);
+                filter = next;
+            }
+            System.out.println("🔎 Username bloom filter loaded: " + loaded + " usernames");
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not rebuild username bloom filter: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                addedDuringRebuild.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.chatapp.auth_service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark đợt đăng nhập dồn dập vào một auth-service ĐANG CHẠY (cần Postgres + 1 user đã xác thực email):
+ * nhiều luồng gọi POST /api/auth/login liên tục, đồng thời 1 luồng đo GET /api/users/{id}.
+ * Mục tiêu: p99 của /api/users/{id} gần như không đổi dù login bị dồn (BCrypt chạy trên pool riêng).
+ * Mỗi request login gửi X-Forwarded-For khác nhau để không bị giới hạn theo IP chặn; header chỉ được tin khi
+ * máy chạy benchmark nằm trong AUTH_TRUSTED_PROXIES (vd. AUTH_TRUSTED_PROXIES=127.0.0.1), nếu không thì
+ * phải nâng auth.login-throttle.max-attempts-per-ip.
+ *
+ * <pre>
+ * mvn test -Dtest=LoginFloodBenchmark -Dbenchmark.url=http://localhost:8081 \
+ *     -Dbenchmark.username=alice -Dbenchmark.password=secret -Dbenchmark.userId=&lt;uuid&gt; \
+ *     [-Dbenchmark.concurrency=200] [-Dbenchmark.seconds=30]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.url", matches = ".+")
+class LoginFloodBenchmark {
+
+    private final String baseUrl = System.getProperty("benchmark.url");
+    private final String username = System.getProperty("benchmark.username", "benchmark");
+    private final String password = System.getProperty("benchmark.password", "benchmark");
+    private final String userId = System.getProperty("benchmark.userId");
+    private final int concurrency = Integer.getInteger("benchmark.concurrency", 200);
+    private final int seconds = Integer.getInteger("benchmark.seconds", 30);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+
+    @Test
+    void loginFlood() throws Exception {
+        List<Long> loginLatencies = Collections.synchronizedList(new ArrayList<>());
+        List<Long> lookupLatencies = Collections.synchronizedList(new ArrayList<>());
+        Map<Integer, AtomicInteger> loginStatuses = new ConcurrentHashMap<>();
+        Map<Integer, AtomicInteger> lookupStatuses = new ConcurrentHashMap<>();
+        AtomicInteger ipSeq = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency + 1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(pool.submit(() -> {
+                while (running.get()) {
+                    int n = ipSeq.incrementAndGet();
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                            .header("Content-Type", "application/json")
+                            .header("X-Forwarded-For", "10." + ((n >> 16) & 255) + "." + ((n >> 8) & 255) + "." + (n & 255))
+                            .timeout(Duration.ofSeconds(30))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                    call(request, loginLatencies, loginStatuses);
+                }
+                return null;
+            }));
+        }
+
+        // Đo endpoint nóng nhất trong lúc login đang bị dồn
+        if (userId != null) {
+            workers.add(pool.submit(() -> {
+                while (running.get()) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + userId))
+                            .header("Accept", "application/json")
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    call(request, lookupLatencies, lookupStatuses);
+                    Thread.sleep(20);
+                }
+                return null;
+            }));
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        running.set(false);
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        System.out.println("==================== LOGIN FLOOD BENCHMARK ====================");
+        System.out.printf("concurrency=%d duration=%ds%n", concurrency, seconds);
+        System.out.printf("login      n=%d throughput=%.1f/s %s statuses=%s%n", loginLatencies.size(),
+                loginLatencies.size() / (double) seconds, percentiles(loginLatencies), loginStatuses);
+        System.out.printf("users/{id} n=%d %s statuses=%s%n", lookupLatencies.size(),
+                percentiles(lookupLatencies), lookupStatuses);
+        System.out.println("===============================================================");
+
+        assertThat(loginLatencies).isNotEmpty();
+    }
+
+    private void call(HttpRequest request, List<Long> latencies, Map<Integer, AtomicInteger> statuses) {
+        long t0 = System.nanoTime();
+        int status;
+        try {
+            status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            status = -1;
+        }
+        latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        statuses.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static String percentiles(List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return "p50=- p99=- max=-";
+        }
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return String.format("p50=%dms p99=%dms max=%dms",
+                sorted.get(sorted.size() / 2),
+                sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.99) - 1)),
+                sorted.get(sorted.size() - 1));
+    }
+}
@@ -0,0 +1,96 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.entity.EmailOutbox;
+import com.chatapp.auth_service.enums.EmailOutboxStatus;
+import com.chatapp.auth_service.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * EmailOutboxWorker.deliver gửi qua SMTP giả lập (GreenMail) thay cho Gmail.
+ */
+class EmailOutboxWorkerTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private EmailOutboxWorker worker;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        worker = new EmailOutboxWorker(mock(EmailOutboxRepository.class), mailSender, null);
+        ReflectionTestUtils.setField(worker, "fromEmail", "no-reply@chatify.test");
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(worker, "maxBackoff", Duration.ofHours(1));
+    }
+
+    @Test
+    void sendsWholeBatchAndMarksSent() throws Exception {
+        List<EmailOutbox> batch = List.of(pending("a@chatify.test"), pending("b@chatify.test"));
+
+        worker.deliver(batch);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received[0].getSubject()).isEqualTo("Chatify - Email Verification");
+        assertThat(batch).allSatisfy(email -> {
+            assertThat(email.getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+            assertThat(email.getSentAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void smtpDownSchedulesRetryWithBackoff() {
+        mailSender.setPort(1); // không có SMTP nào nghe ở đây
+        EmailOutbox email = pending("c@chatify.test");
+
+        worker.deliver(List.of(email));
+
+        assertThat(email.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(email.getAttempts()).isEqualTo(1);
+        assertThat(email.getLastError()).isNotBlank();
+        assertThat(email.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        mailSender.setPort(1);
+        EmailOutbox email = pending("d@chatify.test");
+        email.setAttempts(2);
+
+        worker.deliver(List.of(email));
+
+        assertThat(email.getStatus()).isEqualTo(EmailOutboxStatus.FAILED);
+        assertThat(email.getAttempts()).isEqualTo(3);
+    }
+
+    private static EmailOutbox pending(String to) {
+        return EmailOutbox.builder()
+                .recipient(to)
+                .subject("Chatify - Email Verification")
+                .body("Hello")
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
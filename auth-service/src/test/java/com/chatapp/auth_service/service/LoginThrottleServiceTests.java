@@ -0,0 +1,58 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.security.TrustedProxyMatcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * LoginThrottleService.resolveClientIp chỉ tin X-Forwarded-For khi request đến từ proxy đã cấu hình.
+ */
+class LoginThrottleServiceTests {
+
+    private static LoginThrottleService throttle(String... trustedProxies) {
+        return new LoginThrottleService(5, Duration.ofMinutes(15), 20, Duration.ofMinutes(1), 1,
+                new TrustedProxyMatcher(trustedProxies));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+
+    @Test
+    void forwardedForFromUntrustedCallerIsIgnored() {
+        LoginThrottleService service = throttle("172.18.0.5");
+
+        assertThat(service.resolveClientIp(request("203.0.113.7", "198.51.100.1")))
+                .isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void forwardedForFromTrustedProxyIsUsed() {
+        LoginThrottleService service = throttle("172.18.0.5");
+
+        assertThat(service.resolveClientIp(request("172.18.0.5", "1.2.3.4, 198.51.100.1")))
+                .isEqualTo("198.51.100.1");
+    }
+
+    @Test
+    void trustedProxyCanBeGivenAsCidr() {
+        LoginThrottleService service = throttle("172.18.0.0/16");
+
+        assertThat(service.resolveClientIp(request("172.18.3.9", "198.51.100.1"))).isEqualTo("198.51.100.1");
+        assertThat(service.resolveClientIp(request("172.19.0.1", "198.51.100.1"))).isEqualTo("172.19.0.1");
+    }
+
+    @Test
+    void noTrustedProxiesMeansRemoteAddrOnly() {
+        LoginThrottleService service = throttle();
+
+        assertThat(service.resolveClientIp(request("10.0.0.2", "198.51.100.1"))).isEqualTo("10.0.0.2");
+    }
+}
@@ -0,0 +1,58 @@
+package com.chatapp.auth_service.service;
+
+import com.chatapp.auth_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * /api/auth/check/{username}: bloom filter của 1 instance không được làm username đăng ký ở instance khác bị 404.
+ */
+class UserLookupServiceTests {
+
+    private UserRepository userRepository;
+    private UsernameFilterService usernameFilterService;
+    private UserLookupService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        usernameFilterService = mock(UsernameFilterService.class);
+        service = new UserLookupService(userRepository, usernameFilterService,
+                new ConcurrentMapCacheManager(UserLookupService.CACHE_NAME, UserLookupService.USERNAME_CACHE_NAME),
+                Duration.ofMinutes(1));
+    }
+
+    @Test
+    void usernameRegisteredOnAnotherInstanceIsFoundDespiteFilterMiss() {
+        when(usernameFilterService.mightExist("alice")).thenReturn(false);
+        when(userRepository.findIdByUsername("alice")).thenReturn(Optional.of("id-1"));
+
+        assertThat(service.findIdByUsername("alice")).contains("id-1");
+        verify(usernameFilterService).add("alice");
+
+        // Lần sau lấy từ cache, không hỏi DB nữa
+        assertThat(service.findIdByUsername("alice")).contains("id-1");
+        verify(userRepository, times(1)).findIdByUsername("alice");
+    }
+
+    @Test
+    void missingUsernameIsCachedUntilRegisteredHere() {
+        when(userRepository.findIdByUsername("bob")).thenReturn(Optional.empty());
+
+        assertThat(service.findIdByUsername("bob")).isEmpty();
+        assertThat(service.findIdByUsername("bob")).isEmpty();
+        verify(userRepository, times(1)).findIdByUsername("bob");
+
+        when(userRepository.findIdByUsername("bob")).thenReturn(Optional.of("id-2"));
+        service.evictMissingUsername("bob");
+
+        assertThat(service.findIdByUsername("bob")).contains("id-2");
+    }
+}
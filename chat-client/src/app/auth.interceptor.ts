@@ -1,19 +1,37 @@
-import { HttpInterceptorFn } from '@angular/common/http';
+import { HttpErrorResponse, HttpInterceptorFn, HttpRequest } from '@angular/common/http';
+import { inject } from '@angular/core';
+import { catchError, switchMap, throwError } from 'rxjs';
+import { AuthService } from './services/auth.service';
+
+// Các API đăng nhập / refresh: 401 ở đây là lỗi thật, không thử refresh
+const AUTH_ENDPOINTS = ['/api/auth/login', '/api/auth/register', '/api/auth/refresh', '/api/auth/logout'];
+
+const withToken = (req: HttpRequest<unknown>, token: string | null) =>
+  token ? req.clone({ setHeaders: { Authorization: `Bearer ${token}` } }) : req;
 
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
-  // Lấy token từ LocalStorage
-  const token = localStorage.getItem('token');
-  
-  // Nếu có token, gắn vào Header Authorization
-  if (token) {
-    const cloned = req.clone({
-      setHeaders: {
-        Authorization: `Bearer ${token}`
+  const authService = inject(AuthService);
+
+  // Lấy token từ LocalStorage, nếu có thì gắn vào Header Authorization
+  const token = authService.getToken();
+  return next(withToken(req, token)).pipe(
+    catchError((error: HttpErrorResponse) => {
+      const isAuthCall = AUTH_ENDPOINTS.some((path) => req.url.includes(path));
+      if (error.status !== 401 || isAuthCall || !authService.getRefreshToken()) {
+        return throwError(() => error);
       }
-    });
-    return next(cloned);
-  }
-  
-  // Không có token thì gửi request gốc
-  return next(req);
-};
\ No newline at end of file
+
+      // Tab khác đã refresh sau khi request này được gửi -> gửi lại bằng token mới, không refresh thêm
+      const latest = authService.getToken();
+      if (latest && latest !== token) {
+        return next(withToken(req, latest));
+      }
+
+      // Access token hết hạn -> đổi refresh token lấy token mới rồi gửi lại request 1 lần
+      // (refresh thất bại thì AuthService tự xoá phiên ở trình duyệt này)
+      return authService.refreshAccessToken().pipe(
+        switchMap((response) => next(withToken(req, response.token)))
+      );
+    })
+  );
+};
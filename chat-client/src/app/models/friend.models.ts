@@ -24,11 +24,20 @@ export interface FriendRequest {
   receiverId: string;
   receiverUsername: string;
   receiverFullName: string;
+  receiverAvatarUrl?: string | null;
   status: 'PENDING' | 'ACCEPTED' | 'REJECTED';
   message?: string;
   createdAt: string;
 }
 
+/**
+ * Friend Request Page - One page of friend requests (cursor from the X-Next-Cursor header, null = last page)
+ */
+export interface FriendRequestPage {
+  items: FriendRequest[];
+  nextCursor: string | null;
+}
+
 /**
  * Friend Status Model - Represents friendship status with a user
  */
@@ -36,6 +45,8 @@ export interface FriendStatus {
   userId: string;
   status: 'NOT_FRIENDS' | 'PENDING_REQUEST' | 'ARE_FRIENDS' | 'BLOCKED';
   canSendRequest: boolean;
+  requestDirection?: 'OUTGOING' | 'INCOMING';
+  blockedByMe?: boolean;
 }
 
 /**
@@ -6,6 +6,7 @@ import { ChatService } from '../../../../services/chat.service';
 import { UserService, UserProfile } from '../../../../services/user.service';
 import { debounceTime, distinctUntilChanged, Subject, switchMap, of } from 'rxjs';
 import { catchError } from 'rxjs/operators';
+import { withMediaToken } from '../../../../services/media.service';
 
 @Component({
   selector: 'app-add-member-modal',
@@ -77,7 +78,7 @@ export class AddMemberModalComponent implements OnDestroy {
 
   // Get avatar for user
   getUserAvatar(user: UserProfile): string {
-    return user.avatarUrl || 'assets/default-avatar.svg';
+    return withMediaToken(user.avatarUrl) || 'assets/default-avatar.svg';
   }
 
   // Get avatar initials
@@ -1,11 +1,12 @@
 import { Component, ElementRef, ViewChild, effect, inject } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { ChatFacade } from '../../chat.facade';
+import { SafeUrlPipe } from '../../pipes/safe-url.pipe';
 
 @Component({
   selector: 'app-call-modal',
   standalone: true,
-  imports: [CommonModule],
+  imports: [CommonModule, SafeUrlPipe],
   templateUrl: './call-modal.component.html',
   styleUrls: ['./call-modal.component.scss']
 })
@@ -5,12 +5,13 @@ import { Router, RouterModule } from '@angular/router';
 import { ChatFacade } from '../../chat.facade';
 import { ChatSession } from '../../../../models/chat.models'; // Kiểm tra lại đường dẫn import này cho đúng project của bạn
 import { CreateGroupModalComponent } from '../create-group-modal/create-group-modal.component';
+import { SafeUrlPipe } from '../../pipes/safe-url.pipe';
 
 @Component({
   selector: 'app-chat-sidebar',
   standalone: true,
   // [QUAN TRỌNG] Phải import CreateGroupModalComponent vào đây mới dùng được trong HTML
-  imports: [CommonModule, FormsModule, RouterModule, CreateGroupModalComponent],
+  imports: [CommonModule, FormsModule, RouterModule, CreateGroupModalComponent, SafeUrlPipe],
   templateUrl: './chat-sidebar.component.html',
   styleUrls: ['./chat-sidebar.component.scss'],
   changeDetection: ChangeDetectionStrategy.OnPush  // ✅ OnPush for better performance
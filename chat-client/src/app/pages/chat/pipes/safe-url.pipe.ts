@@ -1,5 +1,6 @@
 import { Pipe, PipeTransform } from '@angular/core';
 import { DomSanitizer, SafeUrl } from '@angular/platform-browser';
+import { withMediaToken } from '../../../services/media.service';
 
 @Pipe({
   name: 'safeUrl',
@@ -11,7 +12,7 @@ export class SafeUrlPipe implements PipeTransform {
 
   transform(url: string): SafeUrl {
     if (!url) return '';
-    return this.sanitizer.bypassSecurityTrustUrl(url);
+    return this.sanitizer.bypassSecurityTrustUrl(withMediaToken(url));
   }
 }
 
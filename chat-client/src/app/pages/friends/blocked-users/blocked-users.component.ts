@@ -4,6 +4,7 @@ import { Subscription } from 'rxjs';
 
 import { FriendService } from '../../../services/friend.service';
 import { BlockedUser } from '../../../models/friend.models';
+import { withMediaToken } from '../../../services/media.service';
 
 @Component({
   selector: 'app-blocked-users',
@@ -77,7 +78,7 @@ export class BlockedUsersComponent implements OnInit {
   // === HELPERS ===
 
   getAvatarUrl(url: string | null): string {
-    return url || '/assets/default-avatar.svg';
+    return withMediaToken(url) || '/assets/default-avatar.svg';
   }
 
   formatDate(dateString: string): string {
@@ -6,6 +6,7 @@ import { debounceTime, distinctUntilChanged, Subject, Subscription, switchMap }
 
 import { FriendService } from '../../../services/friend.service';
 import { User, Recommendation, FriendStatus } from '../../../models/friend.models';
+import { withMediaToken } from '../../../services/media.service';
 
 @Component({
   selector: 'app-find-friends',
@@ -148,7 +149,7 @@ export class FindFriendsComponent implements OnInit {
   // === HELPERS ===
 
   getAvatarUrl(url: string | null): string {
-    return url || '/assets/default-avatar.svg';
+    return withMediaToken(url) || '/assets/default-avatar.svg';
   }
 
   // Check if user is already a friend or has pending request
@@ -5,6 +5,7 @@ import { Subscription } from 'rxjs';
 
 import { FriendService } from '../../../services/friend.service';
 import { FriendRequest } from '../../../models/friend.models';
+import { withMediaToken } from '../../../services/media.service';
 
 @Component({
   selector: 'app-friend-requests',
@@ -17,6 +18,11 @@ export class FriendRequestsComponent implements OnInit {
   // Data
   receivedRequests: FriendRequest[] = [];
   sentRequests: FriendRequest[] = [];
+  receivedCount = 0;
+
+  // Con trỏ trang tiếp theo (null = đã tải hết)
+  receivedCursor: string | null = null;
+  sentCursor: string | null = null;
 
   // UI State
   loading = false;
@@ -42,6 +48,7 @@ export class FriendRequestsComponent implements OnInit {
   loadRequests(): void {
     this.loadReceivedRequests();
     this.loadSentRequests();
+    this.loadReceivedCount();
   }
 
   loadReceivedRequests(): void {
@@ -49,8 +56,9 @@ export class FriendRequestsComponent implements OnInit {
     this.error = null;
 
     const sub = this.friendService.getReceivedRequests().subscribe({
-      next: (requests) => {
-        this.receivedRequests = requests.filter(r => r.status === 'PENDING');
+      next: (page) => {
+        this.receivedRequests = page.items;
+        this.receivedCursor = page.nextCursor;
         this.loading = false;
       },
       error: (err) => {
@@ -63,10 +71,28 @@ export class FriendRequestsComponent implements OnInit {
     this.subscriptions.push(sub);
   }
 
+  loadMoreReceivedRequests(): void {
+    if (!this.receivedCursor) {
+      return;
+    }
+    const sub = this.friendService.getReceivedRequests(this.receivedCursor).subscribe({
+      next: (page) => {
+        this.receivedRequests = [...this.receivedRequests, ...page.items];
+        this.receivedCursor = page.nextCursor;
+      },
+      error: (err) => {
+        console.error('Error loading received requests:', err);
+      }
+    });
+
+    this.subscriptions.push(sub);
+  }
+
   loadSentRequests(): void {
     const sub = this.friendService.getSentRequests().subscribe({
-      next: (requests) => {
-        this.sentRequests = requests.filter(r => r.status === 'PENDING');
+      next: (page) => {
+        this.sentRequests = page.items;
+        this.sentCursor = page.nextCursor;
       },
       error: (err) => {
         console.error('Error loading sent requests:', err);
@@ -76,12 +102,43 @@ export class FriendRequestsComponent implements OnInit {
     this.subscriptions.push(sub);
   }
 
+  loadMoreSentRequests(): void {
+    if (!this.sentCursor) {
+      return;
+    }
+    const sub = this.friendService.getSentRequests(this.sentCursor).subscribe({
+      next: (page) => {
+        this.sentRequests = [...this.sentRequests, ...page.items];
+        this.sentCursor = page.nextCursor;
+      },
+      error: (err) => {
+        console.error('Error loading sent requests:', err);
+      }
+    });
+
+    this.subscriptions.push(sub);
+  }
+
+  loadReceivedCount(): void {
+    const sub = this.friendService.countReceivedRequests().subscribe({
+      next: (count) => {
+        this.receivedCount = count;
+      },
+      error: (err) => {
+        console.error('Error counting received requests:', err);
+      }
+    });
+
+    this.subscriptions.push(sub);
+  }
+
   // === REQUEST ACTIONS ===
 
   acceptRequest(requestId: string): void {
     const sub = this.friendService.acceptRequest(requestId).subscribe({
       next: () => {
         this.receivedRequests = this.receivedRequests.filter(r => r.id !== requestId);
+        this.receivedCount = Math.max(0, this.receivedCount - 1);
       },
       error: (err) => {
         console.error('Error accepting request:', err);
@@ -100,6 +157,7 @@ export class FriendRequestsComponent implements OnInit {
     const sub = this.friendService.rejectRequest(requestId).subscribe({
       next: () => {
         this.receivedRequests = this.receivedRequests.filter(r => r.id !== requestId);
+        this.receivedCount = Math.max(0, this.receivedCount - 1);
       },
       error: (err) => {
         console.error('Error rejecting request:', err);
@@ -137,7 +195,7 @@ export class FriendRequestsComponent implements OnInit {
   // === HELPERS ===
 
   getAvatarUrl(url: string | null): string {
-    return url || '/assets/default-avatar.svg';
+    return withMediaToken(url) || '/assets/default-avatar.svg';
   }
 
   formatDate(dateString: string): string {
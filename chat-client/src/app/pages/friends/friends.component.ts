@@ -9,6 +9,7 @@ import { Friend, FriendRequest, BlockedUser } from '../../models/friend.models';
 import { AuthService } from '../../services/auth.service';
 
 import { FindFriendsComponent } from './find-friends/find-friends.component';
+import { withMediaToken } from '../../services/media.service';
 
 @Component({
   selector: 'app-friends',
@@ -35,6 +36,10 @@ export class FriendsComponent implements OnInit, OnDestroy {
   pendingRequestsCount = 0;
   totalFriends = 0;
 
+  // Con trỏ trang lời mời tiếp theo (null = đã tải hết)
+  receivedCursor: string | null = null;
+  sentCursor: string | null = null;
+
   // Search
   searchKeyword = '';
 
@@ -60,6 +65,7 @@ export class FriendsComponent implements OnInit, OnDestroy {
     this.loadFriends();
     this.loadReceivedRequests();
     this.loadSentRequests();
+    this.loadPendingRequestsCount();
     this.loadBlockedUsers();
   }
 
@@ -85,9 +91,26 @@ export class FriendsComponent implements OnInit, OnDestroy {
 
   loadReceivedRequests(): void {
     const sub = this.friendService.getReceivedRequests().subscribe({
-      next: (requests) => {
-        this.receivedRequests = requests.filter(r => r.status === 'PENDING');
-        this.pendingRequestsCount = this.receivedRequests.length;
+      next: (page) => {
+        this.receivedRequests = page.items;
+        this.receivedCursor = page.nextCursor;
+      },
+      error: (err) => {
+        console.error('Error loading received requests:', err);
+      }
+    });
+
+    this.subscriptions.push(sub);
+  }
+
+  loadMoreReceivedRequests(): void {
+    if (!this.receivedCursor) {
+      return;
+    }
+    const sub = this.friendService.getReceivedRequests(this.receivedCursor).subscribe({
+      next: (page) => {
+        this.receivedRequests = [...this.receivedRequests, ...page.items];
+        this.receivedCursor = page.nextCursor;
       },
       error: (err) => {
         console.error('Error loading received requests:', err);
@@ -99,8 +122,9 @@ export class FriendsComponent implements OnInit, OnDestroy {
 
   loadSentRequests(): void {
     const sub = this.friendService.getSentRequests().subscribe({
-      next: (requests) => {
-        this.sentRequests = requests.filter(r => r.status === 'PENDING');
+      next: (page) => {
+        this.sentRequests = page.items;
+        this.sentCursor = page.nextCursor;
       },
       error: (err) => {
         console.error('Error loading sent requests:', err);
@@ -110,6 +134,37 @@ export class FriendsComponent implements OnInit, OnDestroy {
     this.subscriptions.push(sub);
   }
 
+  loadMoreSentRequests(): void {
+    if (!this.sentCursor) {
+      return;
+    }
+    const sub = this.friendService.getSentRequests(this.sentCursor).subscribe({
+      next: (page) => {
+        this.sentRequests = [...this.sentRequests, ...page.items];
+        this.sentCursor = page.nextCursor;
+      },
+      error: (err) => {
+        console.error('Error loading sent requests:', err);
+      }
+    });
+
+    this.subscriptions.push(sub);
+  }
+
+  // Badge: đếm ở server, không phụ thuộc số lời mời đã tải
+  loadPendingRequestsCount(): void {
+    const sub = this.friendService.countReceivedRequests().subscribe({
+      next: (count) => {
+        this.pendingRequestsCount = count;
+      },
+      error: (err) => {
+        console.error('Error counting received requests:', err);
+      }
+    });
+
+    this.subscriptions.push(sub);
+  }
+
   loadBlockedUsers(): void {
     const sub = this.friendService.getBlockedUsers().subscribe({
       next: (users) => {
@@ -178,7 +233,7 @@ export class FriendsComponent implements OnInit, OnDestroy {
     const sub = this.friendService.acceptRequest(requestId).subscribe({
       next: () => {
         this.receivedRequests = this.receivedRequests.filter(r => r.id !== requestId);
-        this.pendingRequestsCount = this.receivedRequests.length;
+        this.pendingRequestsCount = Math.max(0, this.pendingRequestsCount - 1);
         this.loadFriends(); // Refresh friends list
       },
       error: (err) => {
@@ -198,7 +253,7 @@ export class FriendsComponent implements OnInit, OnDestroy {
     const sub = this.friendService.rejectRequest(requestId).subscribe({
       next: () => {
         this.receivedRequests = this.receivedRequests.filter(r => r.id !== requestId);
-        this.pendingRequestsCount = this.receivedRequests.length;
+        this.pendingRequestsCount = Math.max(0, this.pendingRequestsCount - 1);
       },
       error: (err) => {
         console.error('Error rejecting request:', err);
@@ -260,7 +315,7 @@ export class FriendsComponent implements OnInit, OnDestroy {
   // === HELPERS ===
 
   getAvatarUrl(url: string | null): string {
-    return url || '/assets/default-avatar.svg';
+    return withMediaToken(url) || '/assets/default-avatar.svg';
   }
 
   formatDate(dateString: string): string {
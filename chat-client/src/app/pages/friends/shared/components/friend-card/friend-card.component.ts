@@ -3,6 +3,7 @@ import { CommonModule } from '@angular/common';
 import { Router } from '@angular/router';
 
 import { Friend } from '../../../../../models/friend.models';
+import { withMediaToken } from '../../../../../services/media.service';
 
 @Component({
   selector: 'app-friend-card',
@@ -23,7 +24,7 @@ export class FriendCardComponent {
   constructor(private router: Router) { }
 
   getAvatarUrl(): string {
-    return this.friend.friendAvatarUrl || '/assets/default-avatar.svg';
+    return withMediaToken(this.friend.friendAvatarUrl) || '/assets/default-avatar.svg';
   }
 
   formatDate(dateString: string): string {
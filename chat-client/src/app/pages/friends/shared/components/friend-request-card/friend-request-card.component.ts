@@ -2,6 +2,7 @@ import { Component, Input, Output, EventEmitter } from '@angular/core';
 import { CommonModule } from '@angular/common';
 
 import { FriendRequest } from '../../../../../models/friend.models';
+import { withMediaToken } from '../../../../../services/media.service';
 
 @Component({
   selector: 'app-friend-request-card',
@@ -23,7 +24,7 @@ export class FriendRequestCardComponent {
     if (this.isSent) {
       return '/assets/default-avatar.svg';
     }
-    return this.request.senderAvatarUrl || '/assets/default-avatar.svg';
+    return withMediaToken(this.request.senderAvatarUrl) || '/assets/default-avatar.svg';
   }
 
   getUsername(): string {
@@ -1,6 +1,7 @@
 import { Component, Input } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { DomSanitizer, SafeUrl } from '@angular/platform-browser';
+import { withMediaToken } from '../../../../../services/media.service';
 
 @Component({
   selector: 'app-user-avatar',
@@ -23,7 +24,7 @@ export class UserAvatarComponent {
     if (this.avatarUrl && this.avatarUrl.startsWith('data:')) {
       return this.sanitizer.bypassSecurityTrustUrl(this.avatarUrl);
     }
-    return this.avatarUrl || '/assets/default-avatar.svg';
+    return withMediaToken(this.avatarUrl) || '/assets/default-avatar.svg';
   }
 
   getInitials(): string {
@@ -3,7 +3,7 @@ import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { Router } from '@angular/router';
 import { UserService, UserProfile, UpdateProfileRequest } from '../../services/user.service';
-import { MediaService } from '../../services/media.service';
+import { MediaService, withMediaToken } from '../../services/media.service';
 import { finalize } from 'rxjs/operators';
 import { AuthService } from '../../services/auth.service';
 
@@ -227,7 +227,7 @@ export class ProfileComponent implements OnInit {
   }
 
   getAvatarUrl(): string {
-    return this.profile?.avatarUrl || 'https://via.placeholder.com/150';
+    return withMediaToken(this.profile?.avatarUrl) || 'https://via.placeholder.com/150';
   }
 
   getInitials(): string {
@@ -4,6 +4,7 @@ import { ActivatedRoute, Router, RouterModule } from '@angular/router';
 import { UserService, UserProfile } from '../../services/user.service';
 import { AuthService } from '../../services/auth.service';
 import { finalize } from 'rxjs/operators';
+import { withMediaToken } from '../../services/media.service';
 
 @Component({
   selector: 'app-user-profile',
@@ -90,7 +91,7 @@ export class UserProfileComponent implements OnInit {
    * Get avatar URL with fallback
    */
   getAvatarUrl(): string {
-    return this.profile?.avatarUrl || 'assets/default-avatar.svg';
+    return withMediaToken(this.profile?.avatarUrl) || 'assets/default-avatar.svg';
   }
 
   /**
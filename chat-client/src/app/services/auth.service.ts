@@ -1,11 +1,13 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { BehaviorSubject, Observable, tap } from 'rxjs';
+import { BehaviorSubject, Observable, catchError, finalize, map, of, shareReplay, tap, throwError } from 'rxjs';
 import { environment } from '../../environments/environment';
 
 // --- ĐỊNH NGHĨA MODELS (DTO) ---
 export interface AuthResponse {
   token: string;
+  expiresIn?: number;     // số giây access token còn hiệu lực
+  refreshToken?: string;  // dùng cho POST /api/auth/refresh
   userId: string;
   fullName: string;
   username?: string;
@@ -36,6 +38,9 @@ export class AuthService {
    */
   readonly currentUser$ = new BehaviorSubject<any>(this.getCurrentUser());
 
+  // Request refresh đang chạy: các request 401 cùng lúc dùng chung, không refresh nhiều lần
+  private refreshInFlight$: Observable<AuthResponse> | null = null;
+
   constructor(private http: HttpClient) { }
 
   // 1. Đăng Nhập
@@ -63,7 +68,7 @@ export class AuthService {
 
   // 3. Quản lý Session
   private saveSession(data: AuthResponse) {
-    localStorage.setItem('token', data.token);
+    this.saveTokens(data);
     
     // Lưu thông tin User vào localStorage để dùng lại sau này
     const user = {
@@ -77,6 +82,76 @@ export class AuthService {
     this.currentUser$.next(user);
   }
 
+  private saveTokens(data: AuthResponse) {
+    localStorage.setItem('token', data.token);
+    if (data.refreshToken) {
+      localStorage.setItem('refreshToken', data.refreshToken);
+    }
+  }
+
+  getRefreshToken(): string | null {
+    return localStorage.getItem('refreshToken');
+  }
+
+  /**
+   * Đổi refresh token lấy access token mới (access token chỉ sống ~15 phút).
+   * Gọi từ authInterceptor khi API trả 401 và từ ChatService trước khi mở lại WebSocket.
+   * Refresh token không còn dùng được -> chỉ xoá phiên ở trình duyệt này (clearSession), không gọi /logout.
+   */
+  refreshAccessToken(): Observable<AuthResponse> {
+    if (!this.refreshInFlight$) {
+      const refreshToken = this.getRefreshToken();
+      this.refreshInFlight$ = this.http
+        .post<AuthResponse>(`${this.apiUrl}/refresh`, { refreshToken })
+        .pipe(
+          tap((response) => this.saveTokens(response)),
+          catchError((error) => {
+            // Tab khác đã xoay refresh token trước (server trả 401 trong reuse-grace-period):
+            // cặp token mới đã nằm trong localStorage -> dùng luôn thay vì đăng xuất
+            const rotated = this.getRefreshToken();
+            const token = this.getToken();
+            if (error?.status === 401 && rotated && rotated !== refreshToken && token) {
+              return of({
+                token,
+                refreshToken: rotated,
+                userId: this.getUserId() ?? '',
+                fullName: this.getCurrentUser()?.name ?? ''
+              });
+            }
+            if (error?.status === 401) {
+              this.clearSession();
+            }
+            return throwError(() => error);
+          }),
+          finalize(() => (this.refreshInFlight$ = null)),
+          shareReplay(1)
+        );
+    }
+    return this.refreshInFlight$;
+  }
+
+  /** Access token đã/sắp hết hạn (đọc exp trong JWT, không gọi server). */
+  isTokenExpiring(marginMs = 30000): boolean {
+    const token = this.getToken();
+    if (!token) {
+      return true;
+    }
+    try {
+      const payload = JSON.parse(atob(token.split('.')[1].replace(/-/g, '+').replace(/_/g, '/')));
+      return !payload.exp || payload.exp * 1000 - marginMs < Date.now();
+    } catch (e) {
+      return true;
+    }
+  }
+
+  /** Access token còn hạn để dùng ngay; sắp hết hạn thì refresh trước. */
+  getFreshToken(): Observable<string | null> {
+    if (!this.isTokenExpiring() || !this.getRefreshToken()) {
+      return of(this.getToken());
+    }
+    return this.refreshAccessToken().pipe(map((response) => response.token));
+  }
+
   getToken(): string | null {
     return localStorage.getItem('token');
   }
@@ -114,6 +189,21 @@ export class AuthService {
   }
 
   logout() {
+    // Thu hồi refresh token phía server; keepalive để request không bị huỷ khi chuyển trang
+    const refreshToken = this.getRefreshToken();
+    if (refreshToken) {
+      fetch(`${this.apiUrl}/logout`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken }),
+        keepalive: true
+      }).catch(() => { /* access token sẽ tự hết hạn */ });
+    }
+    this.clearSession();
+  }
+
+  /** Xoá phiên phía trình duyệt, không thu hồi refresh token trên server. */
+  clearSession() {
     localStorage.clear();
     this.currentUser$.next(null);
     // Nên reload lại trang hoặc chuyển về trang login để xóa sạch state
@@ -67,9 +67,16 @@ export class ChatService {
     if (this.stompClient && this.stompClient.connected) {
       return;
     }
-    
+
+    // Access token chỉ sống ~15 phút: reconnect sau khi mất kết nối lâu phải refresh trước
+    this.authService.getFreshToken().subscribe({
+      next: (token) => this.openSocket(currentUser, token),
+      error: () => setTimeout(() => this.connect(currentUser), 5000)
+    });
+  }
+
+  private openSocket(currentUser: any, token: string | null): void {
     //  Gắn Token vào URL Query Param
-    const token = this.authService.getToken();
     let socketUrl = `${this.apiUrl}/ws`;
     
     if (token) {
@@ -1,11 +1,12 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, map } from 'rxjs';
 import { environment } from '../../environments/environment';
 import { AuthService } from './auth.service';
 import {
   Friend,
   FriendRequest,
+  FriendRequestPage,
   FriendStatus,
   BlockedUser,
   Recommendation,
@@ -18,6 +19,9 @@ import {
 export class FriendService {
   private baseUrl = environment.apiUrl;
 
+  // Số lời mời mỗi trang (/received, /sent phân trang theo con trỏ X-Next-Cursor)
+  private requestPageSize = 20;
+
   constructor(
     private http: HttpClient,
     private authService: AuthService
@@ -79,23 +83,41 @@ export class FriendService {
   }
 
   /**
-   * Get received friend requests
+   * Get one page of received friend requests (pass nextCursor of the previous page for the next one)
    */
-  getReceivedRequests(): Observable<FriendRequest[]> {
-    return this.http.get<FriendRequest[]>(
-      `${this.baseUrl}/api/friends/requests/received`,
-      { headers: this.getHeaders() }
-    );
+  getReceivedRequests(cursor?: string | null): Observable<FriendRequestPage> {
+    return this.getRequestPage('received', cursor);
   }
 
   /**
-   * Get sent friend requests
+   * Get one page of sent friend requests
    */
-  getSentRequests(): Observable<FriendRequest[]> {
-    return this.http.get<FriendRequest[]>(
-      `${this.baseUrl}/api/friends/requests/sent`,
+  getSentRequests(cursor?: string | null): Observable<FriendRequestPage> {
+    return this.getRequestPage('sent', cursor);
+  }
+
+  /**
+   * Count pending received requests (badge), without loading them
+   */
+  countReceivedRequests(): Observable<number> {
+    return this.http.get<{ count: number }>(
+      `${this.baseUrl}/api/friends/requests/received/count`,
       { headers: this.getHeaders() }
-    );
+    ).pipe(map(response => response.count));
+  }
+
+  private getRequestPage(box: 'received' | 'sent', cursor?: string | null): Observable<FriendRequestPage> {
+    const params: Record<string, string> = { limit: String(this.requestPageSize) };
+    if (cursor) {
+      params['cursor'] = cursor;
+    }
+    return this.http.get<FriendRequest[]>(
+      `${this.baseUrl}/api/friends/requests/${box}`,
+      { headers: this.getHeaders(), params, observe: 'response' }
+    ).pipe(map(response => ({
+      items: response.body ?? [],
+      nextCursor: response.headers.get('X-Next-Cursor')
+    })));
   }
 
   /**
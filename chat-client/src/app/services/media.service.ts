@@ -3,6 +3,24 @@ import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../environments/environment';
 
+// File upload mới trả về URL /api/v1/media/files/{id} (có kiểm tra quyền ở Gateway).
+// <img>/<video> không gửi được header Authorization -> gắn JWT vào query (?token=), Gateway chấp nhận cả 2 cách.
+// URL cũ /chatapp-files/... (bucket public) giữ nguyên.
+const MEDIA_DOWNLOAD_PATH = '/api/v1/media/files/';
+
+export function withMediaToken(url: string): string;
+export function withMediaToken(url: string | null | undefined): string | null | undefined;
+export function withMediaToken(url: string | null | undefined): string | null | undefined {
+  if (!url || !url.includes(MEDIA_DOWNLOAD_PATH) || /[?&]token=/.test(url)) {
+    return url;
+  }
+  const token = localStorage.getItem('token');
+  if (!token) {
+    return url;
+  }
+  return `${url}${url.includes('?') ? '&' : '?'}token=${encodeURIComponent(token)}`;
+}
+
 export interface MediaUploadResponse {
   url: string;
   type: string;
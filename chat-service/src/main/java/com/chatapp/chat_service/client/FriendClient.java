@@ -0,0 +1,17 @@
+package com.chatapp.chat_service.client;
+
+import com.chatapp.chat_service.dto.BlockDTO;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+@FeignClient(name = "friend-service", url = "${application.config.friend-service-url:http://friend-service:8085}",
+        configuration = InternalApiFeignConfig.class)
+public interface FriendClient {
+
+    // Endpoint nội bộ (không qua Gateway): toàn bộ cặp chặn, phân trang keyset theo id
+    @GetMapping("/internal/blocks")
+    List<BlockDTO> getBlocks(@RequestParam("after") String after, @RequestParam("limit") int limit);
+}
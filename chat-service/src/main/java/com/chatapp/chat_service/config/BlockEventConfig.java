@@ -0,0 +1,36 @@
+package com.chatapp.chat_service.config;
+
+import com.chatapp.chat_service.dto.BlockEvent;
+import com.chatapp.chat_service.service.BlockListService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Lắng nghe sự kiện chặn / bỏ chặn friend-service phát qua Redis pub/sub, cập nhật {@link BlockListService}.
+ */
+@Configuration
+public class BlockEventConfig {
+
+    @Bean
+    public RedisMessageListenerContainer blockEventListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            BlockListService blockListService,
+            ObjectMapper objectMapper,
+            @Value("${block-list.channel:friend:block-events}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            try {
+                blockListService.onEvent(objectMapper.readValue(message.getBody(), BlockEvent.class));
+            } catch (Exception e) {
+                System.err.println("⚠️ [BlockEventConfig] Invalid block event: " + e.getMessage());
+            }
+        }, new ChannelTopic(channel));
+        return container;
+    }
+}
@@ -0,0 +1,42 @@
+package com.chatapp.chat_service.config;
+
+import com.chatapp.chat_service.model.ChatMessage;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Index partial trên chat_messages.content, chỉ chứa tin media (tin text không tốn chỗ trong index)
+ * để media-service tra "URL này còn được dùng không" (POST /internal/media/references).
+ * Tạo sau khi app đã lên và bỏ qua lỗi: Mongo chưa sẵn sàng không được làm chat-service không start.
+ */
+@Component
+public class MongoIndexConfig {
+
+    private static final List<String> MEDIA_TYPES = List.of("IMAGE", "VIDEO", "FILE", "AUDIO");
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(ChatMessage.class).ensureIndex(new Index()
+                    .on("content", Sort.Direction.ASC)
+                    .named("idx_media_content")
+                    .partial(PartialIndexFilter.of(Criteria.where("type").in(MEDIA_TYPES))));
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not create index idx_media_content: " + e.getMessage());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.chatapp.chat_service.model.ChatNotification;
 import com.chatapp.chat_service.model.ChatRoom;
 import com.chatapp.chat_service.model.TypingMessage;
 import com.chatapp.chat_service.model.UserStatus;
+import com.chatapp.chat_service.service.BlockListService;
 import com.chatapp.chat_service.service.ChatMessageService;
 import com.chatapp.chat_service.service.ChatRoomService;
 import com.chatapp.chat_service.service.UserStatusService;
@@ -39,6 +40,7 @@ public class ChatController {
     @Autowired private ChatMessageService chatMessageService;
     @Autowired private ChatRoomService chatRoomService;
     @Autowired private UserStatusService userStatusService;
+    @Autowired private BlockListService blockListService;
 
     // 1. XỬ LÝ TIN NHẮN
     @MessageMapping("/chat")
@@ -81,6 +83,13 @@ public class ChatController {
                 }
             } else {
                 // --- 1-1 CHAT ---
+                // Một trong hai đã chặn người kia: không lưu, không gửi (tra chỉ mục trong bộ nhớ, không gọi friend-service)
+                if (blockListService.isBlocked(chatMessage.getSenderId(), chatMessage.getRecipientId())) {
+                    System.out.println("🚫 [ChatController] Bỏ tin nhắn " + chatMessage.getSenderId()
+                            + " -> " + chatMessage.getRecipientId() + ": đã bị chặn");
+                    return;
+                }
+
                 // [FIXED] With unique ChatRoom model, only need to get chatId once
                 // The method internally sorts IDs, so chatId is always the same
                 Optional<String> chatId = chatRoomService.getChatRoomId(
@@ -0,0 +1,76 @@
+package com.chatapp.chat_service.controller;
+
+import com.chatapp.chat_service.model.ChatMessage;
+import com.chatapp.chat_service.model.ChatRoom;
+import com.chatapp.chat_service.repository.ChatMessageRepository;
+import com.chatapp.chat_service.repository.ChatRoomRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Endpoint nội bộ cho media-service (không đi qua Gateway).
+ */
+@RestController
+@RequestMapping("/internal/media")
+public class InternalMediaController {
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    /**
+     * POST /internal/media/references
+     * Nhận danh sách URL file, trả về những URL còn nằm trong ít nhất 1 tin nhắn chưa bị thu hồi.
+     * URL không có trong kết quả = không còn tin nhắn nào dùng (nhóm đã xoá, tin đã thu hồi...).
+     */
+    @PostMapping("/references")
+    public ResponseEntity<List<String>> findReferences(@RequestBody List<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        List<String> referenced = chatMessageRepository.findMediaReferences(urls).stream()
+                .map(ChatMessage::getContent)
+                .distinct()
+                .toList();
+        return ResponseEntity.ok(referenced);
+    }
+
+    /**
+     * GET /internal/media/access?userId=&url=
+     * true nếu user là người gửi / người nhận (chat 1-1) của 1 tin nhắn chưa thu hồi chứa URL này,
+     * hoặc đang là thành viên của phòng chứa tin nhắn đó. media-service dùng để kiểm tra quyền tải file.
+     */
+    @GetMapping("/access")
+    public ResponseEntity<Boolean> canAccess(@RequestParam String userId, @RequestParam String url) {
+        Set<String> chatIds = new LinkedHashSet<>();
+        for (ChatMessage message : chatMessageRepository.findMediaMessagesByContent(url)) {
+            if (userId.equals(message.getSenderId()) || userId.equals(message.getRecipientId())) {
+                return ResponseEntity.ok(true);
+            }
+            if (message.getChatId() != null) {
+                chatIds.add(message.getChatId());
+            }
+        }
+        for (String chatId : chatIds) {
+            List<String> memberIds = chatRoomRepository.findByChatId(chatId)
+                    .map(ChatRoom::getMemberIds)
+                    .orElse(null);
+            if (memberIds != null && memberIds.contains(userId)) {
+                return ResponseEntity.ok(true);
+            }
+        }
+        return ResponseEntity.ok(false);
+    }
+}
@@ -0,0 +1,15 @@
+package com.chatapp.chat_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 1 cặp chặn từ friend-service (GET /internal/blocks); id dùng làm cursor trang sau
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockDTO {
+    private String id;
+    private String blockerId;
+    private String blockedId;
+}
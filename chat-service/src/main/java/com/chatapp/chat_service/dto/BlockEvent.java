@@ -0,0 +1,17 @@
+package com.chatapp.chat_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Sự kiện friend-service phát lên kênh block-list.channel sau khi chặn / bỏ chặn
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockEvent {
+    private String type; // BLOCKED / UNBLOCKED
+    private String blockerId;
+    private List<String> blockedIds;
+}
@@ -32,6 +32,7 @@ public class ChatMessage {
     private String chatId;
     private String senderId;
     private String recipientId;
+    // Tin nhắn media: content = URL file từ media-service (index partial idx_media_content, xem MongoIndexConfig)
     private String content;
     private String fileName; // Original filename for file attachments
     private String senderName; // [NEW] Store sender's username for display
@@ -6,6 +6,7 @@ import com.chatapp.chat_service.model.ChatMessage;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -35,6 +36,18 @@ public interface ChatMessageRepository extends MongoRepository<ChatMessage, Stri
     @Query("{ '$or': [ {'chatId': ?0}, {'senderId': ?0}, {'recipientId': ?0} ], 'type': { $in: ?1 } }")
     List<ChatMessage> findByParticipantAndTypeIn(String participantId, List<MessageType> types, Sort sort);
 
+    // --- [MEDIA REFERENCES] ---
+    // Tin nhắn media (chưa thu hồi) đang trỏ tới các URL trong lô; chỉ lấy field content.
+    // Điều kiện 'type' khớp với partial index idx_media_content.
+    @Query(value = "{ 'content': { $in: ?0 }, 'type': { $in: ['IMAGE', 'VIDEO', 'FILE', 'AUDIO'] }, 'messageStatus': { $ne: 'REVOKED' } }",
+            fields = "{ 'content': 1 }")
+    List<ChatMessage> findMediaReferences(Collection<String> urls);
+
+    // Tin nhắn media (chưa thu hồi) trỏ tới 1 URL, chỉ lấy các field xác định ai được xem (cùng index)
+    @Query(value = "{ 'content': ?0, 'type': { $in: ['IMAGE', 'VIDEO', 'FILE', 'AUDIO'] }, 'messageStatus': { $ne: 'REVOKED' } }",
+            fields = "{ 'chatId': 1, 'senderId': 1, 'recipientId': 1 }")
+    List<ChatMessage> findMediaMessagesByContent(String url);
+
     // --- [SEARCH IN CONVERSATION] ---
     // Text search in content field - requires text index on 'content' field
     @Query("{ '$or': [ {'chatId': ?0}, {'senderId': ?0}, {'recipientId': ?0} ], 'content': { $regex: ?1, $options: 'i' } }")
@@ -0,0 +1,153 @@
+package com.chatapp.chat_service.service;
+
+import com.chatapp.chat_service.client.FriendClient;
+import com.chatapp.chat_service.dto.BlockDTO;
+import com.chatapp.chat_service.dto.BlockEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục chặn trong bộ nhớ (blockerId -> tập blockedId) để xử lý tin nhắn không phải gọi friend-service:
+ * <ul>
+ *   <li>Nạp toàn bộ từ friend-service (GET /internal/blocks) lúc khởi động và theo block-list.reload-cron</li>
+ *   <li>Thay đổi sau đó đến qua Redis pub/sub (BlockEventConfig); sự kiện đến trong lúc đang nạp
+ *       được áp lại lên bản mới nên không mất</li>
+ *   <li>Lỗi nạp (friend-service chưa lên): giữ bản cũ / rỗng, tin nhắn vẫn đi (fail-open);
+ *       sự kiện lỡ mất khi Redis lỗi được sửa ở lần nạp lại kế tiếp</li>
+ * </ul>
+ * Đa số user không chặn ai nên 1 lần tra thường chỉ là 2 lần get() trả null.
+ */
+@Service
+public class BlockListService {
+
+    private final FriendClient friendClient;
+
+    private final Object lock = new Object();
+    private volatile Map<String, Set<String>> blocked = new ConcurrentHashMap<>();
+    private List<BlockEvent> pendingEvents; // != null trong lúc đang nạp
+    private volatile boolean ready;
+
+    @Value("${block-list.page-size:1000}")
+    private int pageSize;
+
+    public BlockListService(FriendClient friendClient) {
+        this.friendClient = friendClient;
+    }
+
+    /**
+     * true nếu a đã chặn b hoặc b đã chặn a.
+     */
+    public boolean isBlocked(String a, String b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        Map<String, Set<String>> current = blocked;
+        return contains(current, a, b) || contains(current, b, a);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    @Scheduled(cron = "${block-list.reload-cron:0 */30 * * * *}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    // friend-service lên sau chat-service: thử lại sớm thay vì chờ tới lần reload theo lịch
+    @Scheduled(fixedDelayString = "${block-list.retry-interval:30s}", initialDelayString = "${block-list.retry-interval:30s}")
+    public void retryUntilLoaded() {
+        if (!ready) {
+            reload();
+        }
+    }
+
+    public void reload() {
+        synchronized (lock) {
+            if (pendingEvents != null) {
+                System.out.println("⏭️ [BlockListService] Reload already running, skipping");
+                return;
+            }
+            pendingEvents = new ArrayList<>();
+        }
+
+        long startedAt = System.currentTimeMillis();
+        Map<String, Set<String>> loaded = null;
+        try {
+            loaded = load();
+        } catch (Exception e) {
+            System.err.println("⚠️ [BlockListService] Could not load block list, keeping previous index: " + e.getMessage());
+        }
+
+        synchronized (lock) {
+            if (loaded != null) {
+                for (BlockEvent event : pendingEvents) {
+                    apply(loaded, event);
+                }
+                blocked = loaded;
+                ready = true;
+            }
+            pendingEvents = null;
+        }
+        if (loaded != null) {
+            System.out.println("✅ [BlockListService] Loaded block list for " + loaded.size() + " users in "
+                    + (System.currentTimeMillis() - startedAt) + " ms");
+        }
+    }
+
+    private Map<String, Set<String>> load() {
+        Map<String, Set<String>> building = new ConcurrentHashMap<>();
+        String after = "";
+        while (true) {
+            List<BlockDTO> page = friendClient.getBlocks(after, pageSize);
+            for (BlockDTO block : page) {
+                building.computeIfAbsent(block.getBlockerId(), id -> ConcurrentHashMap.newKeySet()).add(block.getBlockedId());
+            }
+            if (page.size() < pageSize) {
+                return building;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Sự kiện từ Redis pub/sub (thread của listener container).
+     */
+    public void onEvent(BlockEvent event) {
+        synchronized (lock) {
+            apply(blocked, event);
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+            }
+        }
+    }
+
+    private static void apply(Map<String, Set<String>> index, BlockEvent event) {
+        if (event.getBlockerId() == null || event.getBlockedIds() == null) {
+            return;
+        }
+        if ("BLOCKED".equals(event.getType())) {
+            index.computeIfAbsent(event.getBlockerId(), id -> ConcurrentHashMap.newKeySet()).addAll(event.getBlockedIds());
+        } else if ("UNBLOCKED".equals(event.getType())) {
+            index.computeIfPresent(event.getBlockerId(), (id, blockedIds) -> {
+                blockedIds.removeAll(event.getBlockedIds());
+                return blockedIds.isEmpty() ? null : blockedIds;
+            });
+        }
+    }
+
+    private static boolean contains(Map<String, Set<String>> index, String blockerId, String blockedId) {
+        Set<String> blockedIds = index.get(blockerId);
+        return blockedIds != null && blockedIds.contains(blockedId);
+    }
+}
@@ -0,0 +1,116 @@
+-- So sánh 2 cách lưu quan hệ bạn bè ở quy mô 10M cạnh có hướng:
+--   bench_legacy.friendships     : 2 dòng / cặp (A->B, B->A), unique (user_id, friend_id)   -- như bảng friendships cũ
+--   bench_canonical.friend_pairs : 1 dòng / cặp (user_low < user_high) + index covering 2 chiều + view friend_edges
+--
+-- Chạy trên DB nháp (KHÔNG chạy trên frienddb thật), mất vài phút và ~3GB đĩa:
+--   psql -h localhost -U postgres -d benchdb -v users=500000 -v pairs=5000000 -v samples=2000 \
+--        -f friendship_storage_benchmark.sql
+-- pairs = 5M cặp = 10M cạnh có hướng. Kết quả in ra qua NOTICE + bảng kích thước cuối file.
+
+\set ON_ERROR_STOP on
+\timing on
+
+DROP SCHEMA IF EXISTS bench_legacy CASCADE;
+DROP SCHEMA IF EXISTS bench_canonical CASCADE;
+CREATE SCHEMA bench_legacy;
+CREATE SCHEMA bench_canonical;
+
+-- 1. Dữ liệu: cặp ngẫu nhiên, bỏ trùng và tự kết bạn
+CREATE TABLE bench_canonical.friend_pairs (
+    user_low   varchar(255) NOT NULL,
+    user_high  varchar(255) NOT NULL,
+    created_at timestamp    NOT NULL,
+    PRIMARY KEY (user_low, user_high)
+);
+
+INSERT INTO bench_canonical.friend_pairs (user_low, user_high, created_at)
+SELECT LEAST(a, b), GREATEST(a, b), MIN(created_at)
+FROM (SELECT 'u' || lpad((1 + floor(random() * :users))::int::text, 8, '0') AS a,
+             'u' || lpad((1 + floor(random() * :users))::int::text, 8, '0') AS b,
+             now() - random() * interval '365 days' AS created_at
+      FROM generate_series(1, :pairs)) s
+WHERE a <> b
+GROUP BY 1, 2;
+
+CREATE TABLE bench_legacy.friendships (
+    id         varchar(255) PRIMARY KEY,
+    user_id    varchar(255) NOT NULL,
+    friend_id  varchar(255) NOT NULL,
+    status     varchar(255) NOT NULL,
+    created_at timestamp    NOT NULL,
+    updated_at timestamp,
+    UNIQUE (user_id, friend_id)
+);
+
+INSERT INTO bench_legacy.friendships (id, user_id, friend_id, status, created_at, updated_at)
+SELECT gen_random_uuid()::text, user_low, user_high, 'ACCEPTED', created_at, created_at FROM bench_canonical.friend_pairs
+UNION ALL
+SELECT gen_random_uuid()::text, user_high, user_low, 'ACCEPTED', created_at, created_at FROM bench_canonical.friend_pairs;
+
+-- 2. Index giống FriendPairIndexInitializer
+CREATE INDEX idx_friend_pairs_low_high ON bench_canonical.friend_pairs (user_low, user_high) INCLUDE (created_at);
+CREATE INDEX idx_friend_pairs_high_low ON bench_canonical.friend_pairs (user_high, user_low) INCLUDE (created_at);
+CREATE VIEW bench_canonical.friend_edges AS
+    SELECT user_low AS user_id, user_high AS friend_id, created_at FROM bench_canonical.friend_pairs
+    UNION ALL
+    SELECT user_high AS user_id, user_low AS friend_id, created_at FROM bench_canonical.friend_pairs;
+
+VACUUM ANALYZE bench_canonical.friend_pairs;
+VACUUM ANALYZE bench_legacy.friendships;
+
+-- 3. Đo: chạy mỗi câu với :samples user (cặp user) ngẫu nhiên, in trung bình / p95 / max (ms)
+CREATE FUNCTION bench_canonical.run(label text, query text, samples int) RETURNS void AS $$
+DECLARE
+    ids     text[];
+    timings double precision[] := '{}';
+    t0      timestamptz;
+    dummy   bigint;
+BEGIN
+    SELECT array_agg(user_low) INTO ids
+    FROM (SELECT user_low FROM bench_canonical.friend_pairs TABLESAMPLE SYSTEM (1) LIMIT samples * 2) s;
+    FOR i IN 1 .. samples LOOP
+        t0 := clock_timestamp();
+        EXECUTE 'SELECT count(*) FROM (' || query || ') q' INTO dummy USING ids[i], ids[samples + i];
+        timings := timings || (extract(epoch FROM clock_timestamp() - t0) * 1000);
+    END LOOP;
+    RAISE NOTICE '% : avg % ms, p95 % ms, max % ms', rpad(label, 40),
+        round((SELECT avg(t) FROM unnest(timings) t)::numeric, 3),
+        round((SELECT percentile_cont(0.95) WITHIN GROUP (ORDER BY t) FROM unnest(timings) t)::numeric, 3),
+        round((SELECT max(t) FROM unnest(timings) t)::numeric, 3);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Danh sách bạn (GET /api/friends?sort=recent&size=50)
+SELECT bench_canonical.run('legacy    friend list (50, recent)',
+    'SELECT friend_id, created_at FROM bench_legacy.friendships WHERE user_id = $1 AND status = ''ACCEPTED'' ORDER BY created_at DESC, friend_id LIMIT 50', :samples);
+SELECT bench_canonical.run('canonical friend list (50, recent)',
+    'SELECT friend_id, created_at FROM bench_canonical.friend_edges WHERE user_id = $1 ORDER BY created_at DESC, friend_id LIMIT 50', :samples);
+
+-- Danh sách bạn đầy đủ (sort=name, làm giàu toàn bộ)
+SELECT bench_canonical.run('legacy    friend list (all)',
+    'SELECT friend_id, created_at FROM bench_legacy.friendships WHERE user_id = $1 AND status = ''ACCEPTED''', :samples);
+SELECT bench_canonical.run('canonical friend list (all)',
+    'SELECT friend_id, created_at FROM bench_canonical.friend_edges WHERE user_id = $1', :samples);
+
+-- Bạn chung giữa 2 user
+SELECT bench_canonical.run('legacy    mutual friends',
+    'SELECT a.friend_id FROM bench_legacy.friendships a JOIN bench_legacy.friendships b ON b.friend_id = a.friend_id '
+    || 'WHERE a.user_id = $1 AND b.user_id = $2 AND a.status = ''ACCEPTED'' AND b.status = ''ACCEPTED''', :samples);
+SELECT bench_canonical.run('canonical mutual friends',
+    'SELECT a.friend_id FROM bench_canonical.friend_edges a JOIN bench_canonical.friend_edges b ON b.friend_id = a.friend_id '
+    || 'WHERE a.user_id = $1 AND b.user_id = $2', :samples);
+
+-- Kiểm tra 2 user có phải bạn (trước đây: exists theo cả 2 chiều)
+SELECT bench_canonical.run('legacy    are friends (2 directions)',
+    'SELECT 1 FROM bench_legacy.friendships WHERE (user_id = $1 AND friend_id = $2) OR (user_id = $2 AND friend_id = $1)', :samples);
+SELECT bench_canonical.run('canonical are friends',
+    'SELECT 1 FROM bench_canonical.friend_pairs WHERE user_low = LEAST($1, $2) AND user_high = GREATEST($1, $2)', :samples);
+
+-- 4. Kích thước bảng + index
+SELECT n.nspname AS schema, c.relname AS relation, c.reltuples::bigint AS rows,
+       pg_size_pretty(pg_relation_size(c.oid)) AS heap,
+       pg_size_pretty(pg_indexes_size(c.oid)) AS indexes,
+       pg_size_pretty(pg_total_relation_size(c.oid)) AS total
+FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+WHERE n.nspname IN ('bench_legacy', 'bench_canonical') AND c.relkind = 'r'
+ORDER BY 1, 2;
@@ -2,10 +2,14 @@ package com.chatapp.friend_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
+@EnableCaching // Cache hồ sơ user (xem UserProfileService)
+@EnableScheduling // Rebuild toàn bộ friend_recommendations
 public class FriendServiceApplication {
 
 	public static void main(String[] args) {
@@ -4,13 +4,22 @@ import com.chatapp.friend_service.dto.UserDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
-@FeignClient(name = "auth-service", url = "${auth-service.url}")
+import java.util.Collection;
+import java.util.List;
+
+@FeignClient(name = "auth-service", url = "${auth-service.url}", configuration = InternalApiFeignConfig.class)
 public interface AuthClient {
 
     @GetMapping("/api/users/{userId}")
     AuthUserResponse getUserById(@PathVariable("userId") String userId);
 
+    // Endpoint nội bộ: lấy nhiều user trong 1 lần gọi (tối đa app.internal.max-batch-size bên auth-service)
+    @PostMapping("/internal/users/batch")
+    List<AuthUserResponse> getUsersByIds(@RequestBody Collection<String> userIds);
+
     class AuthUserResponse {
         private String id;
         private String username;
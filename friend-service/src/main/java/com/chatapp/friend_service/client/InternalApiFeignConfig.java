@@ -0,0 +1,21 @@
+package com.chatapp.friend_service.client;
+
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Cấu hình riêng cho Feign client gọi endpoint /internal/** của service khác: gắn header X-Internal-Token
+ * (internal.token, dùng chung giữa các service). Không đánh dấu @Configuration để không áp lên mọi Feign client.
+ */
+public class InternalApiFeignConfig {
+
+    @Bean
+    public RequestInterceptor internalTokenInterceptor(@Value("${internal.token:}") String token) {
+        return template -> {
+            if (template.path().startsWith("/internal/")) {
+                template.header("X-Internal-Token", token);
+            }
+        };
+    }
+}
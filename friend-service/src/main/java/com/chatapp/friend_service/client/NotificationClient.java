@@ -4,6 +4,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(name = "notification-service", url = "${notification-service.url}")
@@ -11,5 +12,9 @@ public interface NotificationClient {
 
     @PostMapping("/api/notifications/send")
     void sendNotification(@RequestBody Map<String, Object> notification);
+
+    // Cùng định dạng từng phần tử như /send; dùng bởi NotificationOutboxWorker
+    @PostMapping("/api/notifications/send-batch")
+    void sendNotifications(@RequestBody List<Map<String, Object>> notifications);
 }
 
@@ -0,0 +1,112 @@
+package com.chatapp.friend_service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Lưu trữ bạn bè dạng 1 dòng / cặp (friend_pairs), thay cho 2 dòng A->B, B->A trong friendships.
+ * ddl-auto: update chỉ tạo bảng + khoá chính, phần còn lại tạo ở đây:
+ * - Index covering 2 chiều (INCLUDE created_at): danh sách bạn của X là index-only scan dù X nằm ở cột nào
+ * - View friend_edges: 2 chiều của mỗi cặp (user_id, friend_id) cho các câu SQL theo kiểu adjacency.
+ *   Điều kiện user_id = ? được đẩy xuống từng nhánh UNION ALL, mỗi nhánh đi 1 index
+ * - CHECK user_low < user_high theo collation "C" (thứ tự byte, giống FriendPair.of): cặp ghi theo thứ tự
+ *   collation của DB sẽ có 2 khoá khác nhau cho cùng 1 cặp. Lần đầu thêm CHECK thì đảo lại các dòng sai thứ tự
+ * - Chuyển dữ liệu: chép các cặp ACCEPTED từ friendships, CHỈ 1 LẦN (đánh dấu trong friend_pair_migrations).
+ *   Bảng friendships được giữ nguyên và vẫn được ghi song song khi friendship.legacy-dual-write = true,
+ *   để instance bản cũ trong lúc rolling deploy (và rollback) vẫn thấy đủ dữ liệu.
+ *   Tắt dual-write thì friendships không còn được xoá theo -> chép lại sẽ hồi sinh các cặp đã huỷ kết bạn,
+ *   nên không bao giờ chép khi dual-write đã tắt (thứ tự rollout: xem README)
+ */
+@Slf4j
+@Component
+public class FriendPairIndexInitializer {
+
+    private static final List<String> STATEMENTS = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_friend_pairs_low_high ON friend_pairs (user_low, user_high) INCLUDE (created_at)",
+            "CREATE INDEX IF NOT EXISTS idx_friend_pairs_high_low ON friend_pairs (user_high, user_low) INCLUDE (created_at)",
+            "CREATE OR REPLACE VIEW friend_edges AS " +
+                    "SELECT user_low AS user_id, user_high AS friend_id, created_at FROM friend_pairs " +
+                    "UNION ALL " +
+                    "SELECT user_high AS user_id, user_low AS friend_id, created_at FROM friend_pairs",
+            "CREATE TABLE IF NOT EXISTS friend_pair_migrations (name VARCHAR(100) PRIMARY KEY, applied_at TIMESTAMP NOT NULL)",
+            "DO $$ BEGIN " +
+                    "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'chk_friend_pairs_order') THEN " +
+                    "INSERT INTO friend_pairs (user_low, user_high, created_at) " +
+                    "SELECT user_high, user_low, created_at FROM friend_pairs WHERE user_low COLLATE \"C\" > user_high " +
+                    "ON CONFLICT DO NOTHING; " +
+                    "DELETE FROM friend_pairs WHERE user_low COLLATE \"C\" >= user_high; " +
+                    "ALTER TABLE friend_pairs ADD CONSTRAINT chk_friend_pairs_order CHECK (user_low COLLATE \"C\" < user_high); " +
+                    "END IF; " +
+                    "END $$"
+    );
+
+    private static final String BACKFILL_MARKER = "friendships-backfill";
+
+    // Chỉ 1 instance ghi được marker (khoá chính); instance khác chờ transaction đó commit rồi bỏ qua
+    private static final String CLAIM_BACKFILL =
+            "INSERT INTO friend_pair_migrations (name, applied_at) VALUES (?, now()) ON CONFLICT DO NOTHING";
+
+    private static final String BACKFILL =
+            "INSERT INTO friend_pairs (user_low, user_high, created_at) " +
+            "SELECT LEAST(user_id COLLATE \"C\", friend_id), GREATEST(user_id COLLATE \"C\", friend_id), MIN(created_at) " +
+            "FROM friendships WHERE status = 'ACCEPTED' AND user_id <> friend_id " +
+            "GROUP BY 1, 2 " +
+            "ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${friendship.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${friendship.legacy-dual-write:true}")
+    private boolean legacyDualWrite;
+
+    public FriendPairIndexInitializer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Trước SocialGraphIndex (đọc friend_pairs đã backfill)
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        for (String sql : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (Exception e) {
+                log.warn("Could not run '{}': {}", sql, e.getMessage());
+            }
+        }
+        if (!backfillOnStartup) {
+            return;
+        }
+        if (!legacyDualWrite) {
+            log.warn("Skipping friend pair backfill: friendship.legacy-dual-write is off, friendships may hold removed pairs");
+            return;
+        }
+        try {
+            Integer copied = transactionTemplate.execute(status -> {
+                if (jdbcTemplate.update(CLAIM_BACKFILL, BACKFILL_MARKER) == 0) {
+                    return null;
+                }
+                return jdbcTemplate.update(BACKFILL);
+            });
+            if (copied == null) {
+                log.info("Friend pair backfill already applied, skipping");
+            } else {
+                log.info("Backfilled {} friend pairs from friendships", copied);
+            }
+        } catch (Exception e) {
+            log.error("Friend pair backfill failed", e);
+        }
+    }
+}
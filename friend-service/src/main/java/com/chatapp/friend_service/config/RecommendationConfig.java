@@ -0,0 +1,31 @@
+package com.chatapp.friend_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class RecommendationConfig {
+
+    /**
+     * Pool tính lại gợi ý sau khi đồ thị bạn bè thay đổi (accept / unfriend / block), chạy sau commit
+     * để request không phải chờ. Hàng đợi đầy -> chạy luôn trên thread gọi (tự hãm tốc độ, không mất việc).
+     */
+    @Bean(name = "recommendationExecutor")
+    public ThreadPoolTaskExecutor recommendationExecutor(
+            @Value("${recommendation.refresh.threads:2}") int threads,
+            @Value("${recommendation.refresh.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("recommendation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
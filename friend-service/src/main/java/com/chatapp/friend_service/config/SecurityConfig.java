@@ -1,5 +1,6 @@
 package com.chatapp.friend_service.config;
 
+import com.chatapp.friend_service.security.InternalTokenFilter;
 import com.chatapp.friend_service.security.JwtFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,9 +16,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtFilter jwtFilter;
+    private final InternalTokenFilter internalTokenFilter;
 
-    public SecurityConfig(JwtFilter jwtFilter) {
+    public SecurityConfig(JwtFilter jwtFilter, InternalTokenFilter internalTokenFilter) {
         this.jwtFilter = jwtFilter;
+        this.internalTokenFilter = internalTokenFilter;
     }
 
     @Bean
@@ -25,10 +28,14 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        // All endpoints require authentication
+                        // Internal service-to-service endpoints (Gateway KHÔNG route /internal/** ra ngoài);
+                        // không cần JWT nhưng phải có X-Internal-Token (InternalTokenFilter)
+                        .requestMatchers("/internal/**").permitAll()
+                        // All other endpoints require authentication
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(internalTokenFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,41 @@
+package com.chatapp.friend_service.config;
+
+import com.chatapp.friend_service.dto.FriendshipEventDTO;
+import com.chatapp.friend_service.service.SocialGraphIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Lắng nghe thay đổi bạn bè do các instance friend-service khác phát (FriendshipEventPublisher),
+ * cập nhật {@link SocialGraphIndex} của instance này. Chỉ đăng ký khi social-graph.enabled.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "social-graph.enabled", havingValue = "true")
+public class SocialGraphEventConfig {
+
+    @Bean
+    public RedisMessageListenerContainer socialGraphListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            SocialGraphIndex socialGraphIndex,
+            ObjectMapper objectMapper,
+            @Value("${social-graph.channel:friend:friendship-events}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            try {
+                socialGraphIndex.onEvent(objectMapper.readValue(message.getBody(), FriendshipEventDTO.class));
+            } catch (Exception e) {
+                log.warn("Invalid friendship event: {}", e.getMessage());
+            }
+        }, new ChannelTopic(channel));
+        return container;
+    }
+}
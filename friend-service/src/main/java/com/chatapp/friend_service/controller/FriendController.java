@@ -1,14 +1,18 @@
 package com.chatapp.friend_service.controller;
 
+import com.chatapp.friend_service.dto.BulkResultDTO;
 import com.chatapp.friend_service.dto.FriendDTO;
+import com.chatapp.friend_service.dto.FriendPageDTO;
 import com.chatapp.friend_service.dto.FriendStatusDTO;
 import com.chatapp.friend_service.service.BlockedUserService;
 import com.chatapp.friend_service.service.FriendService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/friends")
@@ -18,9 +22,25 @@ public class FriendController {
     private final FriendService friendService;
     private final BlockedUserService blockedUserService;
 
+    @Value("${friends.status.max-batch-size:200}")
+    private int maxStatusBatchSize;
+
+    @Value("${friends.bulk.max-size:100}")
+    private int maxBulkSize;
+
+    /**
+     * GET /api/friends?sort=recent|name&page=0&size=50
+     * Không truyền size: trả toàn bộ danh sách. Tổng số bạn bè trong header X-Total-Count.
+     */
     @GetMapping
-    public ResponseEntity<List<FriendDTO>> getFriends() {
-        return ResponseEntity.ok(friendService.getFriends());
+    public ResponseEntity<List<FriendDTO>> getFriends(
+            @RequestParam(defaultValue = "recent") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        FriendPageDTO result = friendService.getFriends(sort, page, size);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(result.getTotal()))
+                .body(result.getItems());
     }
 
     @GetMapping("/{friendId}/status")
@@ -28,6 +48,21 @@ public class FriendController {
         return ResponseEntity.ok(friendService.getFriendStatus(friendId));
     }
 
+    /**
+     * POST /api/friends/status/batch
+     * Nhận danh sách userId, trả trạng thái quan hệ với từng người (cùng thứ tự, đã bỏ trùng) trong 1 câu SQL.
+     */
+    @PostMapping("/status/batch")
+    public ResponseEntity<List<FriendStatusDTO>> getFriendStatuses(@RequestBody List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (userIds.size() > maxStatusBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(friendService.getFriendStatuses(userIds));
+    }
+
     @DeleteMapping("/{friendId}")
     public ResponseEntity<Void> unfriend(@PathVariable String friendId) {
         friendService.unfriend(friendId);
@@ -48,9 +83,41 @@ public class FriendController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * POST /api/friends/block/bulk?reason=..., body: danh sách userId
+     * POST /api/friends/unblock/bulk, body: danh sách userId
+     * Id đã chặn / chưa chặn nằm trong failed kèm lý do.
+     */
+    @PostMapping("/block/bulk")
+    public ResponseEntity<BulkResultDTO> blockUsers(
+            @RequestBody List<String> userIds,
+            @RequestParam(required = false) String reason) {
+        if (userIds == null || userIds.isEmpty()) {
+            return ResponseEntity.ok(emptyBulkResult());
+        }
+        if (userIds.size() > maxBulkSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(blockedUserService.blockUsers(userIds, reason));
+    }
+
+    @PostMapping("/unblock/bulk")
+    public ResponseEntity<BulkResultDTO> unblockUsers(@RequestBody List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return ResponseEntity.ok(emptyBulkResult());
+        }
+        if (userIds.size() > maxBulkSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(blockedUserService.unblockUsers(userIds));
+    }
+
     @GetMapping("/blocked")
     public ResponseEntity<List<?>> getBlockedUsers() {
         return ResponseEntity.ok(blockedUserService.getBlockedUsers());
     }
-}
 
+    private static BulkResultDTO emptyBulkResult() {
+        return BulkResultDTO.builder().succeeded(List.of()).failed(Map.of()).build();
+    }
+}
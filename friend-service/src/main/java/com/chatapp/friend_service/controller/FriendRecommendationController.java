@@ -17,8 +17,9 @@ public class FriendRecommendationController {
     private final RecommendationService recommendationService;
 
     @GetMapping("/recommendations")
-    public ResponseEntity<List<RecommendationDTO>> getRecommendations() {
-        return ResponseEntity.ok(recommendationService.getRecommendations());
+    public ResponseEntity<List<RecommendationDTO>> getRecommendations(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(recommendationService.getRecommendations(limit));
     }
 
     @GetMapping("/search")
@@ -1,14 +1,19 @@
 package com.chatapp.friend_service.controller;
 
+import com.chatapp.friend_service.dto.BulkFriendRequestDTO;
+import com.chatapp.friend_service.dto.BulkResultDTO;
 import com.chatapp.friend_service.dto.FriendRequestDTO;
+import com.chatapp.friend_service.dto.FriendRequestPageDTO;
 import com.chatapp.friend_service.dto.FriendResponseDTO;
 import com.chatapp.friend_service.service.FriendRequestService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/friends/requests")
@@ -17,19 +22,50 @@ public class FriendRequestController {
 
     private final FriendRequestService friendRequestService;
 
+    @Value("${friends.bulk.max-size:100}")
+    private int maxBulkSize;
+
     @PostMapping("/send")
     public ResponseEntity<FriendResponseDTO> sendFriendRequest(@Valid @RequestBody FriendRequestDTO requestDTO) {
         return ResponseEntity.ok(friendRequestService.sendFriendRequest(requestDTO));
     }
 
+    /**
+     * POST /api/friends/requests/send/bulk
+     * Gửi lời mời tới nhiều người (vd. mời danh bạ). Người nhận không hợp lệ nằm trong failed kèm lý do.
+     */
+    @PostMapping("/send/bulk")
+    public ResponseEntity<BulkResultDTO> sendFriendRequests(@Valid @RequestBody BulkFriendRequestDTO requestDTO) {
+        if (requestDTO.getReceiverIds().size() > maxBulkSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(friendRequestService.sendFriendRequests(requestDTO));
+    }
+
+    /**
+     * GET /api/friends/requests/received?limit=20&cursor=...
+     * Lời mời PENDING gửi tới mình, mới nhất trước, kèm hồ sơ người gửi.
+     * Trang tiếp theo: gửi lại giá trị header X-Next-Cursor qua ?cursor= (không có header = hết)
+     */
     @GetMapping("/received")
-    public ResponseEntity<List<FriendResponseDTO>> getReceivedRequests() {
-        return ResponseEntity.ok(friendRequestService.getReceivedRequests());
+    public ResponseEntity<List<FriendResponseDTO>> getReceivedRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return toResponse(friendRequestService.getReceivedRequests(cursor, limit));
     }
 
+    // GET /api/friends/requests/sent?limit=20&cursor=... (cùng cách phân trang với /received)
     @GetMapping("/sent")
-    public ResponseEntity<List<FriendResponseDTO>> getSentRequests() {
-        return ResponseEntity.ok(friendRequestService.getSentRequests());
+    public ResponseEntity<List<FriendResponseDTO>> getSentRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return toResponse(friendRequestService.getSentRequests(cursor, limit));
+    }
+
+    // Số lời mời đang chờ, cho badge
+    @GetMapping("/received/count")
+    public ResponseEntity<Map<String, Long>> countReceivedRequests() {
+        return ResponseEntity.ok(Map.of("count", friendRequestService.countPendingReceived()));
     }
 
     @PutMapping("/{requestId}/accept")
@@ -38,6 +74,18 @@ public class FriendRequestController {
         return ResponseEntity.ok().build();
     }
 
+    // PUT /api/friends/requests/accept/bulk, body: danh sách requestId
+    @PutMapping("/accept/bulk")
+    public ResponseEntity<BulkResultDTO> acceptRequests(@RequestBody List<String> requestIds) {
+        if (requestIds == null || requestIds.isEmpty()) {
+            return ResponseEntity.ok(BulkResultDTO.builder().succeeded(List.of()).failed(Map.of()).build());
+        }
+        if (requestIds.size() > maxBulkSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(friendRequestService.acceptRequests(requestIds));
+    }
+
     @PutMapping("/{requestId}/reject")
     public ResponseEntity<Void> rejectRequest(@PathVariable String requestId) {
         friendRequestService.rejectRequest(requestId);
@@ -49,5 +97,13 @@ public class FriendRequestController {
         friendRequestService.cancelRequest(requestId);
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity<List<FriendResponseDTO>> toResponse(FriendRequestPageDTO page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
 }
 
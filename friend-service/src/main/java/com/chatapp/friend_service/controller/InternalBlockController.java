@@ -0,0 +1,48 @@
+package com.chatapp.friend_service.controller;
+
+import com.chatapp.friend_service.dto.BlockDTO;
+import com.chatapp.friend_service.repository.BlockedUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Endpoint nội bộ cho các service khác (không đi qua Gateway).
+ */
+@RestController
+@RequestMapping("/internal/blocks")
+@RequiredArgsConstructor
+public class InternalBlockController {
+
+    private final BlockedUserRepository blockedUserRepository;
+
+    @Value("${block-events.max-page-size:5000}")
+    private int maxPageSize;
+
+    /**
+     * GET /internal/blocks?after=&limit=1000
+     * Toàn bộ cặp chặn, phân trang keyset theo id (truyền id cuối trang trước qua ?after=).
+     * chat-service gọi lúc khởi động / nạp lại chỉ mục chặn; thay đổi sau đó đi qua block-events.
+     */
+    @GetMapping
+    public ResponseEntity<List<BlockDTO>> getBlocks(
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "1000") int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, maxPageSize)));
+        List<BlockDTO> blocks = blockedUserRepository.findByIdGreaterThanOrderById(after, page).stream()
+                .map(block -> BlockDTO.builder()
+                        .id(block.getId())
+                        .blockerId(block.getBlockerId())
+                        .blockedId(block.getBlockedId())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(blocks);
+    }
+}
@@ -0,0 +1,18 @@
+package com.chatapp.friend_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 1 cặp chặn cho GET /internal/blocks; id dùng làm cursor trang sau
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockDTO {
+
+    private String id;
+    private String blockerId;
+    private String blockedId;
+}
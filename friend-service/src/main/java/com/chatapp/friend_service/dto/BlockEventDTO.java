@@ -0,0 +1,25 @@
+package com.chatapp.friend_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Sự kiện chặn / bỏ chặn phát lên kênh block-events.channel (JSON), chat-service lắng nghe để cập nhật chỉ mục chặn.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockEventDTO {
+
+    public static final String BLOCKED = "BLOCKED";
+    public static final String UNBLOCKED = "UNBLOCKED";
+
+    private String type; // BLOCKED / UNBLOCKED
+    private String blockerId;
+    private List<String> blockedIds;
+}
@@ -0,0 +1,21 @@
+package com.chatapp.friend_service.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFriendRequestDTO {
+
+    @NotEmpty(message = "Receiver IDs are required")
+    private List<String> receiverIds;
+
+    private String message; // dùng chung cho mọi lời mời
+}
@@ -0,0 +1,22 @@
+package com.chatapp.friend_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả thao tác hàng loạt: phần tử lỗi không làm hỏng cả lô.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResultDTO {
+
+    private List<String> succeeded; // id (user / lời mời) đã xử lý
+    private Map<String, String> failed; // id -> lý do (cùng thông báo với endpoint đơn lẻ)
+}
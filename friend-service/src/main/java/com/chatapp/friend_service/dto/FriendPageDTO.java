@@ -0,0 +1,18 @@
+package com.chatapp.friend_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendPageDTO {
+
+    private List<FriendDTO> items;
+    private long total; // tổng số bạn bè, không phụ thuộc trang
+}
@@ -16,7 +16,13 @@ public class FriendResponseDTO {
 
     private String id;
     private String senderId;
+    private String senderUsername;
+    private String senderFullName;
+    private String senderAvatarUrl;
     private String receiverId;
+    private String receiverUsername;
+    private String receiverFullName;
+    private String receiverAvatarUrl;
     private RequestStatus status;
     private String message;
     private LocalDateTime createdAt;
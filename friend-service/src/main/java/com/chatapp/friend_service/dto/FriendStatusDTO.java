@@ -14,5 +14,7 @@ public class FriendStatusDTO {
     private String userId;
     private String status; // NOT_FRIENDS, PENDING_REQUEST, ARE_FRIENDS, BLOCKED
     private boolean canSendRequest;
+    private String requestDirection; // PENDING_REQUEST: OUTGOING (mình gửi) / INCOMING (người kia gửi)
+    private boolean blockedByMe; // BLOCKED: true = mình chặn, false = bị người kia chặn
 }
 
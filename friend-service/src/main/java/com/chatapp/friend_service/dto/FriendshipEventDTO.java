@@ -0,0 +1,29 @@
+package com.chatapp.friend_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sự kiện kết bạn / huỷ kết bạn phát lên kênh social-graph.channel (JSON) giữa các instance friend-service,
+ * để SocialGraphIndex của từng instance thấy cả lần ghi của instance khác.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendshipEventDTO {
+
+    public static final String ADDED = "ADDED";
+    public static final String REMOVED = "REMOVED";
+
+    private String type; // ADDED / REMOVED
+    private String userId;
+    private List<String> friendIds;
+    private LocalDateTime createdAt; // ADDED: thời điểm kết bạn
+    private String origin; // instance phát sự kiện (tự bỏ qua sự kiện của mình)
+}
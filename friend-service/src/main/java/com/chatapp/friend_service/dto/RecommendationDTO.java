@@ -14,7 +14,9 @@ import java.util.List;
 public class RecommendationDTO {
 
     private UserDTO user;
+    // Id các bạn chung (đã sắp xếp); số lượng ở mutualFriendCount
     private List<String> mutualFriends;
+    private long mutualFriendCount;
     private String reason;
 }
 
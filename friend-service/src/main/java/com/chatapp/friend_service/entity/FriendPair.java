@@ -0,0 +1,67 @@
+package com.chatapp.friend_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * 1 dòng / cặp bạn bè (không phân chiều): userLow < userHigh theo thứ tự byte UTF-8 = collation "C" của Postgres
+ * (String.compareTo so UTF-16 nên có thể lệch với ký tự ngoài BMP). Các câu SQL trong FriendPairRepository
+ * và CHECK chk_friend_pairs_order dùng đúng thứ tự này.
+ * Khoá chính (user_low, user_high) + index (user_high, user_low), xem FriendPairIndexInitializer.
+ * Đọc theo chiều "bạn của X" qua view friend_edges.
+ */
+@Entity
+@Table(name = "friend_pairs")
+@IdClass(FriendPair.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendPair {
+
+    @Id
+    @Column(name = "user_low", nullable = false)
+    private String userLow;
+
+    @Id
+    @Column(name = "user_high", nullable = false)
+    private String userHigh;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public static FriendPair of(String a, String b) {
+        boolean ordered = compareIds(a, b) < 0;
+        return FriendPair.builder()
+                .userLow(ordered ? a : b)
+                .userHigh(ordered ? b : a)
+                .build();
+    }
+
+    public static Key keyOf(String a, String b) {
+        return compareIds(a, b) < 0 ? new Key(a, b) : new Key(b, a);
+    }
+
+    // Giống COLLATE "C" trên DB UTF-8: so từng byte không dấu
+    public static int compareIds(String a, String b) {
+        return Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String userLow;
+        private String userHigh;
+    }
+}
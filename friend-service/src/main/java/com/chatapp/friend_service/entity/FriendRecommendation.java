@@ -0,0 +1,46 @@
+package com.chatapp.friend_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Gợi ý kết bạn đã tính sẵn cho 1 user (1 dòng / user, danh sách ứng viên lưu dạng jsonb).
+ * Chỉ phụ thuộc vào đồ thị bạn bè; lời mời PENDING và chặn được lọc lúc đọc.
+ */
+@Entity
+@Table(name = "friend_recommendations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendRecommendation {
+
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    // Đã xếp theo số bạn chung giảm dần
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private List<Candidate> candidates;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Candidate {
+        private String candidateId;
+        private long mutualCount;
+        private List<String> mutualFriendIds;
+    }
+}
@@ -14,6 +14,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "friend_requests", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"sender_id", "receiver_id"})
+}, indexes = {
+    // Hộp thư đến / đi phân trang keyset: WHERE receiver_id = ? AND status = ? AND (created_at, id) < (?, ?)
+    @Index(name = "idx_friend_requests_receiver_status_created", columnList = "receiver_id, status, created_at, id"),
+    @Index(name = "idx_friend_requests_sender_status_created", columnList = "sender_id, status, created_at, id")
 })
 @Data
 @Builder
@@ -0,0 +1,60 @@
+package com.chatapp.friend_service.entity;
+
+import com.chatapp.friend_service.enums.NotificationOutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Thông báo chờ gửi sang notification-service, ghi CÙNG transaction với thao tác sinh ra nó
+ * (gửi / chấp nhận lời mời). NotificationOutboxWorker gửi theo lô sau commit; notification-service
+ * sập thì thông báo nằm chờ ở đây thay vì bị mất.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        // Worker: WHERE status = 'PENDING' AND next_attempt_at <= now() ORDER BY next_attempt_at
+        @Index(name = "idx_notification_outbox_status_next", columnList = "status, nextAttemptAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false)
+    private String recipientId;
+
+    // Body gửi nguyên cho POST /api/notifications/send-batch
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private Map<String, Object> payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private NotificationOutboxStatus status;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    private LocalDateTime nextAttemptAt;
+
+    // Worker đang giữ bản ghi tới thời điểm này (nhiều instance không gửi trùng)
+    private LocalDateTime lockedUntil;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,7 @@
+package com.chatapp.friend_service.enums;
+
+public enum NotificationOutboxStatus {
+    PENDING, // Chờ gửi (hoặc chờ thử lại tới nextAttemptAt)
+    SENT,    // notification-service đã nhận
+    FAILED   // Hết số lần thử, bỏ cuộc
+}
@@ -1,9 +1,14 @@
 package com.chatapp.friend_service.repository;
 
 import com.chatapp.friend_service.entity.BlockedUser;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,5 +24,16 @@ public interface BlockedUserRepository extends JpaRepository<BlockedUser, String
     void deleteByBlockerIdAndBlockedId(String blockerId, String blockedId);
 
     boolean existsByBlockerIdAndBlockedId(String blockerId, String blockedId);
+
+    // Keyset qua toàn bộ bảng cho GET /internal/blocks
+    List<BlockedUser> findByIdGreaterThanOrderById(String after, Pageable pageable);
+
+    // Bỏ chặn hàng loạt: những id đang bị chặn trong danh sách, rồi xoá bằng 1 câu
+    @Query("SELECT b.blockedId FROM BlockedUser b WHERE b.blockerId = :blockerId AND b.blockedId IN :blockedIds")
+    List<String> findBlockedIdsIn(@Param("blockerId") String blockerId, @Param("blockedIds") Collection<String> blockedIds);
+
+    @Modifying
+    @Query("DELETE FROM BlockedUser b WHERE b.blockerId = :blockerId AND b.blockedId IN :blockedIds")
+    int deleteByBlockerIdAndBlockedIdIn(@Param("blockerId") String blockerId, @Param("blockedIds") Collection<String> blockedIds);
 }
 
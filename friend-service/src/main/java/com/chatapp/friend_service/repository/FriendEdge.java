@@ -0,0 +1,13 @@
+package com.chatapp.friend_service.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 1 dòng của view friend_edges: 1 người bạn của user và thời điểm kết bạn.
+ */
+public interface FriendEdge {
+
+    String getFriendId();
+
+    LocalDateTime getCreatedAt();
+}
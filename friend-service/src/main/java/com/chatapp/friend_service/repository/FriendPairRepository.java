@@ -0,0 +1,96 @@
+package com.chatapp.friend_service.repository;
+
+import com.chatapp.friend_service.entity.FriendPair;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Đồ thị bạn bè trên friend_pairs (1 dòng / cặp). Truy vấn theo chiều "bạn của X" đi qua view friend_edges;
+ * kiểm tra 1 cặp dùng thẳng khoá (user_low, user_high).
+ * <p>
+ * Thứ tự low/high luôn theo collation "C" (so byte, giống {@link FriendPair#of}), không theo collation của DB.
+ * Viết bằng CASE thay cho LEAST(... COLLATE "C"): COLLATE tường minh lan ra phép so sánh với p.user_low
+ * và Postgres sẽ không dùng được khoá chính (collation mặc định) nữa.
+ */
+@Repository
+public interface FriendPairRepository extends JpaRepository<FriendPair, FriendPair.Key> {
+
+    @Modifying
+    @Query("DELETE FROM FriendPair p WHERE p.userLow = :userLow AND p.userHigh = :userHigh")
+    int deletePair(@Param("userLow") String userLow, @Param("userHigh") String userHigh);
+
+    // Mọi cặp giữa userId và otherIds, bất kể userId nằm ở cột nào
+    @Modifying
+    @Query("DELETE FROM FriendPair p WHERE (p.userLow = :userId AND p.userHigh IN :otherIds) " +
+            "OR (p.userHigh = :userId AND p.userLow IN :otherIds)")
+    int deletePairsOf(@Param("userId") String userId, @Param("otherIds") Collection<String> otherIds);
+
+    @Query(value = "SELECT friend_id AS friendId, created_at AS createdAt FROM friend_edges WHERE user_id = :userId",
+            nativeQuery = true)
+    List<FriendEdge> findEdges(@Param("userId") String userId);
+
+    // Kết bạn gần nhất trước
+    @Query(value = "SELECT friend_id AS friendId, created_at AS createdAt FROM friend_edges " +
+            "WHERE user_id = :userId ORDER BY created_at DESC, friend_id",
+            countQuery = "SELECT COUNT(*) FROM friend_edges WHERE user_id = :userId",
+            nativeQuery = true)
+    Page<FriendEdge> findEdges(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Ứng viên gợi ý kết bạn bằng 1 câu self-join: bạn (f1) của user -> bạn của bạn (f2),
+     * bỏ chính user và người đã là bạn, xếp theo số bạn chung giảm dần.
+     * Chỉ phụ thuộc vào đồ thị bạn bè nên lưu được vào friend_recommendations;
+     * lời mời PENDING và chặn lọc lúc đọc ({@link FriendRecommendationRepository#findExcludedCandidateIds}).
+     */
+    @Query(value = "SELECT f2.friend_id AS candidateId, " +
+            "       COUNT(*) AS mutualCount, " +
+            "       string_agg(f1.friend_id, ',' ORDER BY f1.friend_id) AS mutualFriendIds " +
+            "FROM friend_edges f1 " +
+            "JOIN friend_edges f2 ON f2.user_id = f1.friend_id " +
+            "WHERE f1.user_id = :userId " +
+            "  AND f2.friend_id <> :userId " +
+            "  AND NOT EXISTS (SELECT 1 FROM friend_pairs p " +
+            "                  WHERE p.user_low = CASE WHEN :userId < f2.friend_id COLLATE \"C\" THEN :userId ELSE f2.friend_id END " +
+            "                    AND p.user_high = CASE WHEN :userId < f2.friend_id COLLATE \"C\" THEN f2.friend_id ELSE :userId END) " +
+            "GROUP BY f2.friend_id " +
+            "ORDER BY mutualCount DESC, candidateId " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<RecommendationCandidate> computeRecommendationCandidates(@Param("userId") String userId,
+                                                                  @Param("limit") int limit);
+
+    // Keyset qua các user có bạn bè, cho lần rebuild toàn bộ friend_recommendations
+    @Query(value = "SELECT DISTINCT user_id FROM friend_edges WHERE user_id > :after ORDER BY user_id LIMIT :limit",
+            nativeQuery = true)
+    List<String> findUserIdsAfter(@Param("after") String after, @Param("limit") int limit);
+
+    /**
+     * Toàn bộ quan hệ giữa user và từng id trong targetIds trong 1 câu SQL:
+     * bạn bè, lời mời theo 2 chiều, chặn theo 2 chiều. Mỗi id 1 dòng (kể cả khi không có quan hệ nào);
+     * các subquery đều đi qua khoá / unique index (user_low, user_high) / (sender_id, receiver_id) / (blocker_id, blocked_id).
+     */
+    @Query(value = "SELECT t.id AS targetId, " +
+            "       EXISTS (SELECT 1 FROM friend_pairs p " +
+            "               WHERE p.user_low = CASE WHEN :userId < t.id COLLATE \"C\" THEN :userId ELSE t.id END " +
+            "                 AND p.user_high = CASE WHEN :userId < t.id COLLATE \"C\" THEN t.id ELSE :userId END) AS friends, " +
+            "       (SELECT r.status FROM friend_requests r " +
+            "        WHERE r.sender_id = :userId AND r.receiver_id = t.id) AS outgoingStatus, " +
+            "       (SELECT r.status FROM friend_requests r " +
+            "        WHERE r.sender_id = t.id AND r.receiver_id = :userId) AS incomingStatus, " +
+            "       EXISTS (SELECT 1 FROM blocked_users b " +
+            "               WHERE b.blocker_id = :userId AND b.blocked_id = t.id) AS blockedByMe, " +
+            "       EXISTS (SELECT 1 FROM blocked_users b " +
+            "               WHERE b.blocker_id = t.id AND b.blocked_id = :userId) AS blockedMe " +
+            "FROM unnest(CAST(ARRAY[:targetIds] AS varchar[])) AS t(id)",
+            nativeQuery = true)
+    List<RelationshipRow> findRelationships(@Param("userId") String userId,
+                                            @Param("targetIds") Collection<String> targetIds);
+}
@@ -0,0 +1,53 @@
+package com.chatapp.friend_service.repository;
+
+import com.chatapp.friend_service.entity.FriendRecommendation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FriendRecommendationRepository extends JpaRepository<FriendRecommendation, String> {
+
+    /**
+     * Xoá gợi ý đã lưu của bạn bè các user trong danh sách: khi A và B kết bạn / huỷ kết bạn,
+     * số bạn chung của bạn bè A (với B) và bạn bè B (với A) thay đổi. Lần GET sau sẽ tính lại.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM friend_recommendations WHERE user_id IN (" +
+            "SELECT f.friend_id FROM friend_edges f WHERE f.user_id IN (:userIds))",
+            nativeQuery = true)
+    int deleteForFriendsOf(@Param("userIds") Collection<String> userIds);
+
+    // Dòng không được rebuild chạm tới (user không còn bạn nào) -> bỏ
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FriendRecommendation r WHERE r.computedAt < :before")
+    int deleteComputedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Trong các ứng viên, những ai hiện KHÔNG được gợi ý: đã là bạn, có lời mời PENDING
+     * hoặc chặn theo bất kỳ chiều nào. 1 round trip cho cả danh sách.
+     */
+    @Query(value = "SELECT f.friend_id FROM friend_edges f " +
+            "WHERE f.user_id = :userId AND f.friend_id IN (:ids) " +
+            "UNION " +
+            "SELECT r.receiver_id FROM friend_requests r " +
+            "WHERE r.sender_id = :userId AND r.receiver_id IN (:ids) AND r.status = 'PENDING' " +
+            "UNION " +
+            "SELECT r.sender_id FROM friend_requests r " +
+            "WHERE r.receiver_id = :userId AND r.sender_id IN (:ids) AND r.status = 'PENDING' " +
+            "UNION " +
+            "SELECT b.blocked_id FROM blocked_users b WHERE b.blocker_id = :userId AND b.blocked_id IN (:ids) " +
+            "UNION " +
+            "SELECT b.blocker_id FROM blocked_users b WHERE b.blocked_id = :userId AND b.blocker_id IN (:ids)",
+            nativeQuery = true)
+    List<String> findExcludedCandidateIds(@Param("userId") String userId, @Param("ids") Collection<String> ids);
+}
@@ -2,9 +2,13 @@ package com.chatapp.friend_service.repository;
 
 import com.chatapp.friend_service.entity.FriendRequest;
 import com.chatapp.friend_service.enums.RequestStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +21,35 @@ public interface FriendRequestRepository extends JpaRepository<FriendRequest, St
 
     List<FriendRequest> findBySenderIdAndStatus(String senderId, RequestStatus status);
 
+    // Badge số lời mời chờ: đếm trên index (receiver_id, status, created_at, id)
+    long countByReceiverIdAndStatus(String receiverId, RequestStatus status);
+
+    // Trang đầu hộp thư đến / đi (mới nhất trước)
+    List<FriendRequest> findByReceiverIdAndStatusOrderByCreatedAtDescIdDesc(String receiverId, RequestStatus status,
+                                                                           Pageable pageable);
+
+    List<FriendRequest> findBySenderIdAndStatusOrderByCreatedAtDescIdDesc(String senderId, RequestStatus status,
+                                                                         Pageable pageable);
+
+    // Các trang sau: keyset (createdAt, id) thay cho OFFSET
+    @Query("SELECT r FROM FriendRequest r WHERE r.receiverId = :userId AND r.status = :status " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<FriendRequest> findReceivedAfter(@Param("userId") String userId,
+                                          @Param("status") RequestStatus status,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") String id,
+                                          Pageable pageable);
+
+    @Query("SELECT r FROM FriendRequest r WHERE r.senderId = :userId AND r.status = :status " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<FriendRequest> findSentAfter(@Param("userId") String userId,
+                                      @Param("status") RequestStatus status,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") String id,
+                                      Pageable pageable);
+
     void deleteById(String requestId);
 
     boolean existsBySenderIdAndReceiverId(String senderId, String receiverId);
@@ -3,11 +3,19 @@ package com.chatapp.friend_service.repository;
 import com.chatapp.friend_service.entity.Friendship;
 import com.chatapp.friend_service.enums.FriendStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Bảng cũ friendships (2 dòng / cặp). Chỉ còn được ghi song song khi friendship.legacy-dual-write = true;
+ * mọi truy vấn đọc đi qua {@link FriendPairRepository}.
+ */
 @Repository
 public interface FriendshipRepository extends JpaRepository<Friendship, String> {
 
@@ -19,6 +27,11 @@ public interface FriendshipRepository extends JpaRepository<Friendship, String>
 
     void deleteByUserIdAndFriendId(String userId, String friendId);
 
+    // Cả 2 chiều giữa userId và otherIds trong 1 câu
+    @Modifying
+    @Query("DELETE FROM Friendship f WHERE (f.userId = :userId AND f.friendId IN :otherIds) " +
+            "OR (f.friendId = :userId AND f.userId IN :otherIds)")
+    int deleteAllBetween(@Param("userId") String userId, @Param("otherIds") Collection<String> otherIds);
+
     boolean existsByUserIdAndFriendId(String userId, String friendId);
 }
-
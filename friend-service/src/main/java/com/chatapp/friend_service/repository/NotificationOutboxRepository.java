@@ -0,0 +1,31 @@
+package com.chatapp.friend_service.repository;
+
+import com.chatapp.friend_service.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, String> {
+
+    // Lô thông báo đến hạn gửi; SKIP LOCKED: instance khác đang giữ dòng nào thì bỏ qua dòng đó
+    // (gọi trong transaction, xem NotificationOutboxWorker.claimBatch)
+    @Query(value = "SELECT * FROM notification_outbox " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "AND (locked_until IS NULL OR locked_until < :now) " +
+            "ORDER BY next_attempt_at " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<NotificationOutbox> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox n WHERE n.status = com.chatapp.friend_service.enums.NotificationOutboxStatus.SENT AND n.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
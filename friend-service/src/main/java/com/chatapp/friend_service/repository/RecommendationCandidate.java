@@ -0,0 +1,14 @@
+package com.chatapp.friend_service.repository;
+
+/**
+ * 1 dòng kết quả của {@link FriendPairRepository#computeRecommendationCandidates}:
+ * ứng viên, số bạn chung và danh sách id bạn chung (phân tách bằng dấu phẩy).
+ */
+public interface RecommendationCandidate {
+
+    String getCandidateId();
+
+    long getMutualCount();
+
+    String getMutualFriendIds();
+}
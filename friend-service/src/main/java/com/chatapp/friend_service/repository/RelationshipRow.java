@@ -0,0 +1,20 @@
+package com.chatapp.friend_service.repository;
+
+/**
+ * 1 dòng kết quả của {@link FriendPairRepository#findRelationships}: quan hệ giữa user hiện tại và 1 user đích.
+ * outgoingStatus / incomingStatus là trạng thái lời mời mỗi chiều (PENDING / ACCEPTED / REJECTED), null nếu chưa có.
+ */
+public interface RelationshipRow {
+
+    String getTargetId();
+
+    Boolean getFriends();
+
+    String getOutgoingStatus();
+
+    String getIncomingStatus();
+
+    Boolean getBlockedByMe();
+
+    Boolean getBlockedMe();
+}
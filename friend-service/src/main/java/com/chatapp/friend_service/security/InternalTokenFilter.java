@@ -0,0 +1,54 @@
+package com.chatapp.friend_service.security;
+
+import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Bảo vệ /internal/** (service-to-service): Gateway không route các path này, nhưng port của service vẫn
+ * được publish trong docker-compose nên phải có header X-Internal-Token = internal.token
+ * (dùng chung giữa các service, biến môi trường INTERNAL_API_TOKEN). Chưa cấu hình token -> từ chối tất cả.
+ */
+@Slf4j
+@Component
+public class InternalTokenFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Internal-Token";
+
+    private final byte[] expectedToken;
+
+    public InternalTokenFilter(@Value("${internal.token:}") String token) {
+        this.expectedToken = token.getBytes(StandardCharsets.UTF_8);
+        if (token.isBlank()) {
+            log.warn("internal.token is not set, every /internal/** request will be rejected");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/internal/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String provided = request.getHeader(HEADER);
+        // So sánh thời gian hằng để không lộ token qua thời gian phản hồi
+        if (expectedToken.length == 0 || provided == null
+                || !MessageDigest.isEqual(expectedToken, provided.getBytes(StandardCharsets.UTF_8))) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
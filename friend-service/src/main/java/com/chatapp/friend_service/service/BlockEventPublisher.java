@@ -0,0 +1,72 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.dto.BlockEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Phát sự kiện chặn / bỏ chặn lên Redis pub/sub cho chat-service. Gọi trong transaction ghi blocked_users;
+ * sự kiện chỉ đi SAU KHI commit. Pub/sub không lưu lại tin: lỗi publish chỉ log,
+ * chat-service bù bằng lần nạp lại toàn bộ từ GET /internal/blocks.
+ */
+@Slf4j
+@Service
+public class BlockEventPublisher {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${block-events.channel:friend:block-events}")
+    private String channel;
+
+    public BlockEventPublisher(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void publishBlocked(String blockerId, Collection<String> blockedIds) {
+        publish(BlockEventDTO.BLOCKED, blockerId, blockedIds);
+    }
+
+    public void publishUnblocked(String blockerId, Collection<String> blockedIds) {
+        publish(BlockEventDTO.UNBLOCKED, blockerId, blockedIds);
+    }
+
+    private void publish(String type, String blockerId, Collection<String> blockedIds) {
+        if (blockedIds.isEmpty()) {
+            return;
+        }
+        BlockEventDTO event = BlockEventDTO.builder()
+                .type(type)
+                .blockerId(blockerId)
+                .blockedIds(List.copyOf(blockedIds))
+                .build();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    private void send(BlockEventDTO event) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            log.warn("Failed to publish {} event for {} ({} users): {}",
+                    event.getType(), event.getBlockerId(), event.getBlockedIds().size(), e.getMessage());
+        }
+    }
+}
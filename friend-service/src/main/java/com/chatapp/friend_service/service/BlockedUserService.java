@@ -1,16 +1,16 @@
 package com.chatapp.friend_service.service;
 
+import com.chatapp.friend_service.dto.BulkResultDTO;
 import com.chatapp.friend_service.entity.BlockedUser;
 import com.chatapp.friend_service.repository.BlockedUserRepository;
-import com.chatapp.friend_service.repository.FriendshipRepository;
+import com.chatapp.friend_service.repository.RelationshipRow;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 @Slf4j
 @Service
@@ -18,7 +18,10 @@ import java.util.UUID;
 public class BlockedUserService {
 
     private final BlockedUserRepository blockedUserRepository;
-    private final FriendshipRepository friendshipRepository;
+    private final FriendshipStore friendshipStore;
+    private final RecommendationCacheService recommendationCacheService;
+    private final RelationshipService relationshipService;
+    private final BlockEventPublisher blockEventPublisher;
 
     private String getCurrentUserId() {
         return SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
@@ -42,10 +45,14 @@ public class BlockedUserService {
                 .build();
 
         blockedUserRepository.save(blockedUser);
+        blockEventPublisher.publishBlocked(blockerId, List.of(blockedUserId));
 
         // Remove friendship if exists
-        friendshipRepository.deleteByUserIdAndFriendId(blockerId, blockedUserId);
-        friendshipRepository.deleteByUserIdAndFriendId(blockedUserId, blockerId);
+        boolean wereFriends = friendshipStore.remove(blockerId, blockedUserId);
+        // Chặn / bỏ chặn tự lọc lúc đọc gợi ý; chỉ cần tính lại khi đồ thị bạn bè đổi
+        if (wereFriends) {
+            recommendationCacheService.onFriendshipChanged(blockerId, blockedUserId);
+        }
     }
 
     @Transactional
@@ -53,6 +60,80 @@ public class BlockedUserService {
         String blockerId = getCurrentUserId();
 
         blockedUserRepository.deleteByBlockerIdAndBlockedId(blockerId, blockedUserId);
+        blockEventPublisher.publishUnblocked(blockerId, List.of(blockedUserId));
+    }
+
+    /**
+     * Chặn nhiều người: trạng thái chặn / bạn bè của cả danh sách lấy bằng 1 câu SQL,
+     * INSERT gom lô, huỷ kết bạn bằng 1 câu DELETE.
+     */
+    @Transactional
+    public BulkResultDTO blockUsers(List<String> blockedUserIds, String reason) {
+        String blockerId = getCurrentUserId();
+        Set<String> ids = new LinkedHashSet<>(blockedUserIds);
+        ids.remove(null);
+
+        Map<String, String> failed = new LinkedHashMap<>();
+        if (ids.remove(blockerId)) {
+            failed.put(blockerId, "Cannot block yourself");
+        }
+        Map<String, RelationshipRow> relationships = relationshipService.resolveAll(blockerId, ids);
+
+        List<BlockedUser> blocks = new ArrayList<>();
+        List<String> friendIds = new ArrayList<>();
+        for (String blockedUserId : ids) {
+            RelationshipRow relationship = relationships.get(blockedUserId);
+            if (Boolean.TRUE.equals(relationship.getBlockedByMe())) {
+                failed.put(blockedUserId, "User is already blocked");
+                continue;
+            }
+            // Không gán id: persist thẳng, không SELECT trước từng dòng
+            blocks.add(BlockedUser.builder()
+                    .blockerId(blockerId)
+                    .blockedId(blockedUserId)
+                    .reason(reason)
+                    .build());
+            if (Boolean.TRUE.equals(relationship.getFriends())) {
+                friendIds.add(blockedUserId);
+            }
+        }
+        blockedUserRepository.saveAll(blocks);
+        blockEventPublisher.publishBlocked(blockerId, blocks.stream().map(BlockedUser::getBlockedId).toList());
+
+        friendshipStore.removeAll(blockerId, friendIds);
+        if (!friendIds.isEmpty()) {
+            recommendationCacheService.onFriendshipsChanged(blockerId, friendIds);
+        }
+
+        return BulkResultDTO.builder()
+                .succeeded(blocks.stream().map(BlockedUser::getBlockedId).toList())
+                .failed(failed)
+                .build();
+    }
+
+    @Transactional
+    public BulkResultDTO unblockUsers(List<String> blockedUserIds) {
+        String blockerId = getCurrentUserId();
+        Set<String> ids = new LinkedHashSet<>(blockedUserIds);
+        ids.remove(null);
+
+        List<String> blocked = ids.isEmpty() ? List.of() : blockedUserRepository.findBlockedIdsIn(blockerId, ids);
+        if (!blocked.isEmpty()) {
+            blockedUserRepository.deleteByBlockerIdAndBlockedIdIn(blockerId, blocked);
+            blockEventPublisher.publishUnblocked(blockerId, blocked);
+        }
+
+        Map<String, String> failed = new LinkedHashMap<>();
+        Set<String> unblocked = new HashSet<>(blocked);
+        for (String id : ids) {
+            if (!unblocked.contains(id)) {
+                failed.put(id, "User is not blocked");
+            }
+        }
+        return BulkResultDTO.builder()
+                .succeeded(blocked)
+                .failed(failed)
+                .build();
     }
 
     public List<BlockedUser> getBlockedUsers() {
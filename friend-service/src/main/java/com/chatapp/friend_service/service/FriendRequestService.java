@@ -1,28 +1,31 @@
 package com.chatapp.friend_service.service;
 
 import com.chatapp.friend_service.client.AuthClient;
-import com.chatapp.friend_service.client.NotificationClient;
+import com.chatapp.friend_service.dto.BulkFriendRequestDTO;
+import com.chatapp.friend_service.dto.BulkResultDTO;
 import com.chatapp.friend_service.dto.FriendRequestDTO;
+import com.chatapp.friend_service.dto.FriendRequestPageDTO;
 import com.chatapp.friend_service.dto.FriendResponseDTO;
+import com.chatapp.friend_service.dto.UserDTO;
 import com.chatapp.friend_service.entity.FriendRequest;
-import com.chatapp.friend_service.entity.Friendship;
 import com.chatapp.friend_service.enums.RequestStatus;
 import com.chatapp.friend_service.exception.AlreadyFriendsException;
 import com.chatapp.friend_service.exception.RequestAlreadyExistsException;
 import com.chatapp.friend_service.exception.UserBlockedException;
-import com.chatapp.friend_service.repository.BlockedUserRepository;
 import com.chatapp.friend_service.repository.FriendRequestRepository;
-import com.chatapp.friend_service.repository.FriendshipRepository;
+import com.chatapp.friend_service.repository.RelationshipRow;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 @Slf4j
 @Service
@@ -30,10 +33,15 @@ import java.util.UUID;
 public class FriendRequestService {
 
     private final FriendRequestRepository friendRequestRepository;
-    private final FriendshipRepository friendshipRepository;
-    private final BlockedUserRepository blockedUserRepository;
+    private final FriendshipStore friendshipStore;
     private final AuthClient authClient;
-    private final NotificationClient notificationClient;
+    private final NotificationOutboxService notificationOutboxService;
+    private final RecommendationCacheService recommendationCacheService;
+    private final RelationshipService relationshipService;
+    private final UserProfileService userProfileService;
+
+    @Value("${friend-requests.max-page-size:100}")
+    private int maxPageSize;
 
     private String getCurrentUserId() {
         return SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
@@ -53,21 +61,15 @@ public class FriendRequestService {
             throw new RuntimeException("Receiver user not found");
         }
 
-        // Check if already friends
-        if (friendshipRepository.existsByUserIdAndFriendId(senderId, receiverId) ||
-            friendshipRepository.existsByUserIdAndFriendId(receiverId, senderId)) {
+        // Bạn bè / lời mời / chặn theo cả 2 chiều: 1 câu SQL
+        RelationshipRow relationship = relationshipService.resolve(senderId, receiverId);
+        if (Boolean.TRUE.equals(relationship.getFriends())) {
             throw new AlreadyFriendsException("You are already friends with this user");
         }
-
-        // Check if request already exists
-        if (friendRequestRepository.existsBySenderIdAndReceiverId(senderId, receiverId) ||
-            friendRequestRepository.existsBySenderIdAndReceiverId(receiverId, senderId)) {
+        if (relationship.getOutgoingStatus() != null || relationship.getIncomingStatus() != null) {
             throw new RequestAlreadyExistsException("Friend request already exists");
         }
-
-        // Check if blocked
-        if (blockedUserRepository.existsByBlockerIdAndBlockedId(senderId, receiverId) ||
-            blockedUserRepository.existsByBlockerIdAndBlockedId(receiverId, senderId)) {
+        if (Boolean.TRUE.equals(relationship.getBlockedByMe()) || Boolean.TRUE.equals(relationship.getBlockedMe())) {
             throw new UserBlockedException("Cannot send friend request - user is blocked");
         }
 
@@ -82,38 +84,157 @@ public class FriendRequestService {
 
         friendRequestRepository.save(friendRequest);
 
-        // Send notification
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("userId", receiverId);
-        notification.put("type", "FRIEND_REQUEST");
-        notification.put("title", "New Friend Request");
-        notification.put("message", "You have received a new friend request");
-        notification.put("data", Map.of(
-                "requestId", friendRequest.getId(),
-                "senderId", senderId
-        ));
+        // Thông báo ghi vào outbox cùng transaction, NotificationOutboxWorker gửi sau commit
+        notificationOutboxService.enqueue(receiverId, "FRIEND_REQUEST",
+                "New Friend Request", "You have received a new friend request",
+                Map.of(
+                        "requestId", friendRequest.getId(),
+                        "senderId", senderId
+                ));
 
-        try {
-            notificationClient.sendNotification(notification);
-        } catch (Exception e) {
-            log.warn("Failed to send notification: {}", e.getMessage());
+        return mapToResponseDTO(friendRequest);
+    }
+
+    /**
+     * Gửi lời mời tới nhiều người trong 1 lần: hồ sơ người nhận lấy theo lô ({@link UserProfileService}),
+     * quan hệ với cả danh sách kiểm tra bằng 1 câu SQL, lời mời INSERT gom lô (hibernate.jdbc.batch_size).
+     * Người nhận không hợp lệ nằm trong failed, không làm hỏng cả lô. Mỗi người nhận 1 thông báo.
+     */
+    @Transactional
+    public BulkResultDTO sendFriendRequests(BulkFriendRequestDTO requestDTO) {
+        String senderId = getCurrentUserId();
+        Set<String> receiverIds = new LinkedHashSet<>(requestDTO.getReceiverIds());
+        receiverIds.remove(null);
+
+        log.info("Sending {} friend requests from {}", receiverIds.size(), senderId);
+
+        Map<String, String> failed = new LinkedHashMap<>();
+        if (receiverIds.remove(senderId)) {
+            failed.put(senderId, "Cannot send friend request to yourself");
+        }
+        Map<String, UserDTO> profiles = userProfileService.getProfiles(receiverIds);
+        Map<String, RelationshipRow> relationships = relationshipService.resolveAll(senderId, receiverIds);
+
+        List<FriendRequest> requests = new ArrayList<>();
+        for (String receiverId : receiverIds) {
+            RelationshipRow relationship = relationships.get(receiverId);
+            if (!profiles.containsKey(receiverId)) {
+                failed.put(receiverId, "Receiver user not found");
+            } else if (Boolean.TRUE.equals(relationship.getFriends())) {
+                failed.put(receiverId, "You are already friends with this user");
+            } else if (relationship.getOutgoingStatus() != null || relationship.getIncomingStatus() != null) {
+                failed.put(receiverId, "Friend request already exists");
+            } else if (Boolean.TRUE.equals(relationship.getBlockedByMe()) || Boolean.TRUE.equals(relationship.getBlockedMe())) {
+                failed.put(receiverId, "Cannot send friend request - user is blocked");
+            } else {
+                // Không gán id: Hibernate sinh UUID lúc persist, save() không phải SELECT trước từng dòng
+                requests.add(FriendRequest.builder()
+                        .senderId(senderId)
+                        .receiverId(receiverId)
+                        .status(RequestStatus.PENDING)
+                        .message(requestDTO.getMessage())
+                        .build());
+            }
+        }
+        friendRequestRepository.saveAll(requests);
+
+        for (FriendRequest request : requests) {
+            notificationOutboxService.enqueue(request.getReceiverId(), "FRIEND_REQUEST",
+                    "New Friend Request", "You have received a new friend request",
+                    Map.of(
+                            "requestId", request.getId(),
+                            "senderId", senderId
+                    ));
         }
 
-        return mapToResponseDTO(friendRequest);
+        return BulkResultDTO.builder()
+                .succeeded(requests.stream().map(FriendRequest::getReceiverId).toList())
+                .failed(failed)
+                .build();
     }
 
-    public List<FriendResponseDTO> getReceivedRequests() {
+    /**
+     * Hộp thư đến (lời mời PENDING gửi tới mình), mới nhất trước, phân trang keyset theo (createdAt, id).
+     * Hồ sơ người gửi / người nhận của cả trang lấy 1 lần qua {@link UserProfileService}.
+     */
+    public FriendRequestPageDTO getReceivedRequests(String cursor, int limit) {
         String userId = getCurrentUserId();
-        List<FriendRequest> requests = friendRequestRepository
-                .findByReceiverIdAndStatus(userId, RequestStatus.PENDING);
-        return requests.stream().map(this::mapToResponseDTO).toList();
+        PageRequest page = PageRequest.of(0, pageSize(limit) + 1);
+        List<FriendRequest> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = friendRequestRepository.findByReceiverIdAndStatusOrderByCreatedAtDescIdDesc(userId, RequestStatus.PENDING, page);
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = friendRequestRepository.findReceivedAfter(userId, RequestStatus.PENDING,
+                    LocalDateTime.parse(position[0]), position[1], page);
+        }
+        return toPage(rows, pageSize(limit));
     }
 
-    public List<FriendResponseDTO> getSentRequests() {
+    // Hộp thư đi (lời mời PENDING mình đã gửi), cùng cách phân trang với hộp thư đến
+    public FriendRequestPageDTO getSentRequests(String cursor, int limit) {
         String userId = getCurrentUserId();
-        List<FriendRequest> requests = friendRequestRepository
-                .findBySenderIdAndStatus(userId, RequestStatus.PENDING);
-        return requests.stream().map(this::mapToResponseDTO).toList();
+        PageRequest page = PageRequest.of(0, pageSize(limit) + 1);
+        List<FriendRequest> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = friendRequestRepository.findBySenderIdAndStatusOrderByCreatedAtDescIdDesc(userId, RequestStatus.PENDING, page);
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = friendRequestRepository.findSentAfter(userId, RequestStatus.PENDING,
+                    LocalDateTime.parse(position[0]), position[1], page);
+        }
+        return toPage(rows, pageSize(limit));
+    }
+
+    public long countPendingReceived() {
+        return friendRequestRepository.countByReceiverIdAndStatus(getCurrentUserId(), RequestStatus.PENDING);
+    }
+
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    // rows lấy dư 1 bản ghi để biết còn trang sau hay không
+    private FriendRequestPageDTO toPage(List<FriendRequest> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<FriendRequest> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        Set<String> userIds = new HashSet<>();
+        for (FriendRequest request : pageRows) {
+            userIds.add(request.getSenderId());
+            userIds.add(request.getReceiverId());
+        }
+        Map<String, UserDTO> profiles = userProfileService.getProfiles(userIds);
+        List<FriendResponseDTO> items = pageRows.stream()
+                .map(request -> mapToResponseDTO(request, profiles))
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            FriendRequest last = pageRows.get(pageRows.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return FriendRequestPageDTO.builder().items(items).nextCursor(nextCursor).build();
+    }
+
+    // Cursor mờ (base64url) để client không phụ thuộc vào định dạng bên trong
+    private String encodeCursor(LocalDateTime createdAt, String id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
     @Transactional
@@ -132,36 +253,69 @@ public class FriendRequestService {
         friendRequestRepository.save(request);
 
         // Create friendship
-        Friendship friendship1 = Friendship.builder()
-                .id(UUID.randomUUID().toString())
-                .userId(request.getSenderId())
-                .friendId(request.getReceiverId())
-                .status(com.chatapp.friend_service.enums.FriendStatus.ACCEPTED)
-                .build();
+        friendshipStore.add(request.getSenderId(), request.getReceiverId());
+        recommendationCacheService.onFriendshipChanged(request.getSenderId(), request.getReceiverId());
 
-        Friendship friendship2 = Friendship.builder()
-                .id(UUID.randomUUID().toString())
-                .userId(request.getReceiverId())
-                .friendId(request.getSenderId())
-                .status(com.chatapp.friend_service.enums.FriendStatus.ACCEPTED)
-                .build();
+        // Notify sender (qua outbox)
+        notificationOutboxService.enqueue(request.getSenderId(), "FRIEND_ACCEPTED",
+                "Friend Request Accepted", "Your friend request has been accepted",
+                Map.of("friendId", request.getReceiverId()));
+    }
+
+    /**
+     * Chấp nhận nhiều lời mời: đọc cả lô bằng 1 câu, UPDATE trạng thái gom lô lúc commit,
+     * kiểm tra bạn bè sẵn có bằng 1 câu, kết bạn bằng {@link FriendshipStore#addAll}. Mỗi người gửi nhận 1 thông báo
+     * (unique (sender_id, receiver_id) -> 1 người gửi có tối đa 1 lời mời trong lô).
+     */
+    @Transactional
+    public BulkResultDTO acceptRequests(List<String> requestIds) {
+        String userId = getCurrentUserId();
+        Set<String> ids = new LinkedHashSet<>(requestIds);
+        ids.remove(null);
 
-        friendshipRepository.save(friendship1);
-        friendshipRepository.save(friendship2);
+        Map<String, FriendRequest> found = new HashMap<>();
+        for (FriendRequest request : friendRequestRepository.findAllById(ids)) {
+            found.put(request.getId(), request);
+        }
 
-        // Send notification to sender
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("userId", request.getSenderId());
-        notification.put("type", "FRIEND_ACCEPTED");
-        notification.put("title", "Friend Request Accepted");
-        notification.put("message", "Your friend request has been accepted");
-        notification.put("data", Map.of("friendId", request.getReceiverId()));
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<FriendRequest> accepted = new ArrayList<>();
+        for (String requestId : ids) {
+            FriendRequest request = found.get(requestId);
+            if (request == null) {
+                failed.put(requestId, "Friend request not found");
+            } else if (!request.getReceiverId().equals(userId)) {
+                failed.put(requestId, "You are not authorized to accept this request");
+            } else if (request.getStatus() != RequestStatus.PENDING) {
+                failed.put(requestId, "Friend request is no longer pending");
+            } else {
+                // Entity đang được quản lý: dirty checking tự UPDATE lúc commit
+                request.setStatus(RequestStatus.ACCEPTED);
+                accepted.add(request);
+            }
+        }
 
-        try {
-            notificationClient.sendNotification(notification);
-        } catch (Exception e) {
-            log.warn("Failed to send notification: {}", e.getMessage());
+        List<String> senderIds = accepted.stream().map(FriendRequest::getSenderId).toList();
+        // Cặp đã là bạn (dữ liệu cũ) không ghi lại, tránh trùng dòng ở bảng friendships khi dual-write
+        Map<String, RelationshipRow> relationships = relationshipService.resolveAll(userId, senderIds);
+        List<String> newFriendIds = senderIds.stream()
+                .filter(senderId -> !Boolean.TRUE.equals(relationships.get(senderId).getFriends()))
+                .toList();
+        friendshipStore.addAll(userId, newFriendIds);
+        if (!newFriendIds.isEmpty()) {
+            recommendationCacheService.onFriendshipsChanged(userId, newFriendIds);
+        }
+
+        for (String senderId : senderIds) {
+            notificationOutboxService.enqueue(senderId, "FRIEND_ACCEPTED",
+                    "Friend Request Accepted", "Your friend request has been accepted",
+                    Map.of("friendId", userId));
         }
+
+        return BulkResultDTO.builder()
+                .succeeded(accepted.stream().map(FriendRequest::getId).toList())
+                .failed(failed)
+                .build();
     }
 
     @Transactional
@@ -203,5 +357,23 @@ public class FriendRequestService {
                 .createdAt(request.getCreatedAt())
                 .build();
     }
+
+    // Hồ sơ thiếu (auth-service lỗi / chậm) thì chỉ trả id
+    private FriendResponseDTO mapToResponseDTO(FriendRequest request, Map<String, UserDTO> profiles) {
+        FriendResponseDTO dto = mapToResponseDTO(request);
+        UserDTO sender = profiles.get(request.getSenderId());
+        if (sender != null) {
+            dto.setSenderUsername(sender.getUsername());
+            dto.setSenderFullName(sender.getFullName());
+            dto.setSenderAvatarUrl(sender.getAvatarUrl());
+        }
+        UserDTO receiver = profiles.get(request.getReceiverId());
+        if (receiver != null) {
+            dto.setReceiverUsername(receiver.getUsername());
+            dto.setReceiverFullName(receiver.getFullName());
+            dto.setReceiverAvatarUrl(receiver.getAvatarUrl());
+        }
+        return dto;
+    }
 }
 
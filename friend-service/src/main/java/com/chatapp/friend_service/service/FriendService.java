@@ -1,100 +1,166 @@
 package com.chatapp.friend_service.service;
 
-import com.chatapp.friend_service.client.AuthClient;
 import com.chatapp.friend_service.dto.FriendDTO;
+import com.chatapp.friend_service.dto.FriendPageDTO;
 import com.chatapp.friend_service.dto.FriendStatusDTO;
-import com.chatapp.friend_service.entity.Friendship;
+import com.chatapp.friend_service.dto.UserDTO;
+import com.chatapp.friend_service.entity.FriendPair;
 import com.chatapp.friend_service.enums.FriendStatus;
-import com.chatapp.friend_service.repository.FriendshipRepository;
+import com.chatapp.friend_service.repository.FriendEdge;
+import com.chatapp.friend_service.repository.FriendPairRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.text.Collator;
+import java.util.*;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FriendService {
 
-    private final FriendshipRepository friendshipRepository;
-    private final AuthClient authClient;
-    private final com.chatapp.friend_service.repository.BlockedUserRepository blockedUserRepository;
+    private final FriendPairRepository friendPairRepository;
+    private final FriendshipStore friendshipStore;
+    private final RecommendationCacheService recommendationCacheService;
+    private final UserProfileService userProfileService;
+    private final RelationshipService relationshipService;
+    private final SocialGraphIndex socialGraphIndex;
+
+    @Value("${friends.max-page-size:200}")
+    private int maxPageSize;
 
     private String getCurrentUserId() {
         return SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
     }
 
-    public List<FriendDTO> getFriends() {
+    /**
+     * Danh sách bạn bè, sort = "recent" (kết bạn gần nhất trước) hoặc "name" (theo tên hiển thị).
+     * Hồ sơ của cả trang lấy 1 lần qua {@link UserProfileService} (cache + batch), không gọi auth-service
+     * từng người. auth-service lỗi / chậm thì vẫn trả bạn đó với id trần (username / fullName = null).
+     * size = null: trả toàn bộ danh sách. Đồ thị trong bộ nhớ đã nạp thì danh sách bạn lấy từ đó, không đi Postgres.
+     */
+    public FriendPageDTO getFriends(String sort, int page, Integer size) {
         String userId = getCurrentUserId();
-        List<Friendship> friendships = friendshipRepository.findByUserIdAndStatus(userId, FriendStatus.ACCEPTED);
-
-        return friendships.stream().map(friendship -> {
-            try {
-                var userResponse = authClient.getUserById(friendship.getFriendId());
-                var userDTO = userResponse.toUserDTO();
-
-                return FriendDTO.builder()
-                        .id(friendship.getId())
-                        .userId(friendship.getUserId())
-                        .friendId(friendship.getFriendId())
-                        .friendUsername(userDTO.getUsername())
-                        .friendFullName(userDTO.getFullName())
-                        .friendAvatarUrl(userDTO.getAvatarUrl())
-                        .status(friendship.getStatus().name())
-                        .createdAt(friendship.getCreatedAt())
-                        .build();
-            } catch (Exception e) {
-                log.error("Failed to fetch user info for friend: {}", friendship.getFriendId(), e);
-                return null;
-            }
-        }).filter(friend -> friend != null).toList();
-    }
-
-    public FriendStatusDTO getFriendStatus(String targetUserId) {
-        String currentUserId = getCurrentUserId();
-
-        // Check if blocked
-        if (blockedUserRepository.existsByBlockerIdAndBlockedId(currentUserId, targetUserId)) {
-            return FriendStatusDTO.builder()
-                    .userId(targetUserId)
-                    .status("BLOCKED")
-                    .canSendRequest(false)
+        boolean byName = "name".equalsIgnoreCase(sort);
+        Integer pageSize = size == null ? null : Math.max(1, Math.min(size, maxPageSize));
+        int pageIndex = Math.max(0, page);
+
+        // Theo thời gian: phân trang thẳng trong DB (hoặc trên đồ thị), chỉ làm giàu đúng 1 trang
+        if (!byName && pageSize != null && socialGraphIndex.isReady()) {
+            List<FriendEdge> edges = new ArrayList<>(socialGraphIndex.friendsOf(userId));
+            edges.sort(Comparator.comparing(FriendEdge::getCreatedAt, Comparator.reverseOrder())
+                    .thenComparing(FriendEdge::getFriendId));
+            int from = (int) Math.min((long) pageIndex * pageSize, edges.size());
+            return FriendPageDTO.builder()
+                    .items(enrich(userId, edges.subList(from, Math.min(from + pageSize, edges.size()))))
+                    .total(edges.size())
+                    .build();
+        }
+        if (!byName && pageSize != null) {
+            Page<FriendEdge> edges = friendPairRepository.findEdges(userId, PageRequest.of(pageIndex, pageSize));
+            return FriendPageDTO.builder()
+                    .items(enrich(userId, edges.getContent()))
+                    .total(edges.getTotalElements())
                     .build();
         }
 
-        // Check if already friends
-        if (friendshipRepository.existsByUserIdAndFriendId(currentUserId, targetUserId) ||
-            friendshipRepository.existsByUserIdAndFriendId(targetUserId, currentUserId)) {
-            return FriendStatusDTO.builder()
-                    .userId(targetUserId)
-                    .status("ARE_FRIENDS")
-                    .canSendRequest(false)
+        List<FriendEdge> edges = socialGraphIndex.isReady()
+                ? socialGraphIndex.friendsOf(userId)
+                : friendPairRepository.findEdges(userId);
+        List<FriendDTO> friends = new ArrayList<>(enrich(userId, edges));
+        if (byName) {
+            // Collator tiếng Việt: "Đức" đứng sau "Dũng"; bạn chưa có hồ sơ xếp cuối
+            Collator collator = Collator.getInstance(new Locale("vi", "VN"));
+            friends.sort(Comparator.comparing(FriendService::displayName, Comparator.nullsLast(collator))
+                    .thenComparing(FriendDTO::getFriendId));
+        } else {
+            friends.sort(Comparator.comparing(FriendDTO::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(FriendDTO::getFriendId));
+        }
+        List<FriendDTO> items = friends;
+        if (pageSize != null) {
+            int from = (int) Math.min((long) pageIndex * pageSize, friends.size());
+            items = friends.subList(from, Math.min(from + pageSize, friends.size()));
+        }
+        return FriendPageDTO.builder()
+                .items(items)
+                .total(friends.size())
+                .build();
+    }
+
+    private List<FriendDTO> enrich(String userId, List<FriendEdge> edges) {
+        Map<String, UserDTO> profiles = userProfileService.getProfiles(
+                edges.stream().map(FriendEdge::getFriendId).toList());
+        return edges.stream().map(edge -> {
+            UserDTO user = profiles.get(edge.getFriendId());
+            FriendPair.Key key = FriendPair.keyOf(userId, edge.getFriendId());
+            return FriendDTO.builder()
+                    .id(key.getUserLow() + ":" + key.getUserHigh())
+                    .userId(userId)
+                    .friendId(edge.getFriendId())
+                    .friendUsername(user != null ? user.getUsername() : null)
+                    .friendFullName(user != null ? user.getFullName() : null)
+                    .friendAvatarUrl(user != null ? user.getAvatarUrl() : null)
+                    .status(FriendStatus.ACCEPTED.name())
+                    .createdAt(edge.getCreatedAt())
                     .build();
+        }).toList();
+    }
+
+    private static String displayName(FriendDTO friend) {
+        String fullName = friend.getFriendFullName();
+        return fullName != null && !fullName.isBlank() ? fullName : friend.getFriendUsername();
+    }
+
+    /**
+     * Đồ thị trong bộ nhớ đã nạp và 2 người là bạn -> trả ngay (chặn luôn huỷ kết bạn trước, nên bạn bè
+     * thì không bị chặn); còn lại cần lời mời / chặn nên đi SQL.
+     */
+    public FriendStatusDTO getFriendStatus(String targetUserId) {
+        String userId = getCurrentUserId();
+        if (socialGraphIndex.isReady() && socialGraphIndex.areFriends(userId, targetUserId)) {
+            return areFriends(targetUserId);
         }
+        return RelationshipService.toStatus(relationshipService.resolve(userId, targetUserId));
+    }
 
-        // Check if request exists
-        // (We'll need to check this with friendRequestRepository)
+    // Nút kết bạn cho kết quả tìm kiếm / danh sách thành viên nhóm: 1 câu SQL cho những người chưa là bạn
+    public List<FriendStatusDTO> getFriendStatuses(List<String> targetUserIds) {
+        String userId = getCurrentUserId();
+        if (!socialGraphIndex.isReady()) {
+            return relationshipService.resolveStatuses(userId, targetUserIds);
+        }
+        Set<String> ids = new LinkedHashSet<>(targetUserIds);
+        List<String> others = ids.stream().filter(id -> !socialGraphIndex.areFriends(userId, id)).toList();
+        Map<String, FriendStatusDTO> resolved = new HashMap<>();
+        for (FriendStatusDTO status : relationshipService.resolveStatuses(userId, others)) {
+            resolved.put(status.getUserId(), status);
+        }
+        List<FriendStatusDTO> statuses = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            statuses.add(resolved.getOrDefault(id, areFriends(id)));
+        }
+        return statuses;
+    }
 
-        return FriendStatusDTO.builder()
-                .userId(targetUserId)
-                .status("NOT_FRIENDS")
-                .canSendRequest(true)
-                .build();
+    private static FriendStatusDTO areFriends(String targetUserId) {
+        return FriendStatusDTO.builder().userId(targetUserId).status("ARE_FRIENDS").build();
     }
 
     @Transactional
     public void unfriend(String friendId) {
         String currentUserId = getCurrentUserId();
 
-        if (!friendshipRepository.existsByUserIdAndFriendId(currentUserId, friendId)) {
+        if (!friendshipStore.remove(currentUserId, friendId)) {
             throw new RuntimeException("You are not friends with this user");
         }
-
-        friendshipRepository.deleteByUserIdAndFriendId(currentUserId, friendId);
-        friendshipRepository.deleteByUserIdAndFriendId(friendId, currentUserId);
+        recommendationCacheService.onFriendshipChanged(currentUserId, friendId);
     }
 }
 
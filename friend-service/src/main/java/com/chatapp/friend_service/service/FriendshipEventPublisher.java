@@ -0,0 +1,37 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.dto.FriendshipEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Phát thay đổi bạn bè lên Redis pub/sub cho SocialGraphIndex của các instance khác.
+ * SocialGraphIndex gọi sau khi commit; lỗi publish chỉ log, instance khác bù ở lần reload đồ thị kế tiếp.
+ */
+@Slf4j
+@Service
+public class FriendshipEventPublisher {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${social-graph.channel:friend:friendship-events}")
+    private String channel;
+
+    public FriendshipEventPublisher(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void publish(FriendshipEventDTO event) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            log.warn("Failed to publish {} event for {} ({} users): {}",
+                    event.getType(), event.getUserId(), event.getFriendIds().size(), e.getMessage());
+        }
+    }
+}
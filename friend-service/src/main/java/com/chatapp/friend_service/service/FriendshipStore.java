@@ -0,0 +1,119 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.entity.FriendPair;
+import com.chatapp.friend_service.entity.Friendship;
+import com.chatapp.friend_service.enums.FriendStatus;
+import com.chatapp.friend_service.repository.FriendPairRepository;
+import com.chatapp.friend_service.repository.FriendshipRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Đường ghi duy nhất của quan hệ bạn bè: 1 dòng friend_pairs / cặp.
+ * Khi friendship.legacy-dual-write = true thì ghi song song 2 dòng vào bảng cũ friendships
+ * (giữ cho instance bản cũ và rollback trong lúc chuyển đổi); tắt đi sau khi mọi instance đã lên bản mới.
+ * Gọi trong transaction của service phía trên.
+ */
+@Service
+public class FriendshipStore {
+
+    private final FriendPairRepository friendPairRepository;
+    private final FriendshipRepository legacyRepository;
+    private final SocialGraphIndex socialGraphIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${friendship.legacy-dual-write:true}")
+    private boolean legacyDualWrite;
+
+    public FriendshipStore(FriendPairRepository friendPairRepository,
+                           FriendshipRepository legacyRepository,
+                           SocialGraphIndex socialGraphIndex,
+                           JdbcTemplate jdbcTemplate) {
+        this.friendPairRepository = friendPairRepository;
+        this.legacyRepository = legacyRepository;
+        this.socialGraphIndex = socialGraphIndex;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(String a, String b) {
+        friendPairRepository.save(FriendPair.of(a, b));
+        socialGraphIndex.recordAdded(a, List.of(b), LocalDateTime.now());
+        if (legacyDualWrite) {
+            legacyRepository.save(legacyRow(a, b));
+            legacyRepository.save(legacyRow(b, a));
+        }
+    }
+
+    /**
+     * Kết bạn userId với từng otherIds bằng 1 lần JDBC batch. Khoá của FriendPair do mình gán nên save()
+     * của JPA sẽ SELECT trước mỗi dòng; INSERT ... ON CONFLICT DO NOTHING vừa gom lô vừa bỏ qua cặp đã có.
+     */
+    public void addAll(String userId, Collection<String> otherIds) {
+        if (otherIds.isEmpty()) {
+            return;
+        }
+        List<FriendPair.Key> keys = otherIds.stream().map(otherId -> FriendPair.keyOf(userId, otherId)).toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO friend_pairs (user_low, user_high, created_at) VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                keys, keys.size(), (ps, key) -> {
+                    ps.setString(1, key.getUserLow());
+                    ps.setString(2, key.getUserHigh());
+                    ps.setTimestamp(3, now);
+                });
+        socialGraphIndex.recordAdded(userId, otherIds, now.toLocalDateTime());
+        if (legacyDualWrite) {
+            List<Friendship> rows = new ArrayList<>(otherIds.size() * 2);
+            for (String otherId : otherIds) {
+                rows.add(legacyRow(userId, otherId));
+                rows.add(legacyRow(otherId, userId));
+            }
+            legacyRepository.saveAll(rows);
+        }
+    }
+
+    /**
+     * @return false nếu a và b vốn không phải bạn bè
+     */
+    public boolean remove(String a, String b) {
+        FriendPair.Key key = FriendPair.keyOf(a, b);
+        boolean removed = friendPairRepository.deletePair(key.getUserLow(), key.getUserHigh()) > 0;
+        if (removed) {
+            socialGraphIndex.recordRemoved(a, List.of(b));
+        }
+        if (legacyDualWrite) {
+            legacyRepository.deleteByUserIdAndFriendId(a, b);
+            legacyRepository.deleteByUserIdAndFriendId(b, a);
+        }
+        return removed;
+    }
+
+    /**
+     * Huỷ kết bạn giữa userId và từng otherIds bằng 1 câu DELETE (otherIds nên là những người đang là bạn).
+     */
+    public void removeAll(String userId, Collection<String> otherIds) {
+        if (otherIds.isEmpty()) {
+            return;
+        }
+        friendPairRepository.deletePairsOf(userId, otherIds);
+        socialGraphIndex.recordRemoved(userId, otherIds);
+        if (legacyDualWrite) {
+            legacyRepository.deleteAllBetween(userId, otherIds);
+        }
+    }
+
+    private static Friendship legacyRow(String userId, String friendId) {
+        return Friendship.builder()
+                .userId(userId)
+                .friendId(friendId)
+                .status(FriendStatus.ACCEPTED)
+                .build();
+    }
+}
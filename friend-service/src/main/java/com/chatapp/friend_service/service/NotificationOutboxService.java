@@ -0,0 +1,40 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.entity.NotificationOutbox;
+import com.chatapp.friend_service.enums.NotificationOutboxStatus;
+import com.chatapp.friend_service.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Xếp thông báo vào notification_outbox. Phải gọi TRONG transaction của thao tác nghiệp vụ:
+ * rollback thì thông báo cũng không được gửi.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxService {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String recipientId, String type, String title, String message, Map<String, Object> data) {
+        LocalDateTime now = LocalDateTime.now();
+        notificationOutboxRepository.save(NotificationOutbox.builder()
+                .recipientId(recipientId)
+                .payload(Map.of(
+                        "userId", recipientId,
+                        "type", type,
+                        "title", title,
+                        "message", message,
+                        "data", data))
+                .status(NotificationOutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+}
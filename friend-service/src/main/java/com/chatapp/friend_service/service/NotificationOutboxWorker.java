@@ -0,0 +1,147 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.client.NotificationClient;
+import com.chatapp.friend_service.entity.NotificationOutbox;
+import com.chatapp.friend_service.enums.NotificationOutboxStatus;
+import com.chatapp.friend_service.repository.NotificationOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gửi thông báo trong notification_outbox:
+ * <ul>
+ *   <li>Giữ 1 lô (FOR UPDATE SKIP LOCKED + lockedUntil) -> nhiều instance không gửi trùng</li>
+ *   <li>Cả lô gửi bằng 1 lần POST /api/notifications/send-batch thay vì 1 request / thông báo</li>
+ *   <li>Lỗi (notification-service sập, timeout, 5xx) -> cả lô thử lại với backoff luỹ thừa
+ *       (initial-backoff x 2^n, tối đa max-backoff); quá max-attempts -> FAILED</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class NotificationOutboxWorker {
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationClient notificationClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification-outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notification-outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${notification-outbox.initial-backoff:10s}")
+    private Duration initialBackoff;
+
+    @Value("${notification-outbox.max-backoff:30m}")
+    private Duration maxBackoff;
+
+    // Thời gian 1 instance được giữ lô; chết giữa chừng thì instance khác lấy lại sau lease
+    @Value("${notification-outbox.lease:2m}")
+    private Duration lease;
+
+    @Value("${notification-outbox.retention:3d}")
+    private Duration retention;
+
+    public NotificationOutboxWorker(NotificationOutboxRepository notificationOutboxRepository,
+                                    NotificationClient notificationClient,
+                                    TransactionTemplate transactionTemplate) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationClient = notificationClient;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${notification-outbox.poll-interval:2s}")
+    public void drain() {
+        while (true) {
+            List<NotificationOutbox> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            boolean delivered = deliver(batch);
+            // Lỗi: để lần poll sau (sau backoff) thay vì lấy tiếp lô khác rồi lỗi tiếp
+            if (!delivered || batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${notification-outbox.cleanup-cron:0 45 4 * * *}")
+    public void deleteSent() {
+        int deleted = notificationOutboxRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Deleted {} sent notifications from outbox", deleted);
+        }
+    }
+
+    private List<NotificationOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> rows = notificationOutboxRepository.findDueForUpdate(now, batchSize);
+            rows.forEach(row -> row.setLockedUntil(now.plus(lease)));
+            return notificationOutboxRepository.saveAll(rows);
+        });
+    }
+
+    /**
+     * Gửi 1 lô bằng 1 request rồi cập nhật trạng thái cả lô. Trả về false nếu lô phải thử lại.
+     */
+    boolean deliver(List<NotificationOutbox> batch) {
+        List<Map<String, Object>> payloads = batch.stream().map(NotificationOutbox::getPayload).toList();
+        Exception error = null;
+        try {
+            notificationClient.sendNotifications(payloads);
+        } catch (Exception e) {
+            error = e;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (NotificationOutbox notification : batch) {
+            notification.setLockedUntil(null);
+            if (error == null) {
+                notification.setStatus(NotificationOutboxStatus.SENT);
+                notification.setSentAt(now);
+                notification.setLastError(null);
+                continue;
+            }
+            int attempts = notification.getAttempts() + 1;
+            notification.setAttempts(attempts);
+            notification.setLastError(truncate(error.getMessage()));
+            if (attempts >= maxAttempts) {
+                notification.setStatus(NotificationOutboxStatus.FAILED);
+                log.error("Giving up on notification {} to {} after {} attempts",
+                        notification.getId(), notification.getRecipientId(), attempts);
+            } else {
+                notification.setNextAttemptAt(now.plus(backoff(attempts)));
+            }
+        }
+        notificationOutboxRepository.saveAll(batch);
+
+        if (error != null) {
+            log.warn("Failed to send {} notifications, will retry: {}", batch.size(), error.getMessage());
+            return false;
+        }
+        log.debug("Notification outbox: sent {}", batch.size());
+        return true;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -0,0 +1,175 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.entity.FriendRecommendation;
+import com.chatapp.friend_service.repository.FriendRecommendationRepository;
+import com.chatapp.friend_service.repository.FriendPairRepository;
+import com.chatapp.friend_service.repository.RecommendationCandidate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bảng friend_recommendations: gợi ý "bạn của bạn" tính sẵn cho từng user.
+ * <ul>
+ *   <li>Đọc: có dòng thì dùng luôn, chưa có thì tính bằng 1 câu self-join rồi lưu</li>
+ *   <li>A và B kết bạn / huỷ kết bạn / chặn nhau: tính lại ngay cho A và B, xoá dòng của bạn bè
+ *       hai người (số bạn chung của họ với A/B đổi) để lần đọc sau tự tính lại. User khác không bị đụng tới</li>
+ *   <li>Rebuild toàn bộ theo lịch, chia user cho ForkJoinPool</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class RecommendationCacheService {
+
+    private final FriendPairRepository friendPairRepository;
+    private final FriendRecommendationRepository recommendationRepository;
+    private final TaskExecutor recommendationExecutor;
+    private final SocialGraphIndex socialGraphIndex;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    // Lưu nhiều hơn số trả về để còn đủ sau khi lọc lời mời PENDING / chặn
+    @Value("${recommendation.cache-size:100}")
+    private int cacheSize;
+
+    @Value("${recommendation.rebuild.parallelism:4}")
+    private int rebuildParallelism;
+
+    @Value("${recommendation.rebuild.page-size:500}")
+    private int rebuildPageSize;
+
+    public RecommendationCacheService(FriendPairRepository friendPairRepository,
+                                      FriendRecommendationRepository recommendationRepository,
+                                      @Qualifier("recommendationExecutor") TaskExecutor recommendationExecutor,
+                                      SocialGraphIndex socialGraphIndex) {
+        this.friendPairRepository = friendPairRepository;
+        this.recommendationRepository = recommendationRepository;
+        this.recommendationExecutor = recommendationExecutor;
+        this.socialGraphIndex = socialGraphIndex;
+    }
+
+    public List<FriendRecommendation.Candidate> getCandidates(String userId) {
+        return recommendationRepository.findById(userId)
+                .map(FriendRecommendation::getCandidates)
+                .orElseGet(() -> recompute(userId));
+    }
+
+    public List<FriendRecommendation.Candidate> recompute(String userId) {
+        // Đồ thị trong bộ nhớ (nếu bật) cho cùng kết quả với câu self-join, không tốn round trip.
+        // Kết quả ghi vào bảng dùng chung: đồ thị nhận cả lần ghi của instance khác (SocialGraphEventConfig)
+        List<FriendRecommendation.Candidate> candidates = socialGraphIndex.isReady()
+                ? socialGraphIndex.secondDegree(userId, cacheSize)
+                : friendPairRepository.computeRecommendationCandidates(userId, cacheSize).stream()
+                        .map(RecommendationCacheService::toCandidate)
+                        .toList();
+        recommendationRepository.save(FriendRecommendation.builder()
+                .userId(userId)
+                .candidates(candidates)
+                .computedAt(LocalDateTime.now())
+                .build());
+        return candidates;
+    }
+
+    /**
+     * Gọi trong transaction làm đổi quan hệ bạn bè giữa a và b. Việc cập nhật chạy SAU KHI commit
+     * (trước đó câu self-join chưa thấy thay đổi) và trên recommendationExecutor.
+     */
+    public void onFriendshipChanged(String a, String b) {
+        onFriendshipsChanged(a, List.of(b));
+    }
+
+    // Thao tác hàng loạt: userId đổi quan hệ với nhiều người, userId chỉ tính lại 1 lần
+    public void onFriendshipsChanged(String userId, Collection<String> otherIds) {
+        List<String> userIds = new ArrayList<>(otherIds.size() + 1);
+        userIds.add(userId);
+        userIds.addAll(otherIds);
+        Runnable refresh = () -> recommendationExecutor.execute(() -> refresh(userIds));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh.run();
+                }
+            });
+        } else {
+            refresh.run();
+        }
+    }
+
+    private void refresh(List<String> userIds) {
+        try {
+            int invalidated = recommendationRepository.deleteForFriendsOf(userIds);
+            userIds.forEach(this::recompute);
+            log.debug("Recommendations refreshed for {}, {} friend entries invalidated", userIds, invalidated);
+        } catch (Exception e) {
+            // Để lại dữ liệu cũ; lần rebuild theo lịch sẽ sửa
+            log.warn("Failed to refresh recommendations for {}: {}", userIds, e.getMessage());
+        }
+    }
+
+    /**
+     * Tính lại toàn bộ: duyệt user theo keyset, mỗi trang chia cho ForkJoinPool riêng
+     * (không dùng common pool). Dòng không được chạm tới (user hết bạn) bị xoá ở cuối.
+     * Đồ thị trong bộ nhớ đã nạp thì mỗi user tính bằng đồ thị (xem {@link #recompute}).
+     */
+    @Scheduled(cron = "${recommendation.rebuild.cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Recommendation rebuild already running, skipping");
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime startTime = LocalDateTime.now();
+        AtomicInteger rebuilt = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(rebuildParallelism);
+        try {
+            String after = "";
+            while (true) {
+                List<String> userIds = friendPairRepository.findUserIdsAfter(after, rebuildPageSize);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                pool.submit(() -> userIds.parallelStream().forEach(userId -> {
+                    try {
+                        recompute(userId);
+                        rebuilt.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        log.warn("Failed to rebuild recommendations for {}: {}", userId, e.getMessage());
+                    }
+                })).join();
+                after = userIds.get(userIds.size() - 1);
+            }
+            int removed = recommendationRepository.deleteComputedBefore(startTime);
+            log.info("Recommendation rebuild finished: {} users, {} failed, {} stale removed in {} ms",
+                    rebuilt.get(), failed.get(), removed, System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("Recommendation rebuild aborted after {} users", rebuilt.get(), e);
+        } finally {
+            pool.shutdown();
+            rebuilding.set(false);
+        }
+    }
+
+    private static FriendRecommendation.Candidate toCandidate(RecommendationCandidate row) {
+        return new FriendRecommendation.Candidate(
+                row.getCandidateId(),
+                row.getMutualCount(),
+                Arrays.asList(row.getMutualFriendIds().split(",")));
+    }
+}
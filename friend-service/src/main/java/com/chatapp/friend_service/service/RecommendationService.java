@@ -1,99 +1,84 @@
 package com.chatapp.friend_service.service;
 
-import com.chatapp.friend_service.client.AuthClient;
 import com.chatapp.friend_service.dto.RecommendationDTO;
 import com.chatapp.friend_service.dto.UserDTO;
-import com.chatapp.friend_service.entity.FriendRequest;
-import com.chatapp.friend_service.repository.BlockedUserRepository;
-import com.chatapp.friend_service.repository.FriendRequestRepository;
-import com.chatapp.friend_service.repository.FriendshipRepository;
+import com.chatapp.friend_service.entity.FriendRecommendation;
+import com.chatapp.friend_service.repository.FriendRecommendationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RecommendationService {
 
-    private final FriendshipRepository friendshipRepository;
-    private final FriendRequestRepository friendRequestRepository;
-    private final BlockedUserRepository blockedUserRepository;
-    private final AuthClient authClient;
+    private final RecommendationCacheService recommendationCacheService;
+    private final FriendRecommendationRepository recommendationRepository;
+    private final UserProfileService userProfileService;
+    private final SocialGraphIndex socialGraphIndex;
+
+    // Trần cho ?limit= (cũng là số id tối đa gửi sang /internal/users/batch)
+    @Value("${recommendation.max-limit:50}")
+    private int maxLimit;
 
     private String getCurrentUserId() {
         return SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
     }
 
-    public List<RecommendationDTO> getRecommendations() {
+    /**
+     * Gợi ý kết bạn "bạn của bạn", xếp theo số bạn chung.
+     * Ứng viên đọc từ friend_recommendations (tính sẵn, xem {@link RecommendationCacheService}),
+     * lọc bạn bè / lời mời PENDING / chặn bằng 1 câu SQL, rồi lấy profile cho top K
+     * qua {@link UserProfileService} (cache + 1 lần gọi batch).
+     * Đồ thị trong bộ nhớ đã nạp thì bạn chung tính lại lúc đọc (dòng đã lưu có thể cũ hơn).
+     */
+    public List<RecommendationDTO> getRecommendations(int limit) {
         String currentUserId = getCurrentUserId();
+        int k = Math.max(1, Math.min(limit, maxLimit));
 
-        // Get current user's friends
-        var friendships = friendshipRepository.findByUserIdAndStatus(
-                currentUserId, com.chatapp.friend_service.enums.FriendStatus.ACCEPTED
-        );
-
-        // Get IDs of users that are already friends or have pending requests
-        Set<String> excludedUserIds = new HashSet<>();
-        excludedUserIds.add(currentUserId); // Exclude self
-
-        friendships.forEach(f -> {
-            excludedUserIds.add(f.getFriendId());
-        });
-
-        // Get pending requests
-        List<FriendRequest> sentRequests = friendRequestRepository.findBySenderIdAndStatus(
-                currentUserId, com.chatapp.friend_service.enums.RequestStatus.PENDING
-        );
-        sentRequests.forEach(r -> excludedUserIds.add(r.getReceiverId()));
-
-        List<FriendRequest> receivedRequests = friendRequestRepository.findByReceiverIdAndStatus(
-                currentUserId, com.chatapp.friend_service.enums.RequestStatus.PENDING
-        );
-        receivedRequests.forEach(r -> excludedUserIds.add(r.getSenderId()));
-
-        // Get blocked users
-        var blockedUsers = blockedUserRepository.findByBlockerId(currentUserId);
-        blockedUsers.forEach(b -> excludedUserIds.add(b.getBlockedId()));
-
-        // Get friends of friends (for mutual friends)
-        Set<String> friendsOfFriends = new HashSet<>();
-        friendships.forEach(f -> {
-            var friendFriends = friendshipRepository.findByUserIdAndStatus(
-                    f.getFriendId(), com.chatapp.friend_service.enums.FriendStatus.ACCEPTED
-            );
-            friendFriends.forEach(ff -> {
-                if (!excludedUserIds.contains(ff.getFriendId())) {
-                    friendsOfFriends.add(ff.getFriendId());
-                }
-            });
-        });
-
-        // Convert to recommendation DTOs
-        List<RecommendationDTO> recommendations = friendsOfFriends.stream()
-                .limit(10) // Limit to 10 recommendations
-                .map(userId -> {
-                    try {
-                        var userResponse = authClient.getUserById(userId);
-                        var userDTO = userResponse.toUserDTO();
-
-                        return RecommendationDTO.builder()
-                                .user(userDTO)
-                                .mutualFriends(List.of()) // Could calculate actual mutual friends
-                                .reason("Friend of a friend")
-                                .build();
-                    } catch (Exception e) {
-                        log.error("Failed to fetch user info: {}", userId, e);
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<FriendRecommendation.Candidate> cached = recommendationCacheService.getCandidates(currentUserId);
+        if (cached.isEmpty()) {
+            return List.of();
+        }
+        Set<String> excluded = new HashSet<>(recommendationRepository.findExcludedCandidateIds(currentUserId,
+                cached.stream().map(FriendRecommendation.Candidate::getCandidateId).toList()));
+        List<FriendRecommendation.Candidate> candidates = cached.stream()
+                .filter(c -> !excluded.contains(c.getCandidateId()))
+                .limit(k)
+                .toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
 
+        Map<String, UserDTO> profiles = userProfileService.getProfiles(
+                candidates.stream().map(FriendRecommendation.Candidate::getCandidateId).toList());
+
+        // Giữ thứ tự xếp hạng đã lưu; không có profile (user đã xoá / auth-service lỗi) thì bỏ qua
+        List<RecommendationDTO> recommendations = new ArrayList<>(candidates.size());
+        for (FriendRecommendation.Candidate candidate : candidates) {
+            UserDTO user = profiles.get(candidate.getCandidateId());
+            if (user == null) {
+                continue;
+            }
+            List<String> mutualFriends = socialGraphIndex.isReady()
+                    ? socialGraphIndex.mutualFriends(currentUserId, candidate.getCandidateId())
+                    : candidate.getMutualFriendIds();
+            if (mutualFriends.isEmpty()) {
+                continue; // Không còn là bạn của bạn kể từ lần tính
+            }
+            long mutualCount = mutualFriends.size();
+            recommendations.add(RecommendationDTO.builder()
+                    .user(user)
+                    .mutualFriends(mutualFriends)
+                    .mutualFriendCount(mutualCount)
+                    .reason(mutualCount == 1 ? "1 mutual friend" : mutualCount + " mutual friends")
+                    .build());
+        }
         return recommendations;
     }
 
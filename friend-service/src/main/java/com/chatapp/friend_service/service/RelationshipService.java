@@ -0,0 +1,84 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.dto.FriendStatusDTO;
+import com.chatapp.friend_service.enums.RequestStatus;
+import com.chatapp.friend_service.repository.FriendPairRepository;
+import com.chatapp.friend_service.repository.RelationshipRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Quan hệ giữa 2 user (bạn bè / lời mời 2 chiều / chặn 2 chiều) bằng 1 round trip
+ * ({@link FriendPairRepository#findRelationships}), cho 1 hoặc nhiều user đích cùng lúc.
+ */
+@Service
+@RequiredArgsConstructor
+public class RelationshipService {
+
+    private final FriendPairRepository friendPairRepository;
+
+    public RelationshipRow resolve(String userId, String targetId) {
+        return friendPairRepository.findRelationships(userId, List.of(targetId)).get(0);
+    }
+
+    /**
+     * Trạng thái với từng user đích, giữ thứ tự và bỏ trùng theo targetIds.
+     */
+    public List<FriendStatusDTO> resolveStatuses(String userId, Collection<String> targetIds) {
+        Set<String> ids = new LinkedHashSet<>(targetIds);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, RelationshipRow> rows = resolveAll(userId, ids);
+        List<FriendStatusDTO> statuses = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            statuses.add(toStatus(rows.get(id)));
+        }
+        return statuses;
+    }
+
+    // targetId -> quan hệ, cho thao tác hàng loạt (kiểm tra cả danh sách bằng 1 câu SQL)
+    public Map<String, RelationshipRow> resolveAll(String userId, Collection<String> targetIds) {
+        Map<String, RelationshipRow> rows = new HashMap<>();
+        if (targetIds.isEmpty()) {
+            return rows;
+        }
+        for (RelationshipRow row : friendPairRepository.findRelationships(userId, targetIds)) {
+            rows.put(row.getTargetId(), row);
+        }
+        return rows;
+    }
+
+    /**
+     * Ưu tiên: chặn (2 chiều) > bạn bè > lời mời PENDING > chưa có quan hệ.
+     */
+    public static FriendStatusDTO toStatus(RelationshipRow row) {
+        FriendStatusDTO.FriendStatusDTOBuilder status = FriendStatusDTO.builder().userId(row.getTargetId());
+        if (isTrue(row.getBlockedByMe()) || isTrue(row.getBlockedMe())) {
+            return status.status("BLOCKED").blockedByMe(isTrue(row.getBlockedByMe())).build();
+        }
+        if (isTrue(row.getFriends())) {
+            return status.status("ARE_FRIENDS").build();
+        }
+        if (isPending(row.getOutgoingStatus())) {
+            return status.status("PENDING_REQUEST").requestDirection("OUTGOING").build();
+        }
+        if (isPending(row.getIncomingStatus())) {
+            return status.status("PENDING_REQUEST").requestDirection("INCOMING").build();
+        }
+        // Lời mời cũ (ACCEPTED / REJECTED) vẫn giữ cặp (sender_id, receiver_id) nên chưa gửi lại được
+        return status.status("NOT_FRIENDS")
+                .canSendRequest(row.getOutgoingStatus() == null && row.getIncomingStatus() == null)
+                .build();
+    }
+
+    private static boolean isPending(String requestStatus) {
+        return RequestStatus.PENDING.name().equals(requestStatus);
+    }
+
+    private static boolean isTrue(Boolean value) {
+        return Boolean.TRUE.equals(value);
+    }
+}
@@ -0,0 +1,535 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.dto.FriendshipEventDTO;
+import com.chatapp.friend_service.entity.FriendRecommendation;
+import com.chatapp.friend_service.repository.FriendEdge;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Đồ thị bạn bè trong bộ nhớ (bật bằng social-graph.enabled): userId -> id int liên tiếp,
+ * danh sách bạn của mỗi user là mảng int[] đã sắp xếp (kèm thời điểm kết bạn). areFriends / friendsOf /
+ * mutualFriends / bạn của bạn là binary search / merge mảng, không đi Postgres.
+ * <ul>
+ *   <li>Nạp lúc khởi động (và theo social-graph.reload-cron) bằng cách stream friend_pairs theo fetch-size.
+ *       Thay đổi xảy ra trong lúc nạp được ghi lại và phát lại lên bản mới trước khi thay thế</li>
+ *   <li>Giữ cập nhật bằng các lần ghi của instance này (FriendshipStore, sau commit), và phát chính thay đổi đó
+ *       lên Redis (social-graph.channel) cho các instance khác. Pub/sub không lưu lại tin: sự kiện bị mất
+ *       chỉ được sửa ở lần reload kế tiếp</li>
+ *   <li>Chưa nạp xong / đang tắt: {@link #isReady()} = false, người gọi quay về SQL</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class SocialGraphIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final FriendshipEventPublisher eventPublisher;
+
+    // Bỏ qua sự kiện do chính instance này phát (đã áp dụng lúc commit)
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Graph graph; // null = chưa nạp
+    private List<Change> pendingChanges; // != null trong lúc đang nạp
+    private volatile boolean ready;
+
+    @Value("${social-graph.enabled:false}")
+    private boolean enabled;
+
+    @Value("${social-graph.fetch-size:10000}")
+    private int fetchSize;
+
+    public SocialGraphIndex(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            FriendshipEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Sau FriendPairIndexInitializer (backfill friend_pairs)
+    @Order(1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Scheduled(cron = "${social-graph.reload-cron:0 0 4 * * *}")
+    public void scheduledReload() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                log.info("Social graph reload already running, skipping");
+                return;
+            }
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startedAt = System.currentTimeMillis();
+        Graph loaded = null;
+        try {
+            loaded = load();
+        } catch (Exception e) {
+            log.error("Failed to load social graph, reads stay on Postgres", e);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded != null) {
+                for (Change change : pendingChanges) {
+                    change.applyTo(loaded);
+                }
+                graph = loaded;
+                ready = true;
+            }
+            pendingChanges = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (loaded != null) {
+            log.info("Social graph loaded in {} ms: {}", System.currentTimeMillis() - startedAt, stats());
+        }
+    }
+
+    // Postgres chỉ stream theo fetchSize khi autocommit tắt -> chạy trong transaction read-only
+    private Graph load() {
+        Graph building = new Graph();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT user_low, user_high, created_at FROM friend_pairs");
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, rs -> {
+            building.append(rs.getString(1), rs.getString(2), toSeconds(rs.getTimestamp(3).toLocalDateTime()));
+        }));
+        building.finishLoading();
+        return building;
+    }
+
+    /**
+     * Gọi trong transaction ghi friend_pairs; đồ thị chỉ đổi (và sự kiện chỉ phát) SAU KHI commit.
+     */
+    public void recordAdded(String userId, Collection<String> friendIds, LocalDateTime createdAt) {
+        record(FriendshipEventDTO.builder()
+                .type(FriendshipEventDTO.ADDED)
+                .userId(userId)
+                .friendIds(List.copyOf(friendIds))
+                .createdAt(createdAt)
+                .origin(instanceId)
+                .build());
+    }
+
+    public void recordRemoved(String userId, Collection<String> friendIds) {
+        record(FriendshipEventDTO.builder()
+                .type(FriendshipEventDTO.REMOVED)
+                .userId(userId)
+                .friendIds(List.copyOf(friendIds))
+                .origin(instanceId)
+                .build());
+    }
+
+    private void record(FriendshipEventDTO event) {
+        if (!enabled || event.getFriendIds().isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(event);
+                    eventPublisher.publish(event);
+                }
+            });
+        } else {
+            apply(event);
+            eventPublisher.publish(event);
+        }
+    }
+
+    /** Sự kiện từ instance khác (SocialGraphEventConfig). */
+    public void onEvent(FriendshipEventDTO event) {
+        if (!enabled || instanceId.equals(event.getOrigin())) {
+            return;
+        }
+        apply(event);
+    }
+
+    private void apply(FriendshipEventDTO event) {
+        boolean added = FriendshipEventDTO.ADDED.equals(event.getType());
+        int since = added ? toSeconds(event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now()) : 0;
+        lock.writeLock().lock();
+        try {
+            for (String friendId : event.getFriendIds()) {
+                Change change = new Change(event.getUserId(), friendId, added, since);
+                if (graph != null) {
+                    change.applyTo(graph);
+                }
+                if (pendingChanges != null) {
+                    pendingChanges.add(change);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Các hàm đọc dưới đây chỉ gọi khi isReady()
+
+    public boolean areFriends(String a, String b) {
+        lock.readLock().lock();
+        try {
+            int ia = graph.id(a);
+            int ib = graph.id(b);
+            return ia >= 0 && ib >= 0 && Arrays.binarySearch(graph.neighbors(ia), ib) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Bạn của userId kèm thời điểm kết bạn, theo thứ tự id nội bộ (người gọi tự sắp xếp). */
+    public List<FriendEdge> friendsOf(String userId) {
+        lock.readLock().lock();
+        try {
+            int id = graph.id(userId);
+            if (id < 0) {
+                return List.of();
+            }
+            int[] neighbors = graph.neighbors(id);
+            int[] since = graph.since(id);
+            List<FriendEdge> friends = new ArrayList<>(neighbors.length);
+            for (int i = 0; i < neighbors.length; i++) {
+                friends.add(new Edge(graph.names[neighbors[i]], toDateTime(since[i])));
+            }
+            return friends;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Id các bạn chung của a và b, đã sắp xếp. */
+    public List<String> mutualFriends(String a, String b) {
+        lock.readLock().lock();
+        try {
+            int ia = graph.id(a);
+            int ib = graph.id(b);
+            if (ia < 0 || ib < 0) {
+                return List.of();
+            }
+            return mutualIds(graph.neighbors(ia), graph.neighbors(ib));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bạn của bạn, bỏ chính user và người đã là bạn, xếp theo số bạn chung giảm dần rồi theo id
+     * - cùng thứ tự với FriendPairRepository#computeRecommendationCandidates.
+     */
+    public List<FriendRecommendation.Candidate> secondDegree(String userId, int limit) {
+        lock.readLock().lock();
+        try {
+            int id = graph.id(userId);
+            if (id < 0) {
+                return List.of();
+            }
+            int[] friends = graph.neighbors(id);
+            Map<Integer, int[]> counts = new HashMap<>();
+            for (int friend : friends) {
+                for (int candidate : graph.neighbors(friend)) {
+                    if (candidate != id && Arrays.binarySearch(friends, candidate) < 0) {
+                        counts.computeIfAbsent(candidate, c -> new int[1])[0]++;
+                    }
+                }
+            }
+            Comparator<Map.Entry<Integer, int[]>> ranking = Comparator
+                    .comparingInt((Map.Entry<Integer, int[]> e) -> -e.getValue()[0])
+                    .thenComparing(e -> graph.names[e.getKey()]);
+            return counts.entrySet().stream()
+                    .sorted(ranking)
+                    .limit(limit)
+                    .map(e -> new FriendRecommendation.Candidate(
+                            graph.names[e.getKey()],
+                            e.getValue()[0],
+                            mutualIds(friends, graph.neighbors(e.getKey()))))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return graph == null ? new Stats(0, 0, 0) : graph.stats();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String> mutualIds(int[] a, int[] b) {
+        List<String> mutual = new ArrayList<>();
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                mutual.add(graph.names[a[i]]);
+                i++;
+                j++;
+            }
+        }
+        Collections.sort(mutual);
+        return mutual;
+    }
+
+    // Thời điểm kết bạn lưu dạng giây epoch trong 1 int (đọc không dấu: đủ tới năm 2106)
+    private static int toSeconds(LocalDateTime time) {
+        return (int) time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(int seconds) {
+        return LocalDateTime.ofEpochSecond(Integer.toUnsignedLong(seconds), 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * users: số user có trong đồ thị, pairs: số cặp bạn bè, estimatedBytes: ước lượng heap
+     * (mảng kề + thời điểm kết bạn + bảng id + chuỗi userId).
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final int users;
+        private final long pairs;
+        private final long estimatedBytes;
+
+        @Override
+        public String toString() {
+            return String.format("%d users, %d friend pairs, ~%.1f MB", users, pairs, estimatedBytes / (1024.0 * 1024));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Edge implements FriendEdge {
+        private final String friendId;
+        private final LocalDateTime createdAt;
+    }
+
+    @AllArgsConstructor
+    private static final class Change {
+        private final String a;
+        private final String b;
+        private final boolean added;
+        private final int since;
+
+        void applyTo(Graph graph) {
+            if (added) {
+                graph.add(a, b, since);
+            } else {
+                graph.remove(a, b);
+            }
+        }
+    }
+
+    /**
+     * Không tự đồng bộ: đọc dưới read lock, ghi dưới write lock của SocialGraphIndex
+     * (riêng lúc nạp chỉ 1 thread chạm tới). since[node][i] là thời điểm kết bạn với adjacency[node][i].
+     */
+    private static final class Graph {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] names = new String[1024];
+        private int[][] adjacency = new int[1024][];
+        private int[][] since = new int[1024][];
+        private int[] degrees = new int[1024]; // chỉ dùng lúc nạp
+        private int size;
+        private long pairs;
+
+        int id(String userId) {
+            Integer id = ids.get(userId);
+            return id == null ? -1 : id;
+        }
+
+        int[] neighbors(int id) {
+            int[] neighbors = adjacency[id];
+            return neighbors == null ? EMPTY : neighbors;
+        }
+
+        int[] since(int id) {
+            int[] times = since[id];
+            return times == null ? EMPTY : times;
+        }
+
+        private int intern(String userId) {
+            Integer existing = ids.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                adjacency = Arrays.copyOf(adjacency, capacity);
+                since = Arrays.copyOf(since, capacity);
+                if (degrees != null) {
+                    degrees = Arrays.copyOf(degrees, capacity);
+                }
+            }
+            names[size] = userId;
+            ids.put(userId, size);
+            return size++;
+        }
+
+        // Lúc nạp: nối vào cuối (mảng gấp đôi khi đầy), sắp xếp 1 lần ở finishLoading
+        void append(String a, String b, int createdAt) {
+            int ia = intern(a);
+            int ib = intern(b);
+            appendNeighbor(ia, ib, createdAt);
+            appendNeighbor(ib, ia, createdAt);
+            pairs++;
+        }
+
+        private void appendNeighbor(int node, int neighbor, int createdAt) {
+            int[] neighbors = adjacency[node];
+            if (neighbors == null) {
+                adjacency[node] = new int[4];
+                since[node] = new int[4];
+            } else if (degrees[node] == neighbors.length) {
+                adjacency[node] = Arrays.copyOf(neighbors, neighbors.length * 2);
+                since[node] = Arrays.copyOf(since[node], neighbors.length * 2);
+            }
+            adjacency[node][degrees[node]] = neighbor;
+            since[node][degrees[node]++] = createdAt;
+        }
+
+        // Sắp xếp theo id bạn, kéo theo thời điểm kết bạn: gộp (id << 32 | giây) vào 1 long rồi sort
+        void finishLoading() {
+            for (int node = 0; node < size; node++) {
+                int[] neighbors = adjacency[node];
+                if (neighbors == null) {
+                    continue;
+                }
+                int degree = degrees[node];
+                long[] packed = new long[degree];
+                for (int i = 0; i < degree; i++) {
+                    packed[i] = ((long) neighbors[i] << 32) | Integer.toUnsignedLong(since[node][i]);
+                }
+                Arrays.sort(packed);
+                int[] sortedNeighbors = new int[degree];
+                int[] sortedSince = new int[degree];
+                for (int i = 0; i < degree; i++) {
+                    sortedNeighbors[i] = (int) (packed[i] >>> 32);
+                    sortedSince[i] = (int) packed[i];
+                }
+                adjacency[node] = sortedNeighbors;
+                since[node] = sortedSince;
+            }
+            degrees = null;
+        }
+
+        // Sau khi nạp: chèn / xoá giữ mảng đã sắp xếp (copy-on-write từng user)
+        void add(String a, String b, int createdAt) {
+            int ia = intern(a);
+            int ib = intern(b);
+            if (insert(ia, ib, createdAt) & insert(ib, ia, createdAt)) {
+                pairs++;
+            }
+        }
+
+        void remove(String a, String b) {
+            int ia = id(a);
+            int ib = id(b);
+            if (ia >= 0 && ib >= 0 && delete(ia, ib) & delete(ib, ia)) {
+                pairs--;
+            }
+        }
+
+        private boolean insert(int node, int neighbor, int createdAt) {
+            int[] neighbors = neighbors(node);
+            int position = Arrays.binarySearch(neighbors, neighbor);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+            adjacency[node] = inserted(neighbors, position, neighbor);
+            since[node] = inserted(since(node), position, createdAt);
+            return true;
+        }
+
+        private boolean delete(int node, int neighbor) {
+            int[] neighbors = neighbors(node);
+            int position = Arrays.binarySearch(neighbors, neighbor);
+            if (position < 0) {
+                return false;
+            }
+            adjacency[node] = deleted(neighbors, position);
+            since[node] = deleted(since(node), position);
+            return true;
+        }
+
+        private static int[] inserted(int[] values, int position, int value) {
+            int[] updated = new int[values.length + 1];
+            System.arraycopy(values, 0, updated, 0, position);
+            updated[position] = value;
+            System.arraycopy(values, position, updated, position + 1, values.length - position);
+            return updated;
+        }
+
+        private static int[] deleted(int[] values, int position) {
+            int[] updated = new int[values.length - 1];
+            System.arraycopy(values, 0, updated, 0, position);
+            System.arraycopy(values, position + 1, updated, position, values.length - position - 1);
+            return updated;
+        }
+
+        // Ước lượng cho JVM 64-bit, compressed oops
+        Stats stats() {
+            long bytes = 16L + 4L * adjacency.length + 16L + 4L * since.length + 16L + 4L * names.length;
+            for (int node = 0; node < size; node++) {
+                bytes += 2 * (16L + 4L * neighbors(node).length);    // int[] bạn + int[] thời điểm
+                bytes += 24L + 16L + names[node].length();            // String + byte[] (Latin-1)
+                bytes += 32L + 16L;                                   // HashMap.Node + Integer
+            }
+            bytes += 16L + 4L * Integer.highestOneBit(Math.max(1, ids.size()) * 2); // bảng băm
+            return new Stats(size, pairs, bytes);
+        }
+    }
+}
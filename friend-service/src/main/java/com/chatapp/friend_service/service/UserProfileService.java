@@ -0,0 +1,67 @@
+package com.chatapp.friend_service.service;
+
+import com.chatapp.friend_service.client.AuthClient;
+import com.chatapp.friend_service.dto.UserDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Hồ sơ user (id, username, fullName, avatarUrl) lấy từ auth-service để làm giàu danh sách bạn bè / gợi ý.
+ * Cache trong bộ nhớ (cache "userProfiles", Caffeine); id chưa có trong cache được lấy bằng
+ * /internal/users/batch, chia lô theo auth-client.max-batch-size.
+ */
+@Slf4j
+@Service
+public class UserProfileService {
+
+    public static final String CACHE_NAME = "userProfiles";
+
+    private final AuthClient authClient;
+    private final Cache cache;
+
+    @Value("${auth-client.max-batch-size:200}")
+    private int maxBatchSize;
+
+    public UserProfileService(AuthClient authClient, CacheManager cacheManager) {
+        this.authClient = authClient;
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Cache '" + CACHE_NAME + "' is not configured");
+    }
+
+    /**
+     * id -> hồ sơ cho các id truyền vào (đã bỏ trùng). Id không tồn tại bên auth-service không có trong map.
+     * auth-service lỗi / timeout: trả phần đã có trong cache (và các lô đã lấy được) thay vì ném lỗi,
+     * người gọi tự quyết định hiển thị id trần.
+     */
+    public Map<String, UserDTO> getProfiles(Collection<String> userIds) {
+        Map<String, UserDTO> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(userIds)) {
+            UserDTO cached = cache.get(id, UserDTO.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        for (int from = 0; from < misses.size(); from += maxBatchSize) {
+            List<String> batch = misses.subList(from, Math.min(from + maxBatchSize, misses.size()));
+            try {
+                for (AuthClient.AuthUserResponse response : authClient.getUsersByIds(batch)) {
+                    UserDTO user = response.toUserDTO();
+                    cache.put(user.getId(), user);
+                    found.put(user.getId(), user);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to fetch {} user profiles from auth-service, {} remaining ids left unresolved: {}",
+                        batch.size(), misses.size() - from, e.getMessage());
+                break;
+            }
+        }
+        return found;
+    }
+}
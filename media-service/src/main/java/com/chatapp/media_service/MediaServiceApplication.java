@@ -2,10 +2,14 @@ package com.chatapp.media_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.TimeZone;
 
 @SpringBootApplication
+@EnableScheduling // Dọn session upload resumable quá hạn
+@EnableCaching // Cache metadata MediaFile (xem MediaMetadataService)
 public class MediaServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,71 @@
+package com.chatapp.media_service.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hỏi các service khác xem URL file nào còn được dùng / ai được xem (endpoint /internal/**, không qua Gateway,
+ * xác thực bằng header X-Internal-Token = internal.token): chat-service (tin nhắn chưa thu hồi) và auth-service (avatar).
+ * Lỗi gọi service -> ném exception để job dọn dẹp DỪNG, không bao giờ xoá khi chưa chắc chắn.
+ */
+@Component
+public class MediaReferenceClient {
+
+    private static final ParameterizedTypeReference<List<String>> STRING_LIST = new ParameterizedTypeReference<>() {};
+    private static final String INTERNAL_TOKEN_HEADER = "X-Internal-Token";
+
+    private final RestClient chatClient;
+    private final RestClient authClient;
+
+    public MediaReferenceClient(@Value("${media.lifecycle.chat-service-url:http://chat-service:8082}") String chatServiceUrl,
+                                @Value("${media.lifecycle.auth-service-url:http://auth-service:8081}") String authServiceUrl,
+                                @Value("${media.lifecycle.reference-timeout:10s}") Duration timeout,
+                                @Value("${internal.token:}") String internalToken) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.chatClient = RestClient.builder().baseUrl(chatServiceUrl).requestFactory(requestFactory)
+                .defaultHeader(INTERNAL_TOKEN_HEADER, internalToken).build();
+        this.authClient = RestClient.builder().baseUrl(authServiceUrl).requestFactory(requestFactory)
+                .defaultHeader(INTERNAL_TOKEN_HEADER, internalToken).build();
+    }
+
+    /** URL còn nằm trong ít nhất 1 tin nhắn chưa bị thu hồi. */
+    public Set<String> findMessageReferences(List<String> urls) {
+        return post(chatClient, "/internal/media/references", urls);
+    }
+
+    /** URL đang là avatar của user. */
+    public Set<String> findAvatarReferences(List<String> urls) {
+        return post(authClient, "/internal/users/avatar-references", urls);
+    }
+
+    /** User là người gửi / nhận / thành viên phòng của 1 tin nhắn chưa thu hồi chứa URL này. */
+    public boolean isMessageParticipant(String userId, String url) {
+        Boolean allowed = chatClient.get()
+                .uri(uri -> uri.path("/internal/media/access")
+                        .queryParam("userId", "{userId}")
+                        .queryParam("url", "{url}")
+                        .build(userId, url))
+                .retrieve()
+                .body(Boolean.class);
+        return Boolean.TRUE.equals(allowed);
+    }
+
+    private Set<String> post(RestClient client, String path, List<String> urls) {
+        List<String> referenced = client.post()
+                .uri(path)
+                .body(urls)
+                .retrieve()
+                .body(STRING_LIST);
+        return referenced != null ? new HashSet<>(referenced) : Set.of();
+    }
+}
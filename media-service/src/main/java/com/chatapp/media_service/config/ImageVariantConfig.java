@@ -0,0 +1,30 @@
+package com.chatapp.media_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImageVariantConfig {
+
+    /**
+     * Pool riêng, cố định số worker + hàng đợi có giới hạn cho việc tạo ảnh thu nhỏ.
+     * Giải mã ảnh tốn CPU/heap -> không để nó tranh với servlet thread hay phình vô hạn.
+     * Hàng đợi đầy -> TaskRejectedException, ImageVariantService đánh dấu SKIPPED (không chặn upload).
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageVariantExecutor(
+            @Value("${media.variants.workers:2}") int workers,
+            @Value("${media.variants.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-variant-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
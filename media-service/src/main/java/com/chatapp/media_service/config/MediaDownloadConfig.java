@@ -0,0 +1,32 @@
+package com.chatapp.media_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Tải file dùng StreamingResponseBody (async servlet): Tomcat thread trả về ngay,
+ * việc chép MinIO -> client chạy trên pool có giới hạn này, mỗi download chỉ giữ 1 buffer.
+ * Chỉ MediaDownloadController dùng pool này (gán cho từng request tải file), không phải executor async mặc định.
+ */
+@Configuration
+public class MediaDownloadConfig {
+
+    @Value("${media.download.workers:64}")
+    private int workers;
+
+    @Value("${media.download.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor mediaDownloadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("media-download-");
+        executor.initialize();
+        return executor;
+    }
+}
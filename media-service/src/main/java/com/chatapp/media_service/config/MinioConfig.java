@@ -1,5 +1,6 @@
 package com.chatapp.media_service.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -44,4 +45,13 @@ public class MinioConfig {
             throw new RuntimeException("MinIO connection failed", e);
         }
     }
-}
\ No newline at end of file
+
+    // Client dùng cho upload resumable (API multipart cấp thấp), cùng endpoint/credentials
+    @Bean
+    public MultipartMinioClient multipartMinioClient() {
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(minioUrl)
+                .credentials(accessKey, secretKey)
+                .build());
+    }
+}
@@ -0,0 +1,40 @@
+package com.chatapp.media_service.config;
+
+import com.google.common.collect.ImmutableMultimap;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Part;
+
+import java.io.InputStream;
+
+/**
+ * MinioClient chỉ có putObject (upload trọn 1 lần). Các API multipart cấp thấp
+ * (create / uploadPart / complete / abort) là protected trong SDK -> lớp này mở chúng ra
+ * để ResumableUploadService ghép từng chunk của client thành 1 part của MinIO.
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public String createMultipartUpload(String bucket, String object, String contentType) throws Exception {
+        return createMultipartUploadAsync(bucket, null, object,
+                ImmutableMultimap.of("Content-Type", contentType), null)
+                .get().result().uploadId();
+    }
+
+    /** Gửi 1 part; SDK đọc đúng {@code length} byte từ stream (buffer tối đa 1 part trên heap). */
+    public String uploadPart(String bucket, String object, String uploadId, int partNumber,
+                             InputStream data, long length) throws Exception {
+        return uploadPartAsync(bucket, null, object, data, length, uploadId, partNumber, null, null)
+                .get().etag();
+    }
+
+    public void completeMultipartUpload(String bucket, String object, String uploadId, Part[] parts) throws Exception {
+        completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null).get();
+    }
+
+    public void abortMultipartUpload(String bucket, String object, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucket, null, object, uploadId, null, null).get();
+    }
+}
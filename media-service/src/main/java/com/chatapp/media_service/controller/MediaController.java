@@ -1,13 +1,29 @@
 package com.chatapp.media_service.controller;
 
 import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.exception.UploadRejectedException;
+import com.chatapp.media_service.service.ImageVariantService;
 import com.chatapp.media_service.service.MinioStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/media")
@@ -15,42 +31,210 @@ public class MediaController {
 
     private final MinioStorageService minioStorageService;
 
-    public MediaController(MinioStorageService minioStorageService) {
+    // Giới hạn kích thước file (thay cho spring.servlet.multipart.max-file-size vì multipart đã tắt)
+    @Value("${minio.upload.max-file-size:50MB}")
+    private DataSize maxFileSize;
+
+    private final ImageVariantService imageVariantService;
+
+    public MediaController(MinioStorageService minioStorageService, ImageVariantService imageVariantService) {
         this.minioStorageService = minioStorageService;
+        this.imageVariantService = imageVariantService;
     }
 
+    /**
+     * Upload multipart/form-data (field "file") như cũ, nhưng đọc part dạng stream:
+     * dữ liệu đi thẳng từ socket sang MinIO, không ghi file tạm ra đĩa.
+     */
     @PostMapping(value = "/upload", consumes = "multipart/form-data")
     public ResponseEntity<?> uploadFile(
-            @RequestParam("file") MultipartFile file,
+            HttpServletRequest request,
             // [KIẾN TRÚC CHUẨN] Nhận ID từ Header do Gateway gửi xuống
             // Gateway sẽ giải mã token và nhét ID vào header này
-            @RequestHeader(value = "X-User-Id", required = false) String userId
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String contentHash
+    ) {
+        try {
+            // Nếu Gateway quên gửi hoặc user chưa login, ta coi là anonymous
+            if (userId == null || userId.isEmpty()) {
+                userId = "anonymous";
+            }
+
+            // Đã upload đúng nội dung này rồi -> trả về ngay, không đọc body và không ghi MinIO
+            // (client vẫn gửi body lên, server bỏ qua)
+            // (tên hiển thị giữ theo lần upload trước vì chưa đọc tới part "file")
+            Optional<MediaFile> reused = minioStorageService.reuseOwnUpload(contentHash, null, userId);
+            if (reused.isPresent()) {
+                return ResponseEntity.ok(toResponse(reused.get()));
+            }
+
+            JakartaServletFileUpload<?, ?> fileUpload = new JakartaServletFileUpload<>();
+            fileUpload.setFileSizeMax(maxFileSize.toBytes());
+
+            FileItemInputIterator items = fileUpload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (item.isFormField() || !"file".equals(item.getFieldName())) {
+                    continue;
+                }
+
+                try (InputStream in = item.getInputStream()) {
+                    PushbackInputStream body = nonEmpty(in);
+                    if (body == null) {
+                        return ResponseEntity.badRequest().body("File is empty");
+                    }
+
+                    // Gọi Service xử lý (kích thước chưa biết trước -> -1)
+                    MediaFile savedFile = minioStorageService.uploadStream(
+                            body, item.getName(), item.getContentType(), -1, userId);
+                    // Ảnh: xếp hàng tạo thumbnail ở background, không chờ
+                    savedFile = imageVariantService.submit(savedFile);
+                    return ResponseEntity.ok(toResponse(savedFile));
+                }
+            }
+
+            return ResponseEntity.badRequest().body("Missing 'file' part");
+
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (Exception e) {
+            // Vượt giới hạn được phát hiện khi đang đọc stream (bên trong putObject)
+            if (isSizeLimitExceeded(e)) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File exceeds " + maxFileSize);
+            }
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Upload failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Upload thô: body của request CHÍNH LÀ nội dung file (Content-Type = loại file),
+     * tên file gửi qua header X-File-Name (URL-encoded). Có Content-Length thì kiểm tra giới hạn ngay từ đầu;
+     * chunked (không có Content-Length) thì giới hạn khi đang đọc stream, vượt -> huỷ multipart upload, trả 413.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<?> uploadStream(
+            HttpServletRequest request,
+            @RequestHeader(value = "X-File-Name", required = false) String encodedFileName,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String contentHash
     ) {
-        if (file.isEmpty()) {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength == 0) {
             return ResponseEntity.badRequest().body("File is empty");
         }
+        if (contentLength > maxFileSize.toBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File exceeds " + maxFileSize);
+        }
 
         try {
-            // Nếu Gateway quên gửi hoặc user chưa login, ta coi là anonymous
             if (userId == null || userId.isEmpty()) {
                 userId = "anonymous";
             }
+            String fileName = encodedFileName != null
+                    ? URLDecoder.decode(encodedFileName, StandardCharsets.UTF_8)
+                    : null;
 
-            // Gọi Service xử lý
-            MediaFile savedFile = minioStorageService.uploadFile(file, userId);
+            Optional<MediaFile> reused = minioStorageService.reuseOwnUpload(contentHash, fileName, userId);
+            if (reused.isPresent()) {
+                return ResponseEntity.ok(toResponse(reused.get()));
+            }
 
-            // Trả về kết quả
-            Map<String, Object> response = new HashMap<>();
-            response.put("url", savedFile.getUrl());
-            response.put("fileName", savedFile.getOriginalFileName()); // Return original filename for display
-            response.put("type", savedFile.getContentType());
-            response.put("size", savedFile.getSize());
+            InputStream body = new SizeLimitedInputStream(request.getInputStream(), maxFileSize.toBytes());
+            if (contentLength < 0) {
+                body = nonEmpty(body);
+                if (body == null) {
+                    return ResponseEntity.badRequest().body("File is empty");
+                }
+            }
 
-            return ResponseEntity.ok(response);
+            MediaFile savedFile = minioStorageService.uploadStream(
+                    body, fileName, request.getContentType(), contentLength, userId);
+            savedFile = imageVariantService.submit(savedFile);
+            return ResponseEntity.ok(toResponse(savedFile));
 
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) {
+            if (isSizeLimitExceeded(e)) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File exceeds " + maxFileSize);
+            }
             e.printStackTrace();
             return ResponseEntity.internalServerError().body("Upload failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Đọc thử 1 byte để phát hiện file rỗng mà không phải buffer cả file
+    private PushbackInputStream nonEmpty(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 1);
+        int first = pushback.read();
+        if (first == -1) {
+            return null;
+        }
+        pushback.unread(first);
+        return pushback;
+    }
+
+    /**
+     * Ném FileUploadSizeException (cùng loại lỗi với nhánh multipart) khi đọc quá maxBytes:
+     * putObject thất bại giữa chừng -> MinIO SDK huỷ multipart upload, không để lại object dở.
+     */
+    private static class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                checkLimit(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                checkLimit(n);
+            }
+            return n;
+        }
+
+        private void checkLimit(int n) throws FileUploadSizeException {
+            count += n;
+            if (count > maxBytes) {
+                throw new FileUploadSizeException("File exceeds " + maxBytes + " bytes", maxBytes, count);
+            }
+        }
+    }
+
+    private boolean isSizeLimitExceeded(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FileUploadSizeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Dùng chung với ResumableUploadController để 2 kiểu upload trả về cùng định dạng
+    static Map<String, Object> toResponse(MediaFile savedFile) {
+        // Trả về kết quả
+        Map<String, Object> response = new HashMap<>();
+        response.put("url", savedFile.getUrl());
+        response.put("fileName", savedFile.getOriginalFileName()); // Return original filename for display
+        response.put("type", savedFile.getContentType());
+        response.put("size", savedFile.getSize());
+        response.put("id", savedFile.getId());
+        // PENDING ngay sau upload; thumbnail/bản resize có sau vài giây (null nếu không phải ảnh)
+        response.put("variantStatus", savedFile.getVariantStatus());
+        return response;
+    }
+}
@@ -0,0 +1,242 @@
+package com.chatapp.media_service.controller;
+
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.entity.MediaVariant;
+import com.chatapp.media_service.repository.MediaFileRepository;
+import com.chatapp.media_service.service.MediaAccessService;
+import com.chatapp.media_service.service.MinioStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.*;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Tải file qua media-service (thay cho việc đọc thẳng bucket public):
+ * <ul>
+ *   <li>Chỉ người upload / người trong cuộc trò chuyện chứa file / ai cũng được nếu là avatar
+ *       ({@link MediaAccessService}); X-User-Id do Gateway gắn sau khi kiểm tra JWT</li>
+ *   <li>ETag / Last-Modified / Cache-Control lấy từ MediaFile -> 304 trả lời chỉ từ DB, không gọi MinIO</li>
+ *   <li>HTTP Range (1 đoạn) cho tua video: chỉ lấy đúng đoạn đó từ MinIO</li>
+ *   <li>Chép dữ liệu bằng buffer cố định trên pool mediaDownloadExecutor, không giữ Tomcat thread.
+ *       Pool và async timeout chỉ áp dụng cho request tải file, async request khác giữ mặc định của Spring MVC</li>
+ * </ul>
+ * GET /api/v1/media/files/{id}[?variant=w640][&download=true]
+ */
+@RestController
+@RequestMapping("/api/v1/media/files")
+public class MediaDownloadController {
+
+    private final MediaFileRepository mediaFileRepository;
+    private final MinioStorageService minioStorageService;
+    private final MediaAccessService mediaAccessService;
+    private final AsyncTaskExecutor downloadExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // Object đặt tên theo UUID nên không bao giờ đổi nội dung -> cache lâu dài
+    @Value("${media.download.cache-control:private, max-age=31536000, immutable}")
+    private String cacheControl;
+
+    @Value("${media.download.buffer-size:64KB}")
+    private DataSize bufferSize;
+
+    // Mặc định async timeout của Tomcat là 30s -> video dài sẽ bị cắt giữa chừng
+    @Value("${media.download.timeout:30m}")
+    private Duration timeout;
+
+    public MediaDownloadController(MediaFileRepository mediaFileRepository,
+                                   MinioStorageService minioStorageService,
+                                   MediaAccessService mediaAccessService,
+                                   @Qualifier("mediaDownloadExecutor") AsyncTaskExecutor downloadExecutor,
+                                   MeterRegistry meterRegistry) {
+        this.mediaFileRepository = mediaFileRepository;
+        this.minioStorageService = minioStorageService;
+        this.mediaAccessService = mediaAccessService;
+        this.downloadExecutor = downloadExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<StreamingResponseBody> download(
+            @PathVariable String id,
+            @RequestParam(required = false) String variant,
+            @RequestParam(defaultValue = "false") boolean download,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            HttpServletRequest request,
+            ServletWebRequest webRequest) {
+
+        MediaFile mediaFile = mediaFileRepository.findById(id).orElse(null);
+        if (mediaFile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Kiểm tra quyền trước cả 304: ETag cũng không được lộ cho người không có quyền
+        if (!mediaAccessService.canRead(userId, mediaFile)) {
+            count(variant != null ? variant : "original", HttpStatus.FORBIDDEN);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        // 1. Chọn bản gốc hoặc 1 bản thumbnail/resize
+        String objectName = mediaFile.getFileName();
+        String contentType = mediaFile.getContentType();
+        Long size = mediaFile.getSize();
+        if (variant != null) {
+            MediaVariant match = mediaFile.getVariants().stream()
+                    .filter(v -> variant.equals(v.getLabel()))
+                    .findFirst()
+                    .orElse(null);
+            if (match == null) {
+                return ResponseEntity.notFound().build();
+            }
+            objectName = match.getFileName();
+            contentType = match.getContentType();
+            size = match.getSize();
+        }
+        String label = variant != null ? variant : "original";
+
+        // 2. Conditional GET: chỉ dựa vào metadata trong DB
+        String etag = "\"" + (mediaFile.getContentHash() != null ? mediaFile.getContentHash() : objectName)
+                + (variant != null ? "-" + variant : "") + "\"";
+        long lastModified = mediaFile.getCreatedAt() != null
+                ? mediaFile.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            count(label, HttpStatus.NOT_MODIFIED);
+            return null; // Spring đã set 304 + ETag
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set("X-Content-Type-Options", "nosniff");
+        headers.setContentType(contentType != null
+                ? MediaType.parseMediaType(contentType)
+                : MediaType.APPLICATION_OCTET_STREAM);
+        String fileName = mediaFile.getOriginalFileName() != null ? mediaFile.getOriginalFileName() : objectName;
+        headers.setContentDisposition((download ? ContentDisposition.attachment() : ContentDisposition.inline())
+                .filename(fileName, StandardCharsets.UTF_8)
+                .build());
+
+        // File cũ không có size -> không hỗ trợ Range, trả nguyên file
+        if (size == null) {
+            return stream(HttpStatus.OK, headers, objectName, 0, -1, label, request);
+        }
+
+        // 3. Range: chỉ hỗ trợ 1 đoạn; nhiều đoạn / sai cú pháp -> bỏ qua và trả cả file (RFC 9110)
+        HttpRange range = resolveRange(request, etag, lastModified);
+        if (range == null) {
+            headers.setContentLength(size);
+            return stream(HttpStatus.OK, headers, objectName, 0, size, label, request);
+        }
+
+        long start = -1;
+        long end = -1;
+        try {
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            // start/end không hợp lệ -> xử lý chung như đoạn nằm ngoài file
+        }
+        if (start < 0 || start >= size || end < start) {
+            count(label, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+        long length = end - start + 1;
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        headers.setContentLength(length);
+        return stream(HttpStatus.PARTIAL_CONTENT, headers, objectName, start, length, label, request);
+    }
+
+    private HttpRange resolveRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        // If-Range: file đã đổi so với bản client đang có -> gửi lại cả file
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            try {
+                if (request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 != lastModified / 1000) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(HttpStatus status, HttpHeaders headers, String objectName,
+                                                         long offset, long length, String label,
+                                                         HttpServletRequest request) {
+        count(label, status);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+
+        // StreamingResponseBody chạy trên executor của WebAsyncManager -> đổi riêng cho request này
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setTaskExecutor(downloadExecutor);
+        AsyncWebRequest asyncWebRequest = asyncManager.getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(timeout.toMillis());
+        }
+
+        int chunk = (int) bufferSize.toBytes();
+        StreamingResponseBody body = out -> {
+            long written = 0;
+            try (InputStream in = minioStorageService.openObject(objectName, offset, length)) {
+                byte[] buffer = new byte[chunk];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    written += read;
+                }
+                out.flush();
+            } finally {
+                meterRegistry.counter("media.download.bytes", "variant", label).increment(written);
+            }
+        };
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
+
+    private void count(String label, HttpStatus status) {
+        meterRegistry.counter("media.downloads", "variant", label, "status", String.valueOf(status.value()))
+                .increment();
+    }
+
+    // Pool tải file đầy -> 503 để gateway/client thử lại
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<String> handleRejected(TaskRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many downloads, please retry later");
+    }
+
+    // Không hỏi được chat-service / auth-service về quyền xem -> không cho qua, client thử lại sau
+    @ExceptionHandler(RestClientException.class)
+    public ResponseEntity<String> handleAccessCheckFailure(RestClientException e) {
+        System.err.println("⚠️ Media access check failed: " + e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Could not verify access, please retry later");
+    }
+}
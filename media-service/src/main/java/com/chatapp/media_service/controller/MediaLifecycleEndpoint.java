@@ -0,0 +1,35 @@
+package com.chatapp.media_service.controller;
+
+import com.chatapp.media_service.dto.MediaLifecycleReport;
+import com.chatapp.media_service.service.MediaLifecycleService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator cho job dọn media (không qua Gateway, chỉ dùng nội bộ):
+ * GET  /actuator/mediaLifecycle                      -> báo cáo lượt chạy gần nhất
+ * POST /actuator/mediaLifecycle {"dryRun": false}    -> chạy ngay 1 lượt (mặc định dry-run)
+ */
+@Component
+@Endpoint(id = "mediaLifecycle")
+public class MediaLifecycleEndpoint {
+
+    private final MediaLifecycleService mediaLifecycleService;
+
+    public MediaLifecycleEndpoint(MediaLifecycleService mediaLifecycleService) {
+        this.mediaLifecycleService = mediaLifecycleService;
+    }
+
+    @ReadOperation
+    public MediaLifecycleReport lastReport() {
+        return mediaLifecycleService.getLastReport();
+    }
+
+    @WriteOperation
+    public MediaLifecycleReport run(@Nullable Boolean dryRun) {
+        return mediaLifecycleService.run(dryRun == null || dryRun);
+    }
+}
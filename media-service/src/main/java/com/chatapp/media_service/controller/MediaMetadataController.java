@@ -0,0 +1,89 @@
+package com.chatapp.media_service.controller;
+
+import com.chatapp.media_service.dto.MediaFileDTO;
+import com.chatapp.media_service.dto.MediaPageDTO;
+import com.chatapp.media_service.service.MediaMetadataService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * API đọc metadata file, để client / chat-service tra tên, kích thước, loại file theo lô
+ * thay vì dựng lại từ nội dung tin nhắn.
+ * <pre>
+ * GET  /api/v1/media/files/{id}/metadata
+ * GET  /api/v1/media/files/metadata?ids=a,b,c        (hoặc POST /files/metadata với body ["a","b"])
+ * GET  /api/v1/media/files?uploaderId=..&cursor=..&limit=20
+ * </pre>
+ */
+@RestController
+@RequestMapping("/api/v1/media/files")
+@RequiredArgsConstructor
+public class MediaMetadataController {
+
+    private final MediaMetadataService mediaMetadataService;
+
+    @Value("${media.metadata.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${media.metadata.max-page-size:100}")
+    private int maxPageSize;
+
+    @GetMapping("/{id}/metadata")
+    public ResponseEntity<MediaFileDTO> getMetadata(@PathVariable String id) {
+        return mediaMetadataService.getById(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/metadata")
+    public ResponseEntity<?> getMetadataBatch(@RequestParam List<String> ids) {
+        return batch(ids);
+    }
+
+    // Dùng POST khi danh sách id quá dài cho query string
+    @PostMapping("/metadata")
+    public ResponseEntity<?> postMetadataBatch(@RequestBody List<String> ids) {
+        return batch(ids);
+    }
+
+    @GetMapping
+    public ResponseEntity<?> listByUploader(
+            @RequestParam(required = false) String uploaderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+        // Mặc định: file của chính mình. Qua Gateway (có X-User-Id) chỉ được xem của mình.
+        String owner = uploaderId != null ? uploaderId : userId;
+        if (owner == null || owner.isEmpty()) {
+            return ResponseEntity.badRequest().body("uploaderId is required");
+        }
+        if (userId != null && !userId.isEmpty() && !userId.equals(owner)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Cannot list another user's files");
+        }
+        if (limit < 1 || limit > maxPageSize) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + maxPageSize);
+        }
+
+        try {
+            MediaPageDTO page = mediaMetadataService.listByUploader(owner, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> batch(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (ids.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body("At most " + maxBatchSize + " ids per request");
+        }
+        return ResponseEntity.ok(mediaMetadataService.getByIds(ids));
+    }
+}
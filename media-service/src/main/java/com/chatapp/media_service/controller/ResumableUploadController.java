@@ -0,0 +1,93 @@
+package com.chatapp.media_service.controller;
+
+import com.chatapp.media_service.dto.CreateUploadSessionRequest;
+import com.chatapp.media_service.dto.UploadSessionDTO;
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.exception.ResumableUploadException;
+import com.chatapp.media_service.exception.UploadRejectedException;
+import com.chatapp.media_service.service.ImageVariantService;
+import com.chatapp.media_service.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Upload resumable cho file lớn / mạng chập chờn:
+ * <pre>
+ * POST   /api/v1/media/uploads                 {fileName, contentType, size} -> {uploadId, chunkSize, ...}
+ * PUT    /api/v1/media/uploads/{id}?offset=N   body = chunk, header X-Chunk-SHA256 (tuỳ chọn)
+ * GET    /api/v1/media/uploads/{id}            tiến độ + nextOffset để resume
+ * POST   /api/v1/media/uploads/{id}/complete   -> {url, fileName, type, size} như /upload
+ * DELETE /api/v1/media/uploads/{id}            huỷ
+ * </pre>
+ */
+@RestController
+@RequestMapping("/api/v1/media/uploads")
+@RequiredArgsConstructor
+public class ResumableUploadController {
+
+    private final ResumableUploadService resumableUploadService;
+    private final ImageVariantService imageVariantService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionDTO> createSession(
+            @RequestBody CreateUploadSessionRequest request,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(resumableUploadService.createSession(request, normalize(userId)));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> getSession(
+            @PathVariable String uploadId,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+        return ResponseEntity.ok(resumableUploadService.getSession(uploadId, normalize(userId)));
+    }
+
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestHeader(value = "X-Chunk-SHA256", required = false) String sha256,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(resumableUploadService.uploadChunk(
+                uploadId, normalize(userId), offset, request.getContentLengthLong(), sha256, request.getInputStream()));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<Map<String, Object>> complete(
+            @PathVariable String uploadId,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+        MediaFile mediaFile = imageVariantService.submit(resumableUploadService.complete(uploadId, normalize(userId)));
+        return ResponseEntity.ok(MediaController.toResponse(mediaFile));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(
+            @PathVariable String uploadId,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+        resumableUploadService.abort(uploadId, normalize(userId));
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(ResumableUploadException.class)
+    public ResponseEntity<String> handleResumableUpload(ResumableUploadException e) {
+        return ResponseEntity.status(e.getStatus()).body(e.getMessage());
+    }
+
+    @ExceptionHandler(UploadRejectedException.class)
+    public ResponseEntity<String> handleRejected(UploadRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+
+    // Giống MediaController: Gateway không gửi X-User-Id -> anonymous
+    private String normalize(String userId) {
+        return userId == null || userId.isEmpty() ? "anonymous" : userId;
+    }
+}
@@ -0,0 +1,15 @@
+package com.chatapp.media_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateUploadSessionRequest {
+
+    private String fileName;
+    private String contentType;
+    private Long size; // Tổng số byte của file (bắt buộc, để tính số chunk)
+}
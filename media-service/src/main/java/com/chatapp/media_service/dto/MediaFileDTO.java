@@ -0,0 +1,28 @@
+package com.chatapp.media_service.dto;
+
+import com.chatapp.media_service.entity.MediaVariant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaFileDTO {
+
+    private String id;
+    private String fileName; // Tên gốc do user upload
+    private String url;
+    private String contentType;
+    private Long size;
+    private String contentHash;
+    private String uploaderId;
+    private LocalDateTime createdAt;
+    private String variantStatus;
+    private List<MediaVariant> variants;
+}
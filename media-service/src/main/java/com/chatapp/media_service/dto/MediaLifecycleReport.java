@@ -0,0 +1,40 @@
+package com.chatapp.media_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kết quả 1 lượt dọn dẹp media (xem MediaLifecycleService), trả qua actuator /actuator/mediaLifecycle.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaLifecycleReport {
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private boolean dryRun;
+    private boolean completed; // false = dừng giữa chừng (service khác lỗi...) -> xem abortReason
+
+    private long scanned;        // số MediaFile đã xét
+    private long referenced;     // còn được tin nhắn / avatar dùng
+    private long orphaned;       // không còn ai dùng (quá thời gian ân hạn)
+    private long expired;        // quá thời gian lưu giữ (retention)
+    private long deletedFiles;   // số bản ghi MediaFile đã xoá (0 khi dry-run)
+    private long deletedObjects; // số key MinIO đã xoá (gốc + thumbnail/resize; key không tồn tại cũng tính)
+    private long freedBytes;     // ước lượng theo size bản gốc + các variant đã biết
+    private long errors;
+
+    private String abortReason;
+
+    // Vài file bị chọn để xoá (tối đa sample-size) để kiểm tra khi chạy dry-run
+    @Builder.Default
+    private List<String> sample = new ArrayList<>();
+}
@@ -0,0 +1,18 @@
+package com.chatapp.media_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaPageDTO {
+
+    private List<MediaFileDTO> items;
+    private String nextCursor; // null = hết dữ liệu; gửi lại qua ?cursor= để lấy trang sau
+}
@@ -0,0 +1,29 @@
+package com.chatapp.media_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDTO {
+
+    private String uploadId;
+    private String fileName;
+    private String contentType;
+    private Long totalSize;
+    private Long chunkSize;
+    private String status;
+
+    private Long receivedBytes;
+    private List<Long> receivedOffsets; // Offset các chunk đã nhận -> client chỉ gửi lại phần còn thiếu
+    private Long nextOffset;            // Offset nhỏ nhất còn thiếu (null nếu đã đủ)
+
+    private LocalDateTime expiresAt;
+}
@@ -1,14 +1,24 @@
 package com.chatapp.media_service.entity;
 
+import com.chatapp.media_service.enums.VariantStatus;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "media_files")
+@Table(name = "media_files", indexes = {
+        @Index(name = "idx_media_files_content_hash", columnList = "contentHash"),
+        // Keyset phân trang theo uploader: WHERE uploaderId = ? AND (createdAt, id) < (?, ?)
+        @Index(name = "idx_media_files_uploader_created", columnList = "uploaderId, createdAt, id"),
+        // Job dọn dẹp duyệt toàn bảng theo (createdAt, id) -> mỗi lô là 1 range scan trên index
+        @Index(name = "idx_media_files_created", columnList = "createdAt, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,9 +39,25 @@ public class MediaFile {
     private String url;
 
     private Long size;
+
+    // SHA-256 (hex) của nội dung; nhiều MediaFile cùng hash dùng chung 1 object (xem MediaObject)
+    @Column(length = 64)
+    private String contentHash;
+
     private String uploaderId;
     private LocalDateTime createdAt;
 
+    // Thumbnail / bản resize cho ảnh (null nếu không phải ảnh)
+    @Enumerated(EnumType.STRING)
+    private VariantStatus variantStatus;
+
+    // BatchSize: load variants của cả trang/lô bằng 1 câu IN thay vì N câu
+    @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
+    @CollectionTable(name = "media_file_variants", joinColumns = @JoinColumn(name = "media_file_id"))
+    @Builder.Default
+    private List<MediaVariant> variants = new ArrayList<>();
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,42 @@
+package com.chatapp.media_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một object vật lý trên MinIO, có thể được nhiều {@link MediaFile} dùng chung
+ * (cùng nội dung -> cùng SHA-256). refCount = số MediaFile đang trỏ tới; về 0 thì xoá object.
+ */
+@Entity
+@Table(name = "media_objects")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaObject {
+
+    @Id
+    private String objectName;
+
+    // Null với upload resumable (không băm được cả file khi chunk đến không theo thứ tự)
+    @Column(length = 64, unique = true)
+    private String sha256;
+
+    private Long size;
+    private String contentType;
+
+    @Column(nullable = false)
+    private Integer refCount;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
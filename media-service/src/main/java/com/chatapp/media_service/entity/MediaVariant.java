@@ -0,0 +1,31 @@
+package com.chatapp.media_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một bản dẫn xuất của ảnh gốc (thumbnail hoặc bản resize theo chiều rộng),
+ * lưu cạnh file gốc trên MinIO: {@code <uuid>_thumb.jpg}, {@code <uuid>_w640.jpg}...
+ */
+@Embeddable
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaVariant {
+
+    private String label; // "thumb", "w320", "w640", "w1280"
+    private String fileName;
+
+    @Column(columnDefinition = "TEXT")
+    private String url;
+
+    private String contentType;
+    private Integer width;
+    private Integer height;
+    private Long size;
+}
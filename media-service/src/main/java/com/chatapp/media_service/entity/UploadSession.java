@@ -0,0 +1,60 @@
+package com.chatapp.media_service.entity;
+
+import com.chatapp.media_service.enums.UploadSessionStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Phiên upload resumable: ánh xạ 1-1 với một MinIO multipart upload (uploadId).
+ * Chunk thứ k (offset = k * chunkSize) chính là part số k + 1.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_status_expires", columnList = "status, expiresAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false)
+    private String minioUploadId; // uploadId do MinIO cấp khi createMultipartUpload
+
+    @Column(nullable = false)
+    private String objectName; // Tên object (UUID-based) sẽ có sau khi complete
+
+    private String originalFileName;
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private Long chunkSize;
+
+    private String uploaderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UploadSessionStatus status;
+
+    private String mediaFileId; // Có sau khi COMPLETED
+
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt; // Gia hạn mỗi lần nhận chunk
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
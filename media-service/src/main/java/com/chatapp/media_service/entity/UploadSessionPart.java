@@ -0,0 +1,50 @@
+package com.chatapp.media_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một chunk đã nhận thành công (đã lên MinIO và khớp checksum).
+ * Tách bảng riêng để các chunk song song của cùng 1 session không ghi đè lẫn nhau.
+ */
+@Entity
+@Table(name = "upload_session_parts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_session_part", columnNames = {"sessionId", "partNumber"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false)
+    private String sessionId;
+
+    @Column(nullable = false)
+    private Integer partNumber;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(nullable = false)
+    private String etag;
+
+    private String sha256;
+
+    private LocalDateTime uploadedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        uploadedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,9 @@
+package com.chatapp.media_service.enums;
+
+public enum UploadSessionStatus {
+    ACTIVE,     // Đang nhận chunk
+    COMPLETING, // 1 request complete đang giữ session (tới expiresAt), request complete khác phải chờ
+    COMPLETED,  // Đã ghép thành object trên MinIO + có MediaFile
+    ABORTED,    // Client huỷ
+    EXPIRED     // Quá hạn, đã bị dọn (abort multipart trên MinIO)
+}
@@ -0,0 +1,8 @@
+package com.chatapp.media_service.enums;
+
+public enum VariantStatus {
+    PENDING,  // Đã xếp hàng chờ worker tạo ảnh thu nhỏ
+    READY,    // Đã có thumbnail + các bản resize
+    FAILED,   // Lỗi khi tạo (ảnh hỏng, MinIO lỗi...)
+    SKIPPED   // Không tạo: định dạng không đọc được, ảnh quá lớn hoặc hàng đợi đầy
+}
@@ -0,0 +1,19 @@
+package com.chatapp.media_service.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Lỗi nghiệp vụ của upload resumable, mang theo HTTP status để controller trả về đúng mã
+ * (404 session không tồn tại, 409 sai offset/trạng thái, 422 sai checksum...).
+ */
+@Getter
+public class ResumableUploadException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public ResumableUploadException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -0,0 +1,12 @@
+package com.chatapp.media_service.exception;
+
+/**
+ * Ném ra khi server đang xử lý quá nhiều upload đồng thời (mỗi upload giữ một buffer part-size trên heap).
+ * Controller trả về 503 để client thử lại sau.
+ */
+public class UploadRejectedException extends RuntimeException {
+
+    public UploadRejectedException(String message) {
+        super(message);
+    }
+}
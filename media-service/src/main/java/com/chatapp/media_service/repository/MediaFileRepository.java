@@ -2,9 +2,47 @@ package com.chatapp.media_service.repository;
 
 
 import com.chatapp.media_service.entity.MediaFile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface MediaFileRepository extends JpaRepository<MediaFile, String> {
+
+    Optional<MediaFile> findFirstByContentHashOrderByCreatedAtAsc(String contentHash);
+
+    // Còn MediaFile nào trỏ tới object này không (object dùng chung khi trùng nội dung)
+    boolean existsByFileName(String fileName);
+
+    Optional<MediaFile> findFirstByContentHashAndUploaderIdOrderByCreatedAtAsc(String contentHash, String uploaderId);
+
+    // Job dọn dẹp: duyệt file cũ hơn mốc "before" theo thứ tự (createdAt, id) tăng dần, từng lô
+    @Query("SELECT m FROM MediaFile m WHERE m.createdAt < :before ORDER BY m.createdAt ASC, m.id ASC")
+    List<MediaFile> findSweepBatch(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Query("SELECT m FROM MediaFile m WHERE m.createdAt < :before " +
+            "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) " +
+            "ORDER BY m.createdAt ASC, m.id ASC")
+    List<MediaFile> findSweepBatchAfter(@Param("before") LocalDateTime before,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") String id,
+                                        Pageable pageable);
+
+    // Trang đầu của danh sách file theo uploader (mới nhất trước)
+    List<MediaFile> findByUploaderIdOrderByCreatedAtDescIdDesc(String uploaderId, Pageable pageable);
+
+    // Các trang sau: keyset (createdAt, id) thay cho OFFSET -> không phải quét lại các trang trước
+    @Query("SELECT m FROM MediaFile m WHERE m.uploaderId = :uploaderId " +
+            "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+            "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MediaFile> findPageAfter(@Param("uploaderId") String uploaderId,
+                                  @Param("createdAt") LocalDateTime createdAt,
+                                  @Param("id") String id,
+                                  Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.chatapp.media_service.repository;
+
+import com.chatapp.media_service.entity.MediaObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, String> {
+
+    Optional<MediaObject> findBySha256(String sha256);
+
+    // Tăng/giảm nguyên tử trong DB (không đọc-sửa-ghi) để upload song song không mất lượt đếm.
+    // Trả về 0 nếu object đã bị giải phóng (refCount = 0) -> không được dùng lại.
+    @Transactional
+    @Modifying
+    @Query("UPDATE MediaObject o SET o.refCount = o.refCount + 1 WHERE o.objectName = :objectName AND o.refCount > 0")
+    int incrementRefCount(@Param("objectName") String objectName);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MediaObject o SET o.refCount = o.refCount - 1 WHERE o.objectName = :objectName AND o.refCount > 0")
+    int decrementRefCount(@Param("objectName") String objectName);
+
+    // Xoá bản ghi khi không còn tham chiếu. DELETE có điều kiện khoá dòng -> với nhiều lượt giải phóng
+    // song song chỉ ĐÚNG MỘT caller nhận được 1 (và là người xoá object trên MinIO)
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MediaObject o WHERE o.objectName = :objectName AND o.refCount <= 0")
+    int deleteIfUnreferenced(@Param("objectName") String objectName);
+}
@@ -0,0 +1,22 @@
+package com.chatapp.media_service.repository;
+
+import com.chatapp.media_service.entity.UploadSessionPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionPartRepository extends JpaRepository<UploadSessionPart, String> {
+
+    List<UploadSessionPart> findBySessionIdOrderByPartNumberAsc(String sessionId);
+
+    Optional<UploadSessionPart> findBySessionIdAndPartNumber(String sessionId, Integer partNumber);
+
+    @Transactional
+    @Modifying
+    void deleteBySessionId(String sessionId);
+}
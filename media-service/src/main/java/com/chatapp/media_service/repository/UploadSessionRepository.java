@@ -0,0 +1,41 @@
+package com.chatapp.media_service.repository;
+
+import com.chatapp.media_service.entity.UploadSession;
+import com.chatapp.media_service.enums.UploadSessionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Lấy theo lô để GC không load hết session quá hạn vào bộ nhớ
+    List<UploadSession> findByStatusAndExpiresAtBefore(UploadSessionStatus status, LocalDateTime time, Pageable pageable);
+
+    // Gia hạn session mà không ghi đè các cột khác (chunk song song cùng session)
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.expiresAt = :expiresAt WHERE s.id = :id AND s.status = 'ACTIVE'")
+    int touch(@Param("id") String id, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Giành quyền complete: ACTIVE còn hạn, hoặc COMPLETING mà lần giữ trước đã quá hạn (instance chết giữa chừng)
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = 'COMPLETING', s.expiresAt = :leaseUntil WHERE s.id = :id " +
+            "AND ((s.status = 'ACTIVE' AND s.expiresAt >= :now) OR (s.status = 'COMPLETING' AND s.expiresAt < :now))")
+    int claimForCompletion(@Param("id") String id, @Param("now") LocalDateTime now,
+                           @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Complete lỗi -> trả session về ACTIVE để client gọi lại
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = 'ACTIVE', s.expiresAt = :expiresAt WHERE s.id = :id AND s.status = 'COMPLETING'")
+    int releaseCompletion(@Param("id") String id, @Param("expiresAt") LocalDateTime expiresAt);
+}
@@ -0,0 +1,271 @@
+package com.chatapp.media_service.service;
+
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.entity.MediaVariant;
+import com.chatapp.media_service.enums.VariantStatus;
+import com.chatapp.media_service.repository.MediaFileRepository;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import lombok.extern.slf4j.Slf4j;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.geometry.Positions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tạo thumbnail + các bản resize theo chiều rộng cố định cho ảnh vừa upload.
+ * Chạy trên pool riêng có giới hạn ({@code imageVariantExecutor}) sau khi response upload đã trả về,
+ * kết quả lưu cạnh file gốc trên MinIO và ghi vào {@link MediaFile#getVariants()}.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private final MinioClient minioClient;
+    private final MinioStorageService storageService;
+    private final MediaFileRepository mediaFileRepository;
+    private final ThreadPoolTaskExecutor imageVariantExecutor;
+    private final MediaMetadataService mediaMetadataService;
+
+    @Value("${media.variants.enabled:true}")
+    private boolean enabled;
+
+    @Value("${media.variants.widths:320,640,1280}")
+    private List<Integer> widths;
+
+    @Value("${media.variants.thumbnail-size:200}")
+    private int thumbnailSize;
+
+    @Value("${media.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    // Ảnh gốc lớn hơn -> bỏ qua (tránh giữ cả file trong bộ nhớ khi giải mã)
+    @Value("${media.variants.max-source-size:30MB}")
+    private DataSize maxSourceSize;
+
+    // Chống "decompression bomb": ảnh vài KB nhưng hàng trăm megapixel
+    @Value("${media.variants.max-source-pixels:100000000}")
+    private long maxSourcePixels;
+
+    public ImageVariantService(MinioClient minioClient, MinioStorageService storageService,
+                               MediaFileRepository mediaFileRepository,
+                               ThreadPoolTaskExecutor imageVariantExecutor,
+                               MediaMetadataService mediaMetadataService) {
+        this.minioClient = minioClient;
+        this.storageService = storageService;
+        this.mediaFileRepository = mediaFileRepository;
+        this.imageVariantExecutor = imageVariantExecutor;
+        this.mediaMetadataService = mediaMetadataService;
+    }
+
+    /**
+     * Xếp hàng tạo ảnh thu nhỏ rồi trả về ngay. Gọi lại cho file đã được xử lý thì bỏ qua.
+     */
+    public MediaFile submit(MediaFile mediaFile) {
+        if (!enabled || mediaFile.getVariantStatus() != null || !isSupportedImage(mediaFile.getContentType())) {
+            return mediaFile;
+        }
+        if (mediaFile.getSize() != null && mediaFile.getSize() > maxSourceSize.toBytes()) {
+            return updateStatus(mediaFile, VariantStatus.SKIPPED);
+        }
+
+        mediaFile = updateStatus(mediaFile, VariantStatus.PENDING);
+        String mediaFileId = mediaFile.getId();
+        try {
+            imageVariantExecutor.execute(() -> generate(mediaFileId));
+        } catch (TaskRejectedException e) {
+            log.warn("⚠️ Variant queue full, skipping {}", mediaFileId);
+            mediaFile = updateStatus(mediaFile, VariantStatus.SKIPPED);
+        }
+        return mediaFile;
+    }
+
+    // GIF (động) và SVG (vector) giữ nguyên bản gốc
+    private boolean isSupportedImage(String contentType) {
+        return contentType != null
+                && contentType.startsWith("image/")
+                && !contentType.equals("image/gif")
+                && !contentType.startsWith("image/svg");
+    }
+
+    private void generate(String mediaFileId) {
+        MediaFile mediaFile = mediaFileRepository.findById(mediaFileId).orElse(null);
+        if (mediaFile == null) {
+            return;
+        }
+
+        try {
+            BufferedImage source = readDownsampled(mediaFile.getFileName());
+            if (source == null) {
+                updateStatusIfExists(mediaFileId, VariantStatus.SKIPPED);
+                return;
+            }
+
+            boolean hasAlpha = source.getColorModel().hasAlpha();
+            String format = hasAlpha ? "png" : "jpg";
+            List<MediaVariant> variants = new ArrayList<>();
+
+            // 1. Thumbnail vuông, cắt giữa (preview tin nhắn, gallery)
+            Thumbnails.Builder<BufferedImage> thumb = Thumbnails.of(source)
+                    .size(thumbnailSize, thumbnailSize)
+                    .crop(Positions.CENTER);
+            variants.add(store(mediaFile, "thumb", thumb, format));
+
+            // 2. Bản resize theo chiều rộng, chỉ thu nhỏ (không phóng to ảnh nhỏ)
+            for (int width : widths) {
+                if (width >= source.getWidth()) {
+                    continue;
+                }
+                variants.add(store(mediaFile, "w" + width, Thumbnails.of(source).width(width), format));
+            }
+
+            // Đọc lại trước khi ghi để không đè lên thay đổi khác trong lúc worker chạy
+            MediaFile latest = mediaFileRepository.findById(mediaFileId).orElse(null);
+            if (latest == null) {
+                discardVariants(mediaFile, variants);
+                return;
+            }
+            latest.setVariants(variants);
+            latest.setVariantStatus(VariantStatus.READY);
+            mediaFileRepository.save(latest);
+            mediaMetadataService.evict(mediaFileId);
+
+            log.info("🖼️ Generated {} variants for {}", variants.size(), mediaFile.getFileName());
+        } catch (Exception e) {
+            log.error("❌ Variant generation failed for {}: {}", mediaFile.getFileName(), e.getMessage());
+            updateStatusIfExists(mediaFileId, VariantStatus.FAILED);
+        }
+    }
+
+    /**
+     * MediaFile bị xoá trong lúc worker chạy (vd. lifecycle sweep): không ghi lại (save sẽ INSERT lại dòng đã xoá)
+     * mà dọn các bản vừa upload. Bản dẫn xuất đặt tên theo object gốc nên giữ lại nếu MediaFile khác còn dùng object đó.
+     */
+    private void discardVariants(MediaFile mediaFile, List<MediaVariant> variants) {
+        if (mediaFileRepository.existsByFileName(mediaFile.getFileName())) {
+            return;
+        }
+        storageService.removeObjects(variants.stream().map(MediaVariant::getFileName).toList());
+        log.info("🗑️ {} was deleted while generating variants, removed {} variants", mediaFile.getFileName(), variants.size());
+    }
+
+    private void updateStatusIfExists(String mediaFileId, VariantStatus status) {
+        mediaFileRepository.findById(mediaFileId).ifPresent(current -> updateStatus(current, status));
+    }
+
+    /**
+     * Giải mã ảnh gốc với subsampling: ảnh 6000px chỉ cần giải mã ~2x bản lớn nhất,
+     * heap dùng cho 1 worker giảm từ hàng trăm MB xuống vài chục MB.
+     */
+    private BufferedImage readDownsampled(String objectName) throws Exception {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(storageService.getBucketName())
+                .object(objectName)
+                .build());
+             ImageInputStream imageInput = new MemoryCacheImageInputStream(in)) {
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.warn("⚠️ Image {} too large to thumbnail ({}x{})", objectName, width, height);
+                    return null;
+                }
+
+                int largestTarget = Math.max(thumbnailSize, widths.stream().max(Integer::compare).orElse(thumbnailSize));
+                int factor = Math.max(1, Math.min(width, height) / (2 * largestTarget));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private MediaVariant store(MediaFile mediaFile, String label, Thumbnails.Builder<BufferedImage> builder,
+                               String format) throws Exception {
+        BufferedImage image = builder.asBufferedImage();
+
+        // Encode qua Thumbnailator để áp dụng chất lượng JPEG (ImageIO.write luôn dùng mặc định 0.75)
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Thumbnails.Builder<BufferedImage> writer = Thumbnails.of(image).scale(1.0).outputFormat(format);
+        if ("jpg".equals(format)) {
+            writer.outputQuality(jpegQuality);
+        }
+        writer.toOutputStream(buffer);
+        byte[] bytes = buffer.toByteArray();
+
+        String contentType = "jpg".equals(format) ? "image/jpeg" : "image/png";
+        String variantName = variantObjectName(mediaFile.getFileName(), label, format);
+        minioClient.putObject(PutObjectArgs.builder()
+                .bucket(storageService.getBucketName())
+                .object(variantName)
+                .stream(new ByteArrayInputStream(bytes), bytes.length, -1)
+                .contentType(contentType)
+                .build());
+
+        return MediaVariant.builder()
+                .label(label)
+                .fileName(variantName)
+                .url(storageService.buildDownloadUrl(mediaFile.getId(), label))
+                .contentType(contentType)
+                .width(image.getWidth())
+                .height(image.getHeight())
+                .size((long) bytes.length)
+                .build();
+    }
+
+    /**
+     * Mọi tên bản dẫn xuất CÓ THỂ có của 1 object (mọi label x jpg/png) theo cấu hình hiện tại.
+     * Dùng khi dọn dẹp: xoá thẳng bằng multi-delete thay vì phải listObjects theo prefix.
+     */
+    public List<String> possibleVariantObjectNames(String objectName) {
+        List<String> names = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        labels.add("thumb");
+        widths.forEach(width -> labels.add("w" + width));
+        for (String label : labels) {
+            names.add(variantObjectName(objectName, label, "jpg"));
+            names.add(variantObjectName(objectName, label, "png"));
+        }
+        return names;
+    }
+
+    // "<uuid>.png" -> "<uuid>_w640.jpg": nằm cạnh file gốc, dễ dọn theo prefix
+    private String variantObjectName(String originalObjectName, String label, String format) {
+        int dot = originalObjectName.lastIndexOf('.');
+        String base = dot > 0 ? originalObjectName.substring(0, dot) : originalObjectName;
+        return base + "_" + label + "." + format;
+    }
+
+    private MediaFile updateStatus(MediaFile mediaFile, VariantStatus status) {
+        mediaFile.setVariantStatus(status);
+        MediaFile saved = mediaFileRepository.save(mediaFile);
+        mediaMetadataService.evict(saved.getId());
+        return saved;
+    }
+}
@@ -0,0 +1,57 @@
+package com.chatapp.media_service.service;
+
+import com.chatapp.media_service.client.MediaReferenceClient;
+import com.chatapp.media_service.entity.MediaFile;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Ai được tải 1 file qua /api/v1/media/files/{id}:
+ * <ul>
+ *   <li>Người upload</li>
+ *   <li>Mọi user đã đăng nhập nếu URL đang là avatar (auth-service)</li>
+ *   <li>Người gửi / nhận / thành viên phòng của 1 tin nhắn chưa thu hồi chứa URL (chat-service)</li>
+ * </ul>
+ * Chỉ cache kết quả "được phép" (access-cache-ttl), để 1 ảnh hiển thị nhiều lần không gọi service khác mỗi lần;
+ * bị kick khỏi nhóm / tin bị thu hồi thì mất quyền sau tối đa TTL. Lỗi gọi service -> ném exception (không cho qua).
+ */
+@Service
+public class MediaAccessService {
+
+    private final MediaReferenceClient mediaReferenceClient;
+    private final Cache<String, Boolean> allowed;
+
+    public MediaAccessService(MediaReferenceClient mediaReferenceClient,
+                              @Value("${media.download.access-cache-ttl:5m}") Duration accessCacheTtl) {
+        this.mediaReferenceClient = mediaReferenceClient;
+        this.allowed = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(accessCacheTtl).build();
+    }
+
+    public boolean canRead(String userId, MediaFile mediaFile) {
+        if (userId == null || userId.isBlank()) {
+            return false;
+        }
+        if (userId.equals(mediaFile.getUploaderId())) {
+            return true;
+        }
+        String url = mediaFile.getUrl();
+        if (url == null) {
+            return false;
+        }
+        String key = userId + ":" + mediaFile.getId();
+        if (allowed.getIfPresent(key) != null) {
+            return true;
+        }
+        boolean granted = mediaReferenceClient.findAvatarReferences(List.of(url)).contains(url)
+                || mediaReferenceClient.isMessageParticipant(userId, url);
+        if (granted) {
+            allowed.put(key, Boolean.TRUE);
+        }
+        return granted;
+    }
+}
@@ -0,0 +1,246 @@
+package com.chatapp.media_service.service;
+
+import com.chatapp.media_service.client.MediaReferenceClient;
+import com.chatapp.media_service.dto.MediaLifecycleReport;
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.entity.MediaVariant;
+import com.chatapp.media_service.enums.VariantStatus;
+import com.chatapp.media_service.repository.MediaFileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Job nền dọn media không còn dùng:
+ * <ul>
+ *   <li>Duyệt bảng media_files theo lô (keyset trên createdAt, id) thay vì listObjects cả bucket</li>
+ *   <li>Mỗi lô hỏi chat-service + auth-service 1 lần xem URL nào còn được tham chiếu</li>
+ *   <li>File mồ côi (quá grace-period) hoặc quá retention -> xoá bản ghi + object gốc + thumbnail/resize
+ *       bằng multi-object delete, giới hạn tốc độ delete-rate object/giây</li>
+ *   <li>dry-run: chỉ đếm và ghi báo cáo, không xoá gì</li>
+ * </ul>
+ * Vị trí con trỏ giữ trong bộ nhớ: mỗi lượt quét tối đa max-scan-per-run bản ghi rồi lượt sau đi tiếp,
+ * hết bảng thì quay lại từ đầu. Restart chỉ làm quét lại từ đầu, không gây xoá nhầm.
+ */
+@Service
+public class MediaLifecycleService {
+
+    private final MediaFileRepository mediaFileRepository;
+    private final MinioStorageService minioStorageService;
+    private final ImageVariantService imageVariantService;
+    private final MediaMetadataService mediaMetadataService;
+    private final MediaReferenceClient mediaReferenceClient;
+
+    @Value("${media.lifecycle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${media.lifecycle.dry-run:true}")
+    private boolean defaultDryRun;
+
+    // File mới upload chưa kịp gửi trong tin nhắn / đặt làm avatar -> không coi là mồ côi
+    @Value("${media.lifecycle.grace-period:24h}")
+    private Duration gracePeriod;
+
+    // Xoá cả file còn được tin nhắn dùng khi quá hạn này (0 = giữ vĩnh viễn). Avatar không bao giờ bị xoá.
+    @Value("${media.lifecycle.retention:0d}")
+    private Duration retention;
+
+    @Value("${media.lifecycle.batch-size:200}")
+    private int batchSize;
+
+    @Value("${media.lifecycle.max-scan-per-run:20000}")
+    private int maxScanPerRun;
+
+    // Số object MinIO xoá tối đa mỗi giây, tránh dồn tải lên MinIO/DB
+    @Value("${media.lifecycle.delete-rate:100}")
+    private int deleteRate;
+
+    @Value("${media.lifecycle.sample-size:20}")
+    private int sampleSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Con trỏ keyset của lượt quét đang dở (null = bắt đầu từ đầu bảng)
+    private volatile LocalDateTime cursorCreatedAt;
+    private volatile String cursorId;
+
+    private volatile MediaLifecycleReport lastReport;
+
+    public MediaLifecycleService(MediaFileRepository mediaFileRepository,
+                                 MinioStorageService minioStorageService,
+                                 ImageVariantService imageVariantService,
+                                 MediaMetadataService mediaMetadataService,
+                                 MediaReferenceClient mediaReferenceClient) {
+        this.mediaFileRepository = mediaFileRepository;
+        this.minioStorageService = minioStorageService;
+        this.imageVariantService = imageVariantService;
+        this.mediaMetadataService = mediaMetadataService;
+        this.mediaReferenceClient = mediaReferenceClient;
+    }
+
+    @Scheduled(cron = "${media.lifecycle.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            run(defaultDryRun);
+        }
+    }
+
+    public MediaLifecycleReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Chạy 1 lượt dọn dẹp. Trả về null nếu đang có lượt khác chạy.
+     */
+    public MediaLifecycleReport run(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            System.out.println("⏳ Media lifecycle run already in progress, skipping");
+            return null;
+        }
+        MediaLifecycleReport report = MediaLifecycleReport.builder()
+                .startedAt(LocalDateTime.now())
+                .dryRun(dryRun)
+                .build();
+        try {
+            sweep(report, dryRun);
+            report.setCompleted(true);
+        } catch (Exception e) {
+            // Không xác định được tham chiếu -> dừng luôn, lượt sau quét lại lô này
+            report.setAbortReason(e.getMessage());
+            System.err.println("⚠️ Media lifecycle run aborted: " + e.getMessage());
+        } finally {
+            report.setFinishedAt(LocalDateTime.now());
+            lastReport = report;
+            running.set(false);
+        }
+        System.out.println("🧹 Media lifecycle " + (dryRun ? "(dry-run) " : "") + "scanned=" + report.getScanned()
+                + " orphaned=" + report.getOrphaned() + " expired=" + report.getExpired()
+                + " deletedFiles=" + report.getDeletedFiles() + " deletedObjects=" + report.getDeletedObjects()
+                + " freedBytes=" + report.getFreedBytes() + " errors=" + report.getErrors());
+        return report;
+    }
+
+    private void sweep(MediaLifecycleReport report, boolean dryRun) throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime graceCutoff = now.minus(gracePeriod);
+        LocalDateTime retentionCutoff = retention.isZero() ? null : now.minus(retention);
+
+        while (report.getScanned() < maxScanPerRun) {
+            int limit = (int) Math.min(batchSize, maxScanPerRun - report.getScanned());
+            List<MediaFile> batch = cursorId == null
+                    ? mediaFileRepository.findSweepBatch(graceCutoff, PageRequest.of(0, limit))
+                    : mediaFileRepository.findSweepBatchAfter(graceCutoff, cursorCreatedAt, cursorId,
+                            PageRequest.of(0, limit));
+            if (batch.isEmpty()) {
+                // Hết bảng -> lượt sau quét lại từ đầu
+                cursorCreatedAt = null;
+                cursorId = null;
+                return;
+            }
+
+            processBatch(batch, retentionCutoff, dryRun, report);
+
+            // Chỉ tiến con trỏ khi cả lô đã xử lý xong (lỗi gọi service -> exception -> giữ nguyên)
+            MediaFile last = batch.get(batch.size() - 1);
+            cursorCreatedAt = last.getCreatedAt();
+            cursorId = last.getId();
+            report.setScanned(report.getScanned() + batch.size());
+        }
+    }
+
+    private void processBatch(List<MediaFile> batch, LocalDateTime retentionCutoff, boolean dryRun,
+                              MediaLifecycleReport report) throws InterruptedException {
+        List<String> urls = batch.stream()
+                .map(MediaFile::getUrl)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Set<String> avatarRefs = urls.isEmpty() ? Set.of() : mediaReferenceClient.findAvatarReferences(urls);
+        Set<String> messageRefs = urls.isEmpty() ? Set.of() : mediaReferenceClient.findMessageReferences(urls);
+
+        List<MediaFile> toDelete = new ArrayList<>();
+        for (MediaFile mediaFile : batch) {
+            String url = mediaFile.getUrl();
+            if (url != null && avatarRefs.contains(url)) {
+                report.setReferenced(report.getReferenced() + 1);
+                continue;
+            }
+            boolean expired = retentionCutoff != null && mediaFile.getCreatedAt() != null
+                    && mediaFile.getCreatedAt().isBefore(retentionCutoff);
+            if (url != null && messageRefs.contains(url) && !expired) {
+                report.setReferenced(report.getReferenced() + 1);
+                continue;
+            }
+            if (expired) {
+                report.setExpired(report.getExpired() + 1);
+            } else {
+                report.setOrphaned(report.getOrphaned() + 1);
+            }
+            if (report.getSample().size() < sampleSize) {
+                report.getSample().add(mediaFile.getId() + " " + mediaFile.getFileName());
+            }
+            toDelete.add(mediaFile);
+        }
+
+        if (dryRun || toDelete.isEmpty()) {
+            return;
+        }
+        delete(toDelete, report);
+    }
+
+    private void delete(List<MediaFile> toDelete, MediaLifecycleReport report) throws InterruptedException {
+        // Xoá bản ghi trước: nếu xoá object lỗi thì chỉ còn rác trên MinIO, không có link chết
+        Set<String> objectNames = new LinkedHashSet<>();
+        for (MediaFile mediaFile : toDelete) {
+            try {
+                mediaFileRepository.delete(mediaFile);
+                mediaMetadataService.evict(mediaFile.getId());
+                report.setDeletedFiles(report.getDeletedFiles() + 1);
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to delete media file " + mediaFile.getId() + ": " + e.getMessage());
+                report.setErrors(report.getErrors() + 1);
+                continue;
+            }
+            if (mediaFile.getFileName() == null || !minioStorageService.releaseReference(mediaFile.getFileName())) {
+                continue; // Object còn MediaFile khác dùng chung (dedup)
+            }
+            objectNames.add(mediaFile.getFileName());
+            long freed = mediaFile.getSize() != null ? mediaFile.getSize() : 0;
+            for (MediaVariant variant : mediaFile.getVariants()) {
+                if (variant.getFileName() != null && objectNames.add(variant.getFileName()) && variant.getSize() != null) {
+                    freed += variant.getSize();
+                }
+            }
+            // Variant chưa READY: có thể đã ghi lên MinIO mà chưa kịp lưu DB (worker chết giữa chừng...)
+            if (mediaFile.getVariantStatus() != null && mediaFile.getVariantStatus() != VariantStatus.READY) {
+                objectNames.addAll(imageVariantService.possibleVariantObjectNames(mediaFile.getFileName()));
+            }
+            report.setFreedBytes(report.getFreedBytes() + freed);
+        }
+
+        // Xoá theo cụm delete-rate object, mỗi cụm ít nhất 1 giây
+        List<String> names = new ArrayList<>(objectNames);
+        int chunk = Math.max(1, deleteRate);
+        for (int i = 0; i < names.size(); i += chunk) {
+            long started = System.nanoTime();
+            List<String> slice = names.subList(i, Math.min(i + chunk, names.size()));
+            int errors = minioStorageService.removeObjects(slice);
+            report.setErrors(report.getErrors() + errors);
+            report.setDeletedObjects(report.getDeletedObjects() + slice.size() - errors);
+            long elapsedMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+            if (i + chunk < names.size() && elapsedMs < 1000) {
+                Thread.sleep(1000 - elapsedMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.chatapp.media_service.service;
+
+import com.chatapp.media_service.dto.MediaFileDTO;
+import com.chatapp.media_service.dto.MediaPageDTO;
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.repository.MediaFileRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Đọc metadata MediaFile (tên, kích thước, loại, thumbnail...) cho client và chat-service.
+ * Kết quả theo id được cache trong bộ nhớ (cache "mediaFiles", Caffeine); bản ghi chỉ đổi khi
+ * worker tạo thumbnail xong -> ImageVariantService gọi {@link #evict(String)}.
+ */
+@Service
+public class MediaMetadataService {
+
+    public static final String CACHE_NAME = "mediaFiles";
+
+    private final MediaFileRepository mediaFileRepository;
+    private final Cache cache;
+
+    public MediaMetadataService(MediaFileRepository mediaFileRepository, CacheManager cacheManager) {
+        this.mediaFileRepository = mediaFileRepository;
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Cache '" + CACHE_NAME + "' is not configured");
+    }
+
+    public Optional<MediaFileDTO> getById(String id) {
+        MediaFileDTO cached = cache.get(id, MediaFileDTO.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Không cache kết quả rỗng: file có thể vừa được upload ngay sau đó
+        return mediaFileRepository.findById(id).map(this::cacheAndConvert);
+    }
+
+    /**
+     * Lấy nhiều file một lúc: phần có trong cache trả luôn, phần còn lại 1 câu IN duy nhất.
+     * Giữ thứ tự theo ids, bỏ qua id không tồn tại.
+     */
+    public List<MediaFileDTO> getByIds(Collection<String> ids) {
+        Map<String, MediaFileDTO> found = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            MediaFileDTO cached = cache.get(id, MediaFileDTO.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            for (MediaFile mediaFile : mediaFileRepository.findAllById(misses)) {
+                found.put(mediaFile.getId(), cacheAndConvert(mediaFile));
+            }
+        }
+
+        List<MediaFileDTO> result = new ArrayList<>(found.size());
+        for (String id : new LinkedHashSet<>(ids)) {
+            MediaFileDTO dto = found.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Danh sách file của 1 uploader, mới nhất trước, phân trang keyset theo (createdAt, id).
+     * Không đi qua cache (danh sách thay đổi liên tục) nhưng vẫn làm ấm cache theo id.
+     */
+    public MediaPageDTO listByUploader(String uploaderId, String cursor, int limit) {
+        // Lấy dư 1 bản ghi để biết còn trang sau hay không
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<MediaFile> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = mediaFileRepository.findByUploaderIdOrderByCreatedAtDescIdDesc(uploaderId, page);
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = mediaFileRepository.findPageAfter(uploaderId, LocalDateTime.parse(position[0]), position[1], page);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<MediaFile> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        List<MediaFileDTO> items = pageRows.stream().map(this::cacheAndConvert).toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            MediaFile last = pageRows.get(pageRows.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return MediaPageDTO.builder().items(items).nextCursor(nextCursor).build();
+    }
+
+    public void evict(String id) {
+        cache.evict(id);
+    }
+
+    private MediaFileDTO cacheAndConvert(MediaFile mediaFile) {
+        MediaFileDTO dto = toDTO(mediaFile);
+        cache.put(mediaFile.getId(), dto);
+        return dto;
+    }
+
+    private MediaFileDTO toDTO(MediaFile mediaFile) {
+        return MediaFileDTO.builder()
+                .id(mediaFile.getId())
+                .fileName(mediaFile.getOriginalFileName())
+                .url(mediaFile.getUrl())
+                .contentType(mediaFile.getContentType())
+                .size(mediaFile.getSize())
+                .contentHash(mediaFile.getContentHash())
+                .uploaderId(mediaFile.getUploaderId())
+                .createdAt(mediaFile.getCreatedAt())
+                .variantStatus(mediaFile.getVariantStatus() != null ? mediaFile.getVariantStatus().name() : null)
+                .variants(List.copyOf(mediaFile.getVariants()))
+                .build();
+    }
+
+    // Cursor mờ (base64url) để client không phụ thuộc vào định dạng bên trong
+    private String encodeCursor(LocalDateTime createdAt, String id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(parts[0]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -1,93 +1,406 @@
 package com.chatapp.media_service.service;
 
 import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.entity.MediaObject;
+import com.chatapp.media_service.entity.MediaVariant;
+import com.chatapp.media_service.enums.VariantStatus;
+import com.chatapp.media_service.exception.UploadRejectedException;
 import com.chatapp.media_service.repository.MediaFileRepository;
+import com.chatapp.media_service.repository.MediaObjectRepository;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.unit.DataSize;
 
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class MinioStorageService { // Tên Class giữ nguyên
 
+    // Giới hạn của S3 DeleteObjects: tối đa 1000 key mỗi request
+    private static final int MAX_DELETE_BATCH = 1000;
+
     // Inject Bean đã tạo ở MinioConfig
     private final MinioClient minioClient;
     private final MediaFileRepository mediaFileRepository; // Tên biến Repository chuẩn
+    private final MediaObjectRepository mediaObjectRepository; // Đếm tham chiếu object dùng chung
 
     @Value("${minio.bucket-name}")
     private String bucketName;
 
+    // Host công khai (Gateway): URL tải file = <public-url>/api/v1/media/files/<id>
     @Value("${minio.public-url}")
     private String minioPublicUrl;
 
-    // [SỬA] Tên Constructor phải trùng tên Class (MinioStorageService)
-    // [SỬA] Tham số phải là MediaFileRepository để khớp với biến ở trên
-    public MinioStorageService(MinioClient minioClient, MediaFileRepository mediaFileRepository) {
+    // Giai đoạn chuyển tiếp: URL cũ <public-url>/<bucket>/<object> vẫn còn trong tin nhắn / avatar
+    // -> giữ policy public-read. Đặt false sau khi đã đổi hết URL cũ để gỡ policy khỏi bucket.
+    @Value("${minio.public-read:true}")
+    private boolean publicRead;
+
+    // Kích thước mỗi part của MinIO multipart upload = buffer tối đa MỘT upload giữ trên heap
+    @Value("${minio.upload.part-size:5MB}")
+    private DataSize partSize;
+
+    // Giới hạn số upload chạy song song -> heap dùng cho upload <= max-concurrent * part-size
+    private final Semaphore uploadPermits;
+    private final long acquireTimeoutMs;
+
+    public MinioStorageService(MinioClient minioClient, MediaFileRepository mediaFileRepository,
+                               MediaObjectRepository mediaObjectRepository,
+                               @Value("${minio.upload.max-concurrent:16}") int maxConcurrentUploads,
+                               @Value("${minio.upload.acquire-timeout-ms:10000}") long acquireTimeoutMs) {
         this.minioClient = minioClient;
         this.mediaFileRepository = mediaFileRepository;
+        this.mediaObjectRepository = mediaObjectRepository;
+        this.uploadPermits = new Semaphore(maxConcurrentUploads, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
     }
 
-    public MediaFile uploadFile(MultipartFile file, String uploaderId) {
+    // Kiểm tra/tạo Bucket MỘT LẦN khi khởi động thay vì gọi bucketExists ở mỗi lần upload
+    @PostConstruct
+    public void initBucket() {
         try {
-            // 1. Kiểm tra Bucket, nếu chưa có thì tạo và set Public
             boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
             if (!found) {
                 System.out.println("🔧 Bucket '" + bucketName + "' not found. Creating...");
                 minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
 
-                // Tạo Policy Public Read
-                String policyJson = buildPublicReadPolicy(bucketName);
-                minioClient.setBucketPolicy(
-                        SetBucketPolicyArgs.builder().bucket(bucketName).config(policyJson).build()
-                );
-                System.out.println("✅ Bucket created and set to Public Read.");
+                if (publicRead) {
+                    // Tạo Policy Public Read
+                    String policyJson = buildPublicReadPolicy(bucketName);
+                    minioClient.setBucketPolicy(
+                            SetBucketPolicyArgs.builder().bucket(bucketName).config(policyJson).build()
+                    );
+                    System.out.println("✅ Bucket created and set to Public Read.");
+                }
+            } else if (!publicRead) {
+                // Hết giai đoạn chuyển tiếp: file chỉ còn đọc được qua /api/v1/media/files/{id}
+                minioClient.deleteBucketPolicy(DeleteBucketPolicyArgs.builder().bucket(bucketName).build());
+                System.out.println("🔒 Public Read policy removed from bucket '" + bucketName + "'.");
             }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to initialize MinIO bucket '" + bucketName + "'", e);
+        }
+    }
 
-            // 2. Tạo tên file unique
-            String originalFilename = file.getOriginalFilename();
-            String extension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-            // Dùng UUID để tránh trùng tên
-            String fileName = UUID.randomUUID().toString() + extension;
+    /**
+     * Stream dữ liệu thẳng từ request body vào MinIO (multipart upload), không lưu file tạm ra đĩa.
+     * SHA-256 được tính ngay trên stream; nếu nội dung đã tồn tại thì xoá bản vừa upload
+     * và trỏ MediaFile mới vào object cũ (tăng refCount).
+     *
+     * @param size số byte nếu biết trước (Content-Length), -1 nếu không biết (multipart/form-data)
+     */
+    public MediaFile uploadStream(InputStream inputStream, String originalFilename, String contentType,
+                                  long size, String uploaderId) {
+        acquireUploadPermit();
+        try {
+            // 1. Tạo tên file unique
+            String fileName = generateObjectName(originalFilename);
 
-            // 3. Upload file lên MinIO
+            // 2. Upload lên MinIO: SDK đọc từng part (part-size) rồi gửi, bộ nhớ bị chặn theo part-size
+            BoundedInputStream countingStream = BoundedInputStream.builder().setInputStream(inputStream).get();
+            DigestInputStream digestStream = new DigestInputStream(countingStream, MessageDigest.getInstance("SHA-256"));
             minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(bucketName)
                             .object(fileName)
-                            .stream(file.getInputStream(), file.getSize(), -1)
-                            .contentType(file.getContentType())
+                            .stream(digestStream, size, partSize.toBytes())
+                            .contentType(contentType != null ? contentType : "application/octet-stream")
                             .build()
             );
+            String contentHash = HexFormat.of().formatHex(digestStream.getMessageDigest().digest());
 
-            // 4. Tạo Public URL vĩnh viễn (Không dùng Presigned URL)
-            // Format: https://api.chatify.asia/chatapp-files/filename.jpg
-            String publicUrl = String.format("%s/%s/%s", minioPublicUrl, bucketName, fileName);
+            // 3. Trùng nội dung -> dùng lại object đã có (bản vừa upload bị xoá)
+            String storedName = deduplicate(fileName, contentHash, countingStream.getCount(), contentType);
 
-            System.out.println("✅ Uploaded: " + publicUrl);
+            System.out.println(storedName.equals(fileName) ? "✅ Uploaded: " + storedName : "♻️ Deduplicated: " + storedName);
 
-            // 5. Lưu thông tin vào Database
+            // 4. Lưu thông tin vào Database, URL là endpoint tải file (có kiểm tra quyền) thay cho link bucket public
             MediaFile mediaFile = new MediaFile();
-            mediaFile.setFileName(fileName); // UUID-based unique name
+            mediaFile.setFileName(storedName); // UUID-based name, dùng chung nếu trùng nội dung
             mediaFile.setOriginalFileName(originalFilename); // Original name from user
-            mediaFile.setContentType(file.getContentType());
-            mediaFile.setSize(file.getSize());
-            mediaFile.setUrl(publicUrl);
+            mediaFile.setContentType(contentType);
+            mediaFile.setSize(countingStream.getCount());
+            mediaFile.setContentHash(contentHash);
             mediaFile.setUploaderId(uploaderId);
             mediaFile.setCreatedAt(LocalDateTime.now());
+            copyReadyVariants(mediaFile);
 
-            // Lưu bằng repository đã inject đúng
-            return mediaFileRepository.save(mediaFile);
+            return saveWithDownloadUrl(mediaFile);
 
         } catch (Exception e) {
             e.printStackTrace();
-            throw new RuntimeException("Failed to upload file to MinIO: " + e.getMessage());
+            throw new RuntimeException("Failed to upload file to MinIO: " + e.getMessage(), e);
+        } finally {
+            releaseUploadPermit();
+        }
+    }
+
+    /**
+     * Client gửi kèm SHA-256 (header X-Content-SHA256) -> nếu CHÍNH user này đã upload nội dung đó
+     * thì tạo MediaFile mới trỏ vào object cũ, server không đọc body (forward lại ảnh của mình).
+     * Chỉ bỏ được bước hash + ghi vào MinIO: client thường đã gửi body rồi nên băng thông mạng vẫn tốn.
+     * Không khớp với file của người khác: biết hash không có nghĩa là được quyền lấy URL.
+     */
+    public Optional<MediaFile> reuseOwnUpload(String contentHash, String originalFilename, String uploaderId) {
+        if (contentHash == null || contentHash.isBlank()) {
+            return Optional.empty();
+        }
+        return mediaFileRepository
+                .findFirstByContentHashAndUploaderIdOrderByCreatedAtAsc(contentHash.toLowerCase(), uploaderId)
+                .filter(existing -> mediaObjectRepository.incrementRefCount(existing.getFileName()) > 0)
+                .map(existing -> {
+                    MediaFile mediaFile = new MediaFile();
+                    mediaFile.setFileName(existing.getFileName());
+                    mediaFile.setOriginalFileName(originalFilename != null ? originalFilename : existing.getOriginalFileName());
+                    mediaFile.setContentType(existing.getContentType());
+                    mediaFile.setSize(existing.getSize());
+                    mediaFile.setContentHash(existing.getContentHash());
+                    mediaFile.setUploaderId(uploaderId);
+                    copyReadyVariants(mediaFile);
+                    return saveWithDownloadUrl(mediaFile);
+                });
+    }
+
+    /**
+     * Đăng ký object vừa upload (refCount = 1). Trùng SHA-256 với object đang sống thì
+     * tăng refCount object đó, xoá bản mới và trả về tên object cũ.
+     */
+    private String deduplicate(String fileName, String contentHash, long size, String contentType) {
+        Optional<MediaObject> existing = mediaObjectRepository.findBySha256(contentHash);
+        if (existing.isPresent() && mediaObjectRepository.incrementRefCount(existing.get().getObjectName()) > 0) {
+            removeQuietly(fileName);
+            return existing.get().getObjectName();
+        }
+
+        try {
+            registerObject(fileName, contentHash, size, contentType);
+            return fileName;
+        } catch (DataIntegrityViolationException e) {
+            // Upload song song cùng nội dung vừa đăng ký trước -> dùng bản đó
+            Optional<MediaObject> winner = mediaObjectRepository.findBySha256(contentHash);
+            if (winner.isPresent() && mediaObjectRepository.incrementRefCount(winner.get().getObjectName()) > 0) {
+                removeQuietly(fileName);
+                return winner.get().getObjectName();
+            }
+            // Bản cũ đang bị giải phóng: giữ bản mới nhưng không tham gia dedup
+            registerObject(fileName, null, size, contentType);
+            return fileName;
+        }
+    }
+
+    public void registerObject(String objectName, String contentHash, long size, String contentType) {
+        mediaObjectRepository.saveAndFlush(MediaObject.builder()
+                .objectName(objectName)
+                .sha256(contentHash)
+                .size(size)
+                .contentType(contentType)
+                .refCount(1)
+                .build());
+    }
+
+    /**
+     * Bỏ 1 tham chiếu tới object; tham chiếu cuối cùng thì xoá object gốc + các bản thumbnail/resize.
+     */
+    public void releaseObject(String objectName) {
+        if (!releaseReference(objectName)) {
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        names.add(objectName);
+        // Thumbnail/resize nằm cạnh bản gốc: <uuid>_thumb.jpg, <uuid>_w640.jpg...
+        int dot = objectName.lastIndexOf('.');
+        String variantPrefix = (dot > 0 ? objectName.substring(0, dot) : objectName) + "_";
+        try {
+            for (Result<Item> result : minioClient.listObjects(
+                    ListObjectsArgs.builder().bucket(bucketName).prefix(variantPrefix).build())) {
+                names.add(result.get().objectName());
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to list variants of " + objectName + ": " + e.getMessage());
+        }
+        removeObjects(names);
+    }
+
+    /**
+     * Giảm refCount trong DB (không đụng MinIO). Chỉ dựa vào số dòng của 2 câu lệnh nguyên tử
+     * (UPDATE giảm, rồi DELETE khi refCount <= 0), không đọc lại refCount: 2 lượt giải phóng song song
+     * không thể cùng thấy "tham chiếu cuối" và cùng xoá object.
+     * Object tạo trước khi có media_objects (không có bản ghi) được coi là chỉ có 1 tham chiếu.
+     *
+     * @return true nếu đây là tham chiếu cuối cùng -> caller phải xoá object trên MinIO
+     */
+    public boolean releaseReference(String objectName) {
+        if (mediaObjectRepository.decrementRefCount(objectName) == 0) {
+            // Không giảm được: hoặc object cũ không có bản ghi, hoặc refCount đã về 0
+            // và lượt giải phóng khác đang xoá -> để lượt đó xoá
+            return !mediaObjectRepository.existsById(objectName);
+        }
+        return mediaObjectRepository.deleteIfUnreferenced(objectName) > 0;
+    }
+
+    /**
+     * Xoá nhiều object bằng multi-object delete của S3/MinIO (tối đa 1000 key / request).
+     * Key không tồn tại không bị coi là lỗi.
+     *
+     * @return số object xoá lỗi
+     */
+    public int removeObjects(Collection<String> objectNames) {
+        int errors = 0;
+        List<DeleteObject> batch = new ArrayList<>(MAX_DELETE_BATCH);
+        for (String objectName : objectNames) {
+            batch.add(new DeleteObject(objectName));
+            if (batch.size() == MAX_DELETE_BATCH) {
+                errors += removeBatch(batch);
+                batch = new ArrayList<>(MAX_DELETE_BATCH);
+            }
         }
+        if (!batch.isEmpty()) {
+            errors += removeBatch(batch);
+        }
+        return errors;
+    }
+
+    private int removeBatch(List<DeleteObject> batch) {
+        int errors = 0;
+        try {
+            // Iterable lazy: request chỉ thực sự được gửi khi duyệt kết quả
+            for (Result<DeleteError> result : minioClient.removeObjects(
+                    RemoveObjectsArgs.builder().bucket(bucketName).objects(batch).build())) {
+                DeleteError error = result.get();
+                System.err.println("⚠️ Failed to remove object " + error.objectName() + ": " + error.message());
+                errors++;
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Multi-object delete failed: " + e.getMessage());
+            errors += batch.size();
+        }
+        return errors;
+    }
+
+    /**
+     * Mở stream đọc object (hoặc 1 đoạn byte cho HTTP Range). MinIO chỉ gửi đúng đoạn được yêu cầu.
+     *
+     * @param length số byte cần đọc, -1 = tới hết object
+     */
+    public InputStream openObject(String objectName, long offset, long length) {
+        try {
+            GetObjectArgs.Builder args = GetObjectArgs.builder().bucket(bucketName).object(objectName);
+            if (offset > 0) {
+                args.offset(offset);
+            }
+            if (length >= 0) {
+                args.length(length);
+            }
+            return minioClient.getObject(args.build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read object " + objectName + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Object đã nằm trên MinIO chưa (vd. completeMultipartUpload đã chạy xong ở lần gọi trước)
+    public boolean objectExists(String objectName) {
+        try {
+            minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw new RuntimeException("Failed to stat object " + objectName + ": " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to stat object " + objectName + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Object dùng chung đã có thumbnail -> chép sang MediaFile mới, khỏi phải tạo lại
+    private void copyReadyVariants(MediaFile mediaFile) {
+        mediaFileRepository.findFirstByContentHashOrderByCreatedAtAsc(mediaFile.getContentHash())
+                .filter(existing -> existing.getFileName().equals(mediaFile.getFileName()))
+                .filter(existing -> existing.getVariantStatus() == VariantStatus.READY)
+                .ifPresent(existing -> {
+                    mediaFile.setVariantStatus(VariantStatus.READY);
+                    mediaFile.setVariants(new ArrayList<>(existing.getVariants()));
+                });
+    }
+
+    private void removeQuietly(String objectName) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(objectName).build());
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to remove object " + objectName + ": " + e.getMessage());
+        }
+    }
+
+    // Dùng UUID để tránh trùng tên, giữ lại phần mở rộng của file gốc
+    public String generateObjectName(String originalFilename) {
+        String extension = "";
+        if (originalFilename != null && originalFilename.contains(".")) {
+            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+        }
+        return UUID.randomUUID().toString() + extension;
+    }
+
+    /**
+     * Lưu MediaFile mới rồi gán URL tải file theo id vừa sinh (cho cả file gốc và các variant chép sang).
+     * URL gắn với MediaFile chứ không với object: 2 MediaFile dùng chung object vẫn có quyền xem riêng.
+     */
+    public MediaFile saveWithDownloadUrl(MediaFile mediaFile) {
+        MediaFile saved = mediaFileRepository.save(mediaFile);
+        saved.setUrl(buildDownloadUrl(saved.getId(), null));
+        List<MediaVariant> variants = new ArrayList<>();
+        for (MediaVariant variant : saved.getVariants()) {
+            MediaVariant copy = new MediaVariant(variant.getLabel(), variant.getFileName(),
+                    buildDownloadUrl(saved.getId(), variant.getLabel()), variant.getContentType(),
+                    variant.getWidth(), variant.getHeight(), variant.getSize());
+            variants.add(copy);
+        }
+        saved.setVariants(variants);
+        return mediaFileRepository.save(saved);
+    }
+
+    // Format: https://api.chatify.asia/api/v1/media/files/<id>[?variant=w640]
+    public String buildDownloadUrl(String mediaFileId, String variantLabel) {
+        String url = String.format("%s/api/v1/media/files/%s", minioPublicUrl, mediaFileId);
+        return variantLabel != null ? url + "?variant=" + variantLabel : url;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    // Upload resumable cũng buffer 1 part/chunk trên heap -> dùng chung semaphore với upload stream
+    public void acquireUploadPermit() {
+        try {
+            if (!uploadPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new UploadRejectedException("Too many concurrent uploads, please retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadRejectedException("Upload interrupted while waiting for a slot");
+        }
+    }
+
+    public void releaseUploadPermit() {
+        uploadPermits.release();
     }
 
     // Helper tạo chuỗi JSON Policy
@@ -106,4 +419,4 @@ public class MinioStorageService { // Tên Class giữ nguyên
                 "    ]\n" +
                 "}";
     }
-}
\ No newline at end of file
+}
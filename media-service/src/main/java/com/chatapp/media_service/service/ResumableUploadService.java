@@ -0,0 +1,480 @@
+package com.chatapp.media_service.service;
+
+import com.chatapp.media_service.config.MultipartMinioClient;
+import com.chatapp.media_service.dto.CreateUploadSessionRequest;
+import com.chatapp.media_service.dto.UploadSessionDTO;
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.entity.UploadSession;
+import com.chatapp.media_service.entity.UploadSessionPart;
+import com.chatapp.media_service.enums.UploadSessionStatus;
+import com.chatapp.media_service.exception.ResumableUploadException;
+import com.chatapp.media_service.repository.MediaFileRepository;
+import com.chatapp.media_service.repository.UploadSessionPartRepository;
+import com.chatapp.media_service.repository.UploadSessionRepository;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Upload resumable theo chunk, ánh xạ lên MinIO multipart upload:
+ * <ol>
+ *   <li>{@link #createSession} -> createMultipartUpload, trả về chunkSize cố định</li>
+ *   <li>{@link #uploadChunk} -> mỗi chunk (offset = k * chunkSize) là part k + 1; gửi lại cùng offset sẽ ghi đè part</li>
+ *   <li>{@link #complete} -> completeMultipartUpload + lưu MediaFile</li>
+ * </ol>
+ * Mỗi request chỉ mang 1 chunk nên servlet thread không bị giữ hàng phút như upload 1 phát;
+ * mất mạng thì client hỏi {@link #getSession} và gửi tiếp từ nextOffset.
+ */
+@Slf4j
+@Service
+public class ResumableUploadService {
+
+    // Giới hạn của S3/MinIO: part tối thiểu 5MB (trừ part cuối), tối đa 10.000 part
+    private static final long MIN_CHUNK_SIZE = DataSize.ofMegabytes(5).toBytes();
+    private static final int MAX_PARTS = 10_000;
+
+    private final MultipartMinioClient multipartClient;
+    private final MinioStorageService storageService;
+    private final UploadSessionRepository sessionRepository;
+    private final UploadSessionPartRepository partRepository;
+    private final MediaFileRepository mediaFileRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${minio.upload.resumable.max-file-size:5GB}")
+    private DataSize maxFileSize;
+
+    @Value("${minio.upload.resumable.chunk-size:5MB}")
+    private DataSize chunkSize;
+
+    // Session hết hạn nếu không nhận chunk nào trong khoảng này (gia hạn sau mỗi chunk)
+    @Value("${minio.upload.resumable.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    // Thời gian 1 request complete được giữ session; chết giữa chừng thì lần gọi sau giành lại sau lease
+    @Value("${minio.upload.resumable.complete-lease:10m}")
+    private Duration completeLease;
+
+    @Value("${minio.upload.resumable.cleanup-batch-size:100}")
+    private int cleanupBatchSize;
+
+    public ResumableUploadService(MultipartMinioClient multipartClient, MinioStorageService storageService,
+                                  UploadSessionRepository sessionRepository,
+                                  UploadSessionPartRepository partRepository,
+                                  MediaFileRepository mediaFileRepository,
+                                  TransactionTemplate transactionTemplate) {
+        this.multipartClient = multipartClient;
+        this.storageService = storageService;
+        this.sessionRepository = sessionRepository;
+        this.partRepository = partRepository;
+        this.mediaFileRepository = mediaFileRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public UploadSessionDTO createSession(CreateUploadSessionRequest request, String uploaderId) {
+        Long size = request.getSize();
+        if (size == null || size <= 0) {
+            throw new ResumableUploadException(HttpStatus.BAD_REQUEST, "File size is required");
+        }
+        if (size > maxFileSize.toBytes()) {
+            throw new ResumableUploadException(HttpStatus.PAYLOAD_TOO_LARGE, "File exceeds " + maxFileSize);
+        }
+
+        long effectiveChunkSize = Math.max(chunkSize.toBytes(), MIN_CHUNK_SIZE);
+        // File quá lớn so với chunk -> nới chunk để không vượt 10.000 part
+        effectiveChunkSize = Math.max(effectiveChunkSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+
+        String contentType = request.getContentType() != null ? request.getContentType() : "application/octet-stream";
+        String objectName = storageService.generateObjectName(request.getFileName());
+
+        String minioUploadId;
+        try {
+            minioUploadId = multipartClient.createMultipartUpload(storageService.getBucketName(), objectName, contentType);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to start multipart upload: " + e.getMessage(), e);
+        }
+
+        UploadSession session = UploadSession.builder()
+                .minioUploadId(minioUploadId)
+                .objectName(objectName)
+                .originalFileName(request.getFileName())
+                .contentType(contentType)
+                .totalSize(size)
+                .chunkSize(effectiveChunkSize)
+                .uploaderId(uploaderId)
+                .status(UploadSessionStatus.ACTIVE)
+                .expiresAt(LocalDateTime.now().plus(sessionTtl))
+                .build();
+        session = sessionRepository.save(session);
+
+        log.info("📦 Upload session {} created: {} bytes, chunk {} bytes", session.getId(), size, effectiveChunkSize);
+        return toDTO(session, List.of());
+    }
+
+    public UploadSessionDTO getSession(String sessionId, String uploaderId) {
+        UploadSession session = loadOwnedSession(sessionId, uploaderId);
+        return toDTO(session, partRepository.findBySessionIdOrderByPartNumberAsc(sessionId));
+    }
+
+    /**
+     * Nhận 1 chunk. Không mở transaction DB trong lúc đẩy dữ liệu sang MinIO;
+     * chunk chỉ được ghi nhận khi MinIO nhận xong VÀ checksum khớp.
+     *
+     * @param sha256Hex checksum SHA-256 (hex) của chunk do client gửi, null nếu bỏ qua kiểm tra
+     */
+    public UploadSessionDTO uploadChunk(String sessionId, String uploaderId, long offset, long contentLength,
+                                        String sha256Hex, InputStream body) {
+        UploadSession session = loadActiveSession(sessionId, uploaderId);
+
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new ResumableUploadException(HttpStatus.CONFLICT,
+                    "Offset must be a multiple of " + session.getChunkSize() + " below " + session.getTotalSize());
+        }
+        long expectedLength = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+        if (contentLength < 0) {
+            throw new ResumableUploadException(HttpStatus.LENGTH_REQUIRED, "Content-Length is required");
+        }
+        if (contentLength != expectedLength) {
+            throw new ResumableUploadException(HttpStatus.BAD_REQUEST,
+                    "Chunk at offset " + offset + " must be exactly " + expectedLength + " bytes");
+        }
+
+        int partNumber = (int) (offset / session.getChunkSize()) + 1;
+        String etag;
+        String actualSha256;
+
+        storageService.acquireUploadPermit();
+        try {
+            DigestInputStream digestStream = new DigestInputStream(body, MessageDigest.getInstance("SHA-256"));
+            etag = multipartClient.uploadPart(storageService.getBucketName(), session.getObjectName(),
+                    session.getMinioUploadId(), partNumber, digestStream, expectedLength);
+            actualSha256 = HexFormat.of().formatHex(digestStream.getMessageDigest().digest());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to upload chunk " + partNumber + ": " + e.getMessage(), e);
+        } finally {
+            storageService.releaseUploadPermit();
+        }
+
+        // Sai checksum -> không ghi nhận; client gửi lại cùng offset sẽ ghi đè part trên MinIO
+        if (sha256Hex != null && !sha256Hex.equalsIgnoreCase(actualSha256)) {
+            throw new ResumableUploadException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Checksum mismatch for chunk at offset " + offset);
+        }
+
+        recordPart(sessionId, partNumber, expectedLength, etag, actualSha256);
+        sessionRepository.touch(sessionId, LocalDateTime.now().plus(sessionTtl));
+
+        return getSession(sessionId, uploaderId);
+    }
+
+    /**
+     * Ghép các part thành object và tạo MediaFile. Gọi lại sau khi đã COMPLETED (vd. mất response)
+     * sẽ trả về đúng MediaFile cũ.
+     * <ul>
+     *   <li>Session được giành (ACTIVE -> COMPLETING) trước khi gọi MinIO: 2 request complete song song
+     *       chỉ 1 request chạy, request kia nhận 409</li>
+     *   <li>Lỗi bất kỳ bước nào -> trả session về ACTIVE; lần gọi lại thấy MinIO đã ghép xong (NoSuchUpload
+     *       + object đã tồn tại) thì đăng ký object đó thay vì báo lỗi</li>
+     *   <li>media_objects + media_files + session ghi trong 1 transaction: không có trạng thái ghi dở</li>
+     * </ul>
+     */
+    public MediaFile complete(String sessionId, String uploaderId) {
+        UploadSession session = loadOwnedSession(sessionId, uploaderId);
+        if (session.getStatus() == UploadSessionStatus.COMPLETED && session.getMediaFileId() != null) {
+            return completedFile(session);
+        }
+        // COMPLETING quá lease (lần complete trước chết giữa chừng) được giành lại ở claimForCompletion
+        if (session.getStatus() != UploadSessionStatus.COMPLETING) {
+            ensureActive(session);
+        }
+
+        List<UploadSessionPart> parts = partRepository.findBySessionIdOrderByPartNumberAsc(sessionId);
+        UploadSessionDTO progress = toDTO(session, parts);
+        if (progress.getNextOffset() != null) {
+            throw new ResumableUploadException(HttpStatus.CONFLICT,
+                    "Upload incomplete, next missing offset is " + progress.getNextOffset());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (sessionRepository.claimForCompletion(sessionId, now, now.plus(completeLease)) == 0) {
+            UploadSession current = loadOwnedSession(sessionId, uploaderId);
+            if (current.getStatus() == UploadSessionStatus.COMPLETED && current.getMediaFileId() != null) {
+                return completedFile(current);
+            }
+            throw new ResumableUploadException(HttpStatus.CONFLICT, "Upload is already being completed, retry later");
+        }
+
+        try {
+            completeMultipart(session, parts);
+            MediaFile mediaFile = transactionTemplate.execute(status -> register(session));
+            partRepository.deleteBySessionId(sessionId);
+
+            log.info("✅ Upload session {} completed: {}", sessionId, mediaFile.getUrl());
+            return mediaFile;
+        } catch (RuntimeException e) {
+            sessionRepository.releaseCompletion(sessionId, LocalDateTime.now().plus(sessionTtl));
+            throw e;
+        }
+    }
+
+    private void completeMultipart(UploadSession session, List<UploadSessionPart> parts) {
+        Part[] minioParts = parts.stream()
+                .map(part -> new Part(part.getPartNumber(), part.getEtag()))
+                .toArray(Part[]::new);
+        try {
+            multipartClient.completeMultipartUpload(storageService.getBucketName(), session.getObjectName(),
+                    session.getMinioUploadId(), minioParts);
+        } catch (Exception e) {
+            // Lần gọi trước đã ghép xong trên MinIO nhưng lỗi khi ghi DB -> dùng object đã có
+            if (isNoSuchUpload(e) && storageService.objectExists(session.getObjectName())) {
+                log.info("Upload session {} was already assembled on MinIO, registering existing object", session.getId());
+                return;
+            }
+            if (isNoSuchUpload(e)) {
+                throw new ResumableUploadException(HttpStatus.GONE, "Upload no longer exists on storage");
+            }
+            throw new RuntimeException("Failed to complete multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    // Gọi trong transaction
+    private MediaFile register(UploadSession session) {
+        // Không có hash cả file (chunk đến không theo thứ tự) -> object riêng, không tham gia dedup
+        storageService.registerObject(session.getObjectName(), null, session.getTotalSize(), session.getContentType());
+
+        MediaFile mediaFile = new MediaFile();
+        mediaFile.setFileName(session.getObjectName());
+        mediaFile.setOriginalFileName(session.getOriginalFileName());
+        mediaFile.setContentType(session.getContentType());
+        mediaFile.setSize(session.getTotalSize());
+        mediaFile.setUploaderId(session.getUploaderId());
+        mediaFile = storageService.saveWithDownloadUrl(mediaFile);
+
+        session.setStatus(UploadSessionStatus.COMPLETED);
+        session.setMediaFileId(mediaFile.getId());
+        sessionRepository.save(session);
+        return mediaFile;
+    }
+
+    private MediaFile completedFile(UploadSession session) {
+        return mediaFileRepository.findById(session.getMediaFileId())
+                .orElseThrow(() -> new ResumableUploadException(HttpStatus.GONE, "Uploaded file no longer exists"));
+    }
+
+    public void abort(String sessionId, String uploaderId) {
+        UploadSession session = loadOwnedSession(sessionId, uploaderId);
+        ensureActive(session);
+        abortMultipart(session);
+        finish(session, UploadSessionStatus.ABORTED);
+    }
+
+    /**
+     * GC: abort multipart trên MinIO cho các session quá hạn (giải phóng các part đã upload)
+     * rồi đánh dấu EXPIRED. MinIO lỗi -> dừng lượt này, lượt sau thử lại.
+     * Session kẹt ở COMPLETING (instance chết giữa lúc complete, client không gọi lại) được xử lý ở
+     * {@link #recoverStaleCompletions}.
+     */
+    @Scheduled(fixedDelayString = "${minio.upload.resumable.cleanup-interval-ms:600000}")
+    public void expireSessions() {
+        recoverStaleCompletions();
+        int expired = 0;
+        while (true) {
+            List<UploadSession> batch = sessionRepository.findByStatusAndExpiresAtBefore(
+                    UploadSessionStatus.ACTIVE, LocalDateTime.now(), PageRequest.of(0, cleanupBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (UploadSession session : batch) {
+                try {
+                    abortMultipart(session);
+                } catch (RuntimeException e) {
+                    log.warn("⚠️ Could not abort expired upload session {}: {}", session.getId(), e.getMessage());
+                    logExpired(expired);
+                    return;
+                }
+                finish(session, UploadSessionStatus.EXPIRED);
+                expired++;
+            }
+        }
+        logExpired(expired);
+    }
+
+    /**
+     * COMPLETING quá lease: giành lại bằng cùng câu UPDATE có điều kiện như complete (instance khác hoặc
+     * client gọi complete cùng lúc thì chỉ 1 bên thắng). MinIO đã ghép xong (object tồn tại) -> đăng ký
+     * MediaFile như complete; chưa ghép -> abort multipart và đánh dấu EXPIRED.
+     * Lỗi -> để nguyên COMPLETING, lease hết hạn thì lượt sau thử lại.
+     */
+    private void recoverStaleCompletions() {
+        int recovered = 0;
+        int expired = 0;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            List<UploadSession> batch = sessionRepository.findByStatusAndExpiresAtBefore(
+                    UploadSessionStatus.COMPLETING, now, PageRequest.of(0, cleanupBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            boolean claimedAny = false;
+            for (UploadSession session : batch) {
+                if (sessionRepository.claimForCompletion(session.getId(), now, now.plus(completeLease)) == 0) {
+                    continue;
+                }
+                claimedAny = true;
+                try {
+                    if (storageService.objectExists(session.getObjectName())) {
+                        transactionTemplate.execute(status -> register(session));
+                        partRepository.deleteBySessionId(session.getId());
+                        recovered++;
+                    } else {
+                        abortMultipart(session);
+                        finish(session, UploadSessionStatus.EXPIRED);
+                        expired++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("⚠️ Could not recover stale upload session {}: {}", session.getId(), e.getMessage());
+                    logRecovered(recovered, expired);
+                    return;
+                }
+            }
+            // Cả lô đã bị instance khác giành -> lần đọc sau không còn thấy chúng; tránh lặp vô hạn nếu có
+            if (!claimedAny) {
+                break;
+            }
+        }
+        logRecovered(recovered, expired);
+    }
+
+    private void logRecovered(int recovered, int expired) {
+        if (recovered > 0 || expired > 0) {
+            log.info("🧹 Stale completing upload sessions: {} registered, {} expired", recovered, expired);
+        }
+    }
+
+    private void logExpired(int expired) {
+        if (expired > 0) {
+            log.info("🧹 Expired {} upload sessions", expired);
+        }
+    }
+
+    private void recordPart(String sessionId, int partNumber, long size, String etag, String sha256) {
+        UploadSessionPart part = partRepository.findBySessionIdAndPartNumber(sessionId, partNumber)
+                .orElseGet(() -> UploadSessionPart.builder().sessionId(sessionId).partNumber(partNumber).build());
+        part.setSize(size);
+        part.setEtag(etag);
+        part.setSha256(sha256);
+        try {
+            partRepository.save(part);
+        } catch (DataIntegrityViolationException e) {
+            // Cùng 1 chunk được gửi song song 2 lần: bản kia đã ghi nhận, MinIO giữ bản upload sau cùng
+            throw new ResumableUploadException(HttpStatus.CONFLICT,
+                    "Chunk " + partNumber + " was uploaded concurrently, please retry");
+        }
+    }
+
+    private void abortMultipart(UploadSession session) {
+        try {
+            multipartClient.abortMultipartUpload(storageService.getBucketName(), session.getObjectName(),
+                    session.getMinioUploadId());
+        } catch (Exception e) {
+            // Đã bị abort/complete trước đó (vd. instance khác dọn cùng lúc) -> coi như xong
+            if (isNoSuchUpload(e)) {
+                return;
+            }
+            throw new RuntimeException("Failed to abort multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    private void finish(UploadSession session, UploadSessionStatus status) {
+        session.setStatus(status);
+        sessionRepository.save(session);
+        partRepository.deleteBySessionId(session.getId());
+    }
+
+    private boolean isNoSuchUpload(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ErrorResponseException response
+                    && "NoSuchUpload".equals(response.errorResponse().code())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private UploadSession loadOwnedSession(String sessionId, String uploaderId) {
+        UploadSession session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new ResumableUploadException(HttpStatus.NOT_FOUND, "Upload session not found"));
+        if (!Objects.equals(session.getUploaderId(), uploaderId)) {
+            throw new ResumableUploadException(HttpStatus.FORBIDDEN, "Upload session belongs to another user");
+        }
+        return session;
+    }
+
+    private UploadSession loadActiveSession(String sessionId, String uploaderId) {
+        UploadSession session = loadOwnedSession(sessionId, uploaderId);
+        ensureActive(session);
+        return session;
+    }
+
+    private void ensureActive(UploadSession session) {
+        if (session.getStatus() == UploadSessionStatus.EXPIRED
+                || (session.getStatus() == UploadSessionStatus.ACTIVE && session.getExpiresAt().isBefore(LocalDateTime.now()))) {
+            throw new ResumableUploadException(HttpStatus.GONE, "Upload session expired");
+        }
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            throw new ResumableUploadException(HttpStatus.CONFLICT, "Upload session is " + session.getStatus());
+        }
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session, List<UploadSessionPart> parts) {
+        List<Long> receivedOffsets = parts.stream()
+                .map(part -> (part.getPartNumber() - 1) * session.getChunkSize())
+                .toList();
+        // Part bị xoá sau khi complete -> khi đó đã nhận đủ totalSize
+        long receivedBytes = session.getStatus() == UploadSessionStatus.COMPLETED
+                ? session.getTotalSize()
+                : parts.stream().mapToLong(UploadSessionPart::getSize).sum();
+
+        // Offset nhỏ nhất chưa nhận (parts đã sắp xếp theo partNumber)
+        Long nextOffset = null;
+        long expectedParts = (session.getTotalSize() + session.getChunkSize() - 1) / session.getChunkSize();
+        int index = 0;
+        for (int partNumber = 1; partNumber <= expectedParts; partNumber++) {
+            if (index < parts.size() && parts.get(index).getPartNumber() == partNumber) {
+                index++;
+                continue;
+            }
+            nextOffset = (partNumber - 1) * session.getChunkSize();
+            break;
+        }
+
+        return UploadSessionDTO.builder()
+                .uploadId(session.getId())
+                .fileName(session.getOriginalFileName())
+                .contentType(session.getContentType())
+                .totalSize(session.getTotalSize())
+                .chunkSize(session.getChunkSize())
+                .status(session.getStatus().name())
+                .receivedBytes(receivedBytes)
+                .receivedOffsets(receivedOffsets)
+                .nextOffset(session.getStatus() == UploadSessionStatus.ACTIVE ? nextOffset : null)
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
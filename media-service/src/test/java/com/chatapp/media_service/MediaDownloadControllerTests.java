@@ -0,0 +1,194 @@
+package com.chatapp.media_service;
+
+import com.chatapp.media_service.client.MediaReferenceClient;
+import com.chatapp.media_service.controller.MediaDownloadController;
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.repository.MediaFileRepository;
+import com.chatapp.media_service.service.MediaAccessService;
+import com.chatapp.media_service.service.MinioStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Kiểm tra Range / 304 / quyền xem của MediaDownloadController mà không cần Postgres hay MinIO.
+ */
+class MediaDownloadControllerTests {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = "ab".repeat(32);
+    private static final String URL = "https://api.chatify.asia/api/v1/media/files/f1";
+
+    private MediaFileRepository mediaFileRepository;
+    private MinioStorageService storageService;
+    private MediaReferenceClient referenceClient;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mediaFileRepository = mock(MediaFileRepository.class);
+        storageService = mock(MinioStorageService.class);
+        referenceClient = mock(MediaReferenceClient.class);
+        when(referenceClient.findAvatarReferences(anyList())).thenReturn(Set.of());
+
+        MediaFile file = new MediaFile();
+        file.setId("f1");
+        file.setFileName("obj.mp4");
+        file.setOriginalFileName("clip.mp4");
+        file.setContentType("video/mp4");
+        file.setSize((long) CONTENT.length);
+        file.setContentHash(HASH);
+        file.setUrl(URL);
+        file.setUploaderId("owner");
+        file.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        when(mediaFileRepository.findById("f1")).thenReturn(Optional.of(file));
+
+        when(storageService.openObject(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            int offset = (int) (long) invocation.getArgument(1, Long.class);
+            long length = invocation.getArgument(2, Long.class);
+            int end = length < 0 ? CONTENT.length : offset + (int) length;
+            return new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, offset, end));
+        });
+
+        MediaDownloadController controller = new MediaDownloadController(mediaFileRepository, storageService,
+                new MediaAccessService(referenceClient, Duration.ofMinutes(5)), new SimpleAsyncTaskExecutor(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(controller, "cacheControl", "private, max-age=31536000, immutable");
+        ReflectionTestUtils.setField(controller, "bufferSize", DataSize.ofBytes(8));
+        ReflectionTestUtils.setField(controller, "timeout", Duration.ofMinutes(30));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void fullDownloadSetsCachingHeaders() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "owner"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + HASH + "\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "private, max-age=31536000, immutable"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void ifNoneMatchAnswers304WithoutTouchingMinio() throws Exception {
+        mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "owner").header("If-None-Match", "\"" + HASH + "\""))
+                .andExpect(status().isNotModified());
+
+        verify(storageService, never()).openObject(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void rangeRequestStreamsOnlyRequestedBytes() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "owner").header("Range", "bytes=10-14"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 10-14/20"))
+                .andExpect(content().string("abcde"));
+
+        verify(storageService).openObject("obj.mp4", 10, 5);
+    }
+
+    @Test
+    void staleIfRangeFallsBackToFullBody() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "owner")
+                        .header("Range", "bytes=10-14")
+                        .header("If-Range", "\"other\""))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void unsatisfiableRangeReturns416() throws Exception {
+        mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "owner").header("Range", "bytes=50-60"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */20"));
+    }
+
+    @Test
+    void unknownFileOrVariantReturns404() throws Exception {
+        mockMvc.perform(get("/api/v1/media/files/missing").header("X-User-Id", "owner")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "owner").param("variant", "w640")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void uploaderIsAllowedWithoutAskingOtherServices() throws Exception {
+        mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "owner"))
+                .andExpect(request().asyncStarted());
+
+        verifyNoInteractions(referenceClient);
+    }
+
+    @Test
+    void conversationParticipantIsAllowed() throws Exception {
+        when(referenceClient.isMessageParticipant("friend", URL)).thenReturn(true);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "friend"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void avatarIsReadableByAnyUser() throws Exception {
+        when(referenceClient.findAvatarReferences(List.of(URL))).thenReturn(Set.of(URL));
+
+        mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "stranger"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void nonParticipantOrAnonymousIsForbiddenWithoutTouchingMinio() throws Exception {
+        mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "stranger"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/media/files/f1"))
+                .andExpect(status().isForbidden());
+
+        verify(storageService, never()).openObject(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void failedAccessCheckReturns503() throws Exception {
+        when(referenceClient.isMessageParticipant("friend", URL)).thenThrow(new ResourceAccessException("down"));
+
+        mockMvc.perform(get("/api/v1/media/files/f1").header("X-User-Id", "friend"))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
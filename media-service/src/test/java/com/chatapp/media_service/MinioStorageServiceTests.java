@@ -0,0 +1,60 @@
+package com.chatapp.media_service;
+
+import com.chatapp.media_service.repository.MediaFileRepository;
+import com.chatapp.media_service.repository.MediaObjectRepository;
+import com.chatapp.media_service.service.MinioStorageService;
+import io.minio.MinioClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Giải phóng tham chiếu object dùng chung: chỉ đúng một caller được báo "tham chiếu cuối" (xoá trên MinIO).
+ */
+class MinioStorageServiceTests {
+
+    private MediaObjectRepository mediaObjectRepository;
+    private MinioStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        mediaObjectRepository = mock(MediaObjectRepository.class);
+        service = new MinioStorageService(mock(MinioClient.class), mock(MediaFileRepository.class),
+                mediaObjectRepository, 1, 1000);
+    }
+
+    @Test
+    void lastReferenceDeletesTheRow() {
+        when(mediaObjectRepository.decrementRefCount("obj")).thenReturn(1);
+        when(mediaObjectRepository.deleteIfUnreferenced("obj")).thenReturn(1);
+
+        assertThat(service.releaseReference("obj")).isTrue();
+    }
+
+    @Test
+    void otherReferencesOrConcurrentDeleteKeepTheObject() {
+        when(mediaObjectRepository.decrementRefCount("obj")).thenReturn(1);
+        when(mediaObjectRepository.deleteIfUnreferenced("obj")).thenReturn(0);
+
+        assertThat(service.releaseReference("obj")).isFalse();
+    }
+
+    @Test
+    void rowAlreadyAtZeroIsLeftToTheReleaserThatOwnsIt() {
+        when(mediaObjectRepository.decrementRefCount("obj")).thenReturn(0);
+        when(mediaObjectRepository.existsById("obj")).thenReturn(true);
+
+        assertThat(service.releaseReference("obj")).isFalse();
+        verify(mediaObjectRepository, never()).deleteIfUnreferenced(anyString());
+    }
+
+    @Test
+    void untrackedLegacyObjectCountsAsSingleReference() {
+        when(mediaObjectRepository.decrementRefCount("legacy.jpg")).thenReturn(0);
+        when(mediaObjectRepository.existsById("legacy.jpg")).thenReturn(false);
+
+        assertThat(service.releaseReference("legacy.jpg")).isTrue();
+    }
+}
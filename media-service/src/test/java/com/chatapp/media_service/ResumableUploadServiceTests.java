@@ -0,0 +1,140 @@
+package com.chatapp.media_service;
+
+import com.chatapp.media_service.config.MultipartMinioClient;
+import com.chatapp.media_service.entity.MediaFile;
+import com.chatapp.media_service.entity.UploadSession;
+import com.chatapp.media_service.enums.UploadSessionStatus;
+import com.chatapp.media_service.repository.MediaFileRepository;
+import com.chatapp.media_service.repository.UploadSessionPartRepository;
+import com.chatapp.media_service.repository.UploadSessionRepository;
+import com.chatapp.media_service.service.MinioStorageService;
+import com.chatapp.media_service.service.ResumableUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * GC của upload resumable: session kẹt ở COMPLETING (instance chết giữa lúc complete) phải được dọn,
+ * không cần Postgres hay MinIO.
+ */
+class ResumableUploadServiceTests {
+
+    private MultipartMinioClient multipartClient;
+    private MinioStorageService storageService;
+    private UploadSessionRepository sessionRepository;
+    private UploadSessionPartRepository partRepository;
+    private MediaFileRepository mediaFileRepository;
+    private ResumableUploadService service;
+
+    private UploadSession stale;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        multipartClient = mock(MultipartMinioClient.class);
+        storageService = mock(MinioStorageService.class);
+        sessionRepository = mock(UploadSessionRepository.class);
+        partRepository = mock(UploadSessionPartRepository.class);
+        mediaFileRepository = mock(MediaFileRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+
+        service = new ResumableUploadService(multipartClient, storageService, sessionRepository, partRepository,
+                mediaFileRepository, transactionTemplate);
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(service, "completeLease", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(service, "cleanupBatchSize", 100);
+
+        when(storageService.getBucketName()).thenReturn("bucket");
+        when(storageService.saveWithDownloadUrl(any(MediaFile.class))).thenAnswer(invocation -> {
+            MediaFile file = invocation.getArgument(0);
+            file.setId("file-1");
+            return file;
+        });
+
+        stale = UploadSession.builder()
+                .id("s1")
+                .minioUploadId("upload-1")
+                .objectName("obj.bin")
+                .originalFileName("big.bin")
+                .contentType("application/octet-stream")
+                .totalSize(10L * 1024 * 1024)
+                .chunkSize(5L * 1024 * 1024)
+                .uploaderId("u1")
+                .status(UploadSessionStatus.COMPLETING)
+                .expiresAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+        when(sessionRepository.findByStatusAndExpiresAtBefore(eq(UploadSessionStatus.COMPLETING), any(), any()))
+                .thenReturn(List.of(stale), List.of());
+        when(sessionRepository.findByStatusAndExpiresAtBefore(eq(UploadSessionStatus.ACTIVE), any(), any()))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    void staleCompletionWithAssembledObjectIsRegistered() throws Exception {
+        when(sessionRepository.claimForCompletion(eq("s1"), any(), any())).thenReturn(1);
+        when(storageService.objectExists("obj.bin")).thenReturn(true);
+
+        service.expireSessions();
+
+        verify(storageService).registerObject(eq("obj.bin"), isNull(), eq(stale.getTotalSize()), anyString());
+        verify(storageService).saveWithDownloadUrl(any(MediaFile.class));
+        assertThat(stale.getStatus()).isEqualTo(UploadSessionStatus.COMPLETED);
+        assertThat(stale.getMediaFileId()).isEqualTo("file-1");
+        verify(partRepository).deleteBySessionId("s1");
+        verify(multipartClient, never()).abortMultipartUpload(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void staleCompletionWithoutObjectIsAbortedAndExpired() throws Exception {
+        when(sessionRepository.claimForCompletion(eq("s1"), any(), any())).thenReturn(1);
+        when(storageService.objectExists("obj.bin")).thenReturn(false);
+
+        service.expireSessions();
+
+        verify(multipartClient).abortMultipartUpload("bucket", "obj.bin", "upload-1");
+        assertThat(stale.getStatus()).isEqualTo(UploadSessionStatus.EXPIRED);
+        verify(sessionRepository).save(stale);
+        verify(partRepository).deleteBySessionId("s1");
+        verify(storageService, never()).saveWithDownloadUrl(any());
+    }
+
+    @Test
+    void staleCompletionClaimedElsewhereIsLeftAlone() throws Exception {
+        when(sessionRepository.claimForCompletion(eq("s1"), any(), any())).thenReturn(0);
+
+        service.expireSessions();
+
+        verify(storageService, never()).objectExists(anyString());
+        verify(multipartClient, never()).abortMultipartUpload(anyString(), anyString(), anyString());
+        verify(sessionRepository, never()).save(any());
+        verify(partRepository, never()).deleteBySessionId(anyString());
+    }
+
+    @Test
+    void storageFailureLeavesSessionForNextSweep() throws Exception {
+        when(sessionRepository.claimForCompletion(eq("s1"), any(), any())).thenReturn(1);
+        when(storageService.objectExists("obj.bin")).thenReturn(false);
+        doThrow(new RuntimeException("minio down"))
+                .when(multipartClient).abortMultipartUpload(anyString(), anyString(), anyString());
+
+        service.expireSessions();
+
+        assertThat(stale.getStatus()).isEqualTo(UploadSessionStatus.COMPLETING);
+        verify(sessionRepository, never()).save(any());
+        verify(partRepository, never()).deleteBySessionId(anyString());
+    }
+}
@@ -0,0 +1,169 @@
+package com.chatapp.media_service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark upload đồng thời nhiều file lớn vào một media-service ĐANG CHẠY (cần MinIO + Postgres).
+ * Dữ liệu được sinh ngay khi gửi (không đọc từ đĩa); heap của server được lấy mẫu qua actuator.
+ *
+ * <pre>
+ * mvn test -Dtest=StreamingUploadBenchmark -Dbenchmark.url=http://localhost:8083 \
+ *     [-Dbenchmark.managementUrl=http://localhost:8093] \
+ *     [-Dbenchmark.concurrency=8] [-Dbenchmark.sizeMb=50] [-Dbenchmark.mode=multipart|stream]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.url", matches = ".+")
+class StreamingUploadBenchmark {
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.E+-]+)");
+    private static final String BOUNDARY = "----benchmark-boundary";
+
+    private final String baseUrl = System.getProperty("benchmark.url");
+    // Actuator chạy trên management port riêng (management.server.port)
+    private final String managementUrl = System.getProperty("benchmark.managementUrl", "http://localhost:8093");
+    private final int concurrency = Integer.getInteger("benchmark.concurrency", 8);
+    private final long sizeBytes = Long.getLong("benchmark.sizeMb", 50L) * 1024 * 1024;
+    private final String mode = System.getProperty("benchmark.mode", "multipart");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void concurrentLargeUploads() throws Exception {
+        AtomicLong heapMax = new AtomicLong();
+        long heapBefore = sampleHeap();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> heapMax.accumulateAndGet(sampleHeap(), Math::max),
+                0, 250, TimeUnit.MILLISECONDS);
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        List<Future<Integer>> results = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            int index = i;
+            results.add(pool.submit(() -> {
+                long t0 = System.nanoTime();
+                HttpResponse<String> response = httpClient.send(buildRequest(index), HttpResponse.BodyHandlers.ofString());
+                latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+                return response.statusCode();
+            }));
+        }
+
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<Integer> result : results) {
+            statuses.add(result.get(10, TimeUnit.MINUTES));
+        }
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
+
+        pool.shutdown();
+        sampler.shutdownNow();
+
+        Collections.sort(latencies);
+        double totalMb = concurrency * sizeBytes / (1024.0 * 1024.0);
+        System.out.println("==================== STREAMING UPLOAD BENCHMARK ====================");
+        System.out.printf("mode=%s concurrency=%d size=%dMB%n", mode, concurrency, sizeBytes / (1024 * 1024));
+        System.out.printf("total=%.0fMB elapsed=%.2fs throughput=%.1fMB/s%n", totalMb, elapsedSec, totalMb / elapsedSec);
+        System.out.printf("latency p50=%dms max=%dms%n", latencies.get(latencies.size() / 2), latencies.get(latencies.size() - 1));
+        System.out.printf("server heap before=%dMB peak=%dMB (delta %dMB)%n",
+                heapBefore >> 20, heapMax.get() >> 20, (heapMax.get() - heapBefore) >> 20);
+        System.out.println("statuses=" + statuses);
+        System.out.println("====================================================================");
+
+        assertThat(statuses).allMatch(status -> status == 200);
+    }
+
+    private HttpRequest buildRequest(int index) {
+        String fileName = "bench-" + index + ".bin";
+        HttpRequest.BodyPublisher data = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> new GeneratedInputStream(sizeBytes)), sizeBytes);
+
+        if ("stream".equals(mode)) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/media/upload/stream"))
+                    .header("Content-Type", "application/octet-stream")
+                    .header("X-File-Name", fileName)
+                    .header("X-User-Id", "benchmark")
+                    .POST(data)
+                    .build();
+        }
+
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n";
+        String tail = "\r\n--" + BOUNDARY + "--\r\n";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/media/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .header("X-User-Id", "benchmark")
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofString(head, StandardCharsets.UTF_8),
+                        data,
+                        HttpRequest.BodyPublishers.ofString(tail, StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    private long sampleHeap() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create(managementUrl + "/actuator/metrics/jvm.memory.used?tag=area:heap")).GET().build();
+            Matcher matcher = METRIC_VALUE.matcher(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            return matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    // Sinh dữ liệu giả ngẫu nhiên (không nén được) với kích thước cố định, không giữ gì trong bộ nhớ
+    private static class GeneratedInputStream extends InputStream {
+        private long remaining;
+        private int seed = 0x2545F491;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) {
+                return -1;
+            }
+            remaining--;
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return seed & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) read();
+            }
+            return n;
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.chatapp.notification_service.controller;
 import com.chatapp.notification_service.service.FcmService;
 import com.chatapp.notification_service.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -47,4 +49,26 @@ public class NotificationController {
 
         return ResponseEntity.ok("Đã gửi lệnh thông báo");
     }
-}
\ No newline at end of file
+
+    /**
+     * POST /api/notifications/send-batch
+     * Cùng định dạng từng phần tử như /send; token lấy 1 lần từ Redis, gửi Firebase bằng 1 lần sendEach.
+     * Lỗi Firebase -> 5xx để bên gọi (outbox friend-service) thử lại cả lô.
+     */
+    @PostMapping("/send-batch")
+    public ResponseEntity<Map<String, Integer>> sendNotifications(@RequestBody List<Map<String, Object>> requests) {
+        List<NotificationService.ChatNotification> notifications = requests.stream()
+                .map(request -> new NotificationService.ChatNotification(
+                        String.valueOf(request.get("userId")),
+                        request.get("senderName") != null ? String.valueOf(request.get("senderName")) : "Người lạ",
+                        request.get("body") != null ? String.valueOf(request.get("body")) : "",
+                        request.get("roomId") != null ? String.valueOf(request.get("roomId")) : ""))
+                .toList();
+        try {
+            int sent = notificationService.sendChatNotifications(notifications);
+            return ResponseEntity.ok(Map.of("received", notifications.size(), "sent", sent));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.chatapp.notification_service.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -26,6 +28,13 @@ public class FcmService {
         return redisTemplate.opsForValue().get(REDIS_PREFIX + userId);
     }
 
+    // 2b. Lấy token của nhiều user trong 1 lần MGET (cùng thứ tự với userIds, null = chưa đăng ký)
+    public List<String> getTokens(List<String> userIds) {
+        List<String> keys = userIds.stream().map(userId -> REDIS_PREFIX + userId).toList();
+        List<String> tokens = redisTemplate.opsForValue().multiGet(keys);
+        return tokens != null ? tokens : Collections.nCopies(userIds.size(), null);
+    }
+
     // 3. Xóa Token (Khi logout)
     public void deleteToken(String userId) {
         redisTemplate.delete(REDIS_PREFIX + userId);
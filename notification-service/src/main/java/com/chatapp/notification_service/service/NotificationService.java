@@ -1,11 +1,17 @@
 package com.chatapp.notification_service.service;
 
+import com.google.firebase.messaging.BatchResponse;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.FirebaseMessagingException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 public class NotificationService {
 
@@ -17,21 +23,8 @@ public class NotificationService {
 
         if (token != null) {
             try {
-                // [FIX NULL POINTER EXCEPTION & UPDATED FALLBACK]
-                // Firebase .putData() KHÔNG CHẤP NHẬN NULL -> Phải kiểm tra
-                // Fallback to "Người lạ" (Stranger) for consistency with ChatMessageService
+                Message message = buildChatMessage(token, senderName, messageContent, roomId);
                 String safeSenderName = (senderName != null && !senderName.trim().isEmpty()) ? senderName : "Người lạ";
-                String safeBody = (messageContent != null) ? messageContent : "Bạn có tin nhắn";
-                String safeRoomId = (roomId != null) ? roomId : "";
-
-                Message message = Message.builder()
-                        .setToken(token)
-                        .putData("type", "chat_msg")
-                        .putData("username", safeSenderName)  // Actual sender's name
-                        .putData("title", safeSenderName)      // Display sender's name as notification title
-                        .putData("body", safeBody)
-                        .putData("roomId", safeRoomId)
-                        .build();
 
                 String response = FirebaseMessaging.getInstance().send(message);
                 System.out.println(">> Đã gửi Data-Message tới user " + recipientId + " (from: " + safeSenderName + "): " + response);
@@ -47,4 +40,68 @@ public class NotificationService {
             System.out.println("User " + recipientId + " không có token.");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Gửi nhiều thông báo 1 lần (friend-service outbox): token lấy bằng 1 lần MGET Redis,
+     * gửi Firebase bằng 1 lần sendEach. User chưa có token bị bỏ qua. Trả về số thông báo Firebase nhận.
+     */
+    public int sendChatNotifications(List<ChatNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+        List<String> tokens = fcmService.getTokens(notifications.stream().map(ChatNotification::getRecipientId).toList());
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < notifications.size(); i++) {
+            String token = tokens.get(i);
+            if (token == null) {
+                System.out.println("User " + notifications.get(i).getRecipientId() + " không có token.");
+                continue;
+            }
+            ChatNotification notification = notifications.get(i);
+            messages.add(buildChatMessage(token, notification.getSenderName(), notification.getBody(), notification.getRoomId()));
+        }
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        try {
+            // sendEach nhận tối đa 500 message
+            int sent = 0;
+            for (int from = 0; from < messages.size(); from += 500) {
+                BatchResponse response = FirebaseMessaging.getInstance()
+                        .sendEach(messages.subList(from, Math.min(from + 500, messages.size())));
+                sent += response.getSuccessCount();
+            }
+            System.out.println(">> Đã gửi " + sent + "/" + messages.size() + " Data-Message (batch)");
+            return sent;
+        } catch (FirebaseMessagingException e) {
+            System.err.println("Lỗi gửi Firebase (batch): " + e.getMessage());
+            throw new IllegalStateException("Firebase batch send failed", e);
+        }
+    }
+
+    // Firebase .putData() KHÔNG CHẤP NHẬN NULL -> Phải kiểm tra
+    // Fallback to "Người lạ" (Stranger) for consistency with ChatMessageService
+    private Message buildChatMessage(String token, String senderName, String messageContent, String roomId) {
+        String safeSenderName = (senderName != null && !senderName.trim().isEmpty()) ? senderName : "Người lạ";
+        String safeBody = (messageContent != null) ? messageContent : "Bạn có tin nhắn";
+        String safeRoomId = (roomId != null) ? roomId : "";
+
+        return Message.builder()
+                .setToken(token)
+                .putData("type", "chat_msg")
+                .putData("username", safeSenderName)  // Actual sender's name
+                .putData("title", safeSenderName)      // Display sender's name as notification title
+                .putData("body", safeBody)
+                .putData("roomId", safeRoomId)
+                .build();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ChatNotification {
+        private final String recipientId;
+        private final String senderName;
+        private final String body;
+        private final String roomId;
+    }
+}